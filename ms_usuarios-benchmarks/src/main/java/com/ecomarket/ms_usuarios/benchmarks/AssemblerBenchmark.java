@@ -0,0 +1,51 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import com.ecomarket.ms_usuarios.assemblers.UsuarioModelAssembler;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Una página de GET /api/v2/usuarios: cada invocación es una petición nueva con sus enlaces
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssemblerBenchmark {
+
+    @Param({"true", "false"})
+    public boolean enlacesPrecalculados;
+
+    @Param({"20"})
+    public int tamanoPagina;
+
+    private UsuarioModelAssembler assembler;
+    private List<UsuarioResumen> usuarios;
+
+    @Setup
+    public void preparar() {
+        assembler = new UsuarioModelAssembler(enlacesPrecalculados);
+        usuarios = Datos.resumenes(tamanoPagina);
+    }
+
+    @TearDown
+    public void limpiar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public void toModelPagina(Blackhole blackhole) {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/v2/usuarios")));
+        for (UsuarioResumen usuario : usuarios) {
+            blackhole.consume(assembler.toModel(usuario));
+        }
+    }
+}
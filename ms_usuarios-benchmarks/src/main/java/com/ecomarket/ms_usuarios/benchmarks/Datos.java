@@ -0,0 +1,67 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.model.UuidV7Generator;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// Usuarios de ejemplo con datos realistas (todos válidos)
+final class Datos {
+
+    private Datos() {
+    }
+
+    static Usuario usuario(int i) {
+        return new Usuario(UuidV7Generator.generar(), "Usuario " + i, "usuario" + i + "@ecomarket.cl",
+                "contrasena" + i, "Av. Providencia " + i, "9" + (10_000_000 + i), Rol.values()[i % Rol.values().length]);
+    }
+
+    // Clave JWT de 256 bits distinta en cada ejecución: la configuración principal no trae ninguna
+    static String claveJwt() {
+        byte[] clave = new byte[32];
+        new SecureRandom().nextBytes(clave);
+        return Base64.getEncoder().encodeToString(clave);
+    }
+
+    static List<Usuario> usuarios(int cantidad) {
+        List<Usuario> usuarios = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            usuarios.add(usuario(i));
+        }
+        return usuarios;
+    }
+
+    // Nombres y apellidos combinados: el índice de sugerencias necesita textos variados, no "Usuario i"
+    private static final String[] NOMBRES = {"Juan", "María", "José", "Ana", "Luis", "Carmen", "Jorge", "Francisca",
+            "Pedro", "Valentina", "Diego", "Camila", "Matías", "Javiera", "Sebastián", "Constanza", "Tomás", "Isidora",
+            "Benjamín", "Martina", "Vicente", "Florencia", "Joaquín", "Antonia", "Cristóbal", "Catalina", "Ignacio",
+            "Fernanda", "Felipe", "Daniela", "Andrés", "Paula", "Rodrigo", "Sofía", "Marcelo", "Josefa"};
+    private static final String[] APELLIDOS = {"González", "Muñoz", "Rojas", "Díaz", "Pérez", "Soto", "Contreras",
+            "Silva", "Martínez", "Sepúlveda", "Morales", "Rodríguez", "López", "Fuentes", "Hernández", "Torres",
+            "Araya", "Flores", "Espinoza", "Valenzuela", "Castillo", "Tapia", "Reyes", "Gutiérrez", "Castro",
+            "Pizarro", "Álvarez", "Vásquez", "Sánchez", "Fernández", "Ramírez", "Carrasco", "Gómez", "Cortés",
+            "Herrera", "Núñez", "Jara", "Vergara", "Rivera", "Figueroa", "Riquelme", "García", "Miranda", "Bravo"};
+    private static final String[] DOMINIOS = {"gmail.com", "hotmail.com", "ecomarket.cl", "outlook.com", "yahoo.es"};
+
+    static String[][] nombresYEmails(int cantidad) {
+        String[][] datos = new String[cantidad][];
+        for (int i = 0; i < cantidad; i++) {
+            String nombre = NOMBRES[i % NOMBRES.length];
+            String paterno = APELLIDOS[(i / NOMBRES.length) % APELLIDOS.length];
+            String materno = APELLIDOS[(i * 7 + 3) % APELLIDOS.length];
+            String email = (nombre.charAt(0) + paterno + i + "@" + DOMINIOS[i % DOMINIOS.length]).toLowerCase();
+            datos[i] = new String[]{nombre + " " + paterno + " " + materno, email};
+        }
+        return datos;
+    }
+
+    // Lo que devuelven las lecturas del repositorio y consume el assembler
+    static List<UsuarioResumen> resumenes(int cantidad) {
+        return usuarios(cantidad).stream().map(UsuarioResumen::de).toList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Punto de entrada: acepta los mismos argumentos que org.openjdk.jmh.Main y añade por defecto
+// el perfilador de asignaciones (-prof gc) y un resultado JSON por commit para comparar versiones.
+public final class EjecutarBenchmarks {
+
+    private EjecutarBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(cli).shouldFailOnError(true);
+
+        if (cli.getProfilers().isEmpty()) {
+            opciones.addProfiler(GCProfiler.class);
+        }
+        if (!cli.getResult().hasValue()) {
+            Path salida = Path.of("target", "jmh", version() + ".json");
+            Files.createDirectories(salida.getParent());
+            opciones.resultFormat(ResultFormatType.JSON).result(salida.toString());
+        }
+
+        new Runner(opciones.build()).run();
+    }
+
+    // Commit actual (con -dirty si hay cambios sin confirmar); fuera de git, la fecha
+    static String version() {
+        try {
+            Process git = new ProcessBuilder("git", "describe", "--always", "--dirty").redirectErrorStream(true).start();
+            String salida = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (git.waitFor() == 0 && !salida.isEmpty()) {
+                return salida;
+            }
+        } catch (IOException ex) {
+            // git no disponible
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import com.ecomarket.ms_usuarios.assemblers.UsuarioModelAssembler;
+import com.ecomarket.ms_usuarios.dto.UsuarioModel;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialización de las respuestas v1 (Usuario) y v2 (HAL)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JacksonBenchmark {
+
+    @Param({"20"})
+    public int tamanoPagina;
+
+    private ObjectMapper json;
+    private ObjectMapper hal;
+    private Usuario usuario;
+    private CollectionModel<UsuarioModel> pagina;
+
+    @Setup
+    public void preparar() {
+        json = Jackson2ObjectMapperBuilder.json().build();
+        hal = Jackson2ObjectMapperBuilder.json().modules(new Jackson2HalModule()).build();
+        hal.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+
+        usuario = Datos.usuario(1);
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/v2/usuarios")));
+        try {
+            UsuarioModelAssembler assembler = new UsuarioModelAssembler(true);
+            List<UsuarioModel> modelos = Datos.resumenes(tamanoPagina).stream().map(assembler::toModel).toList();
+            pagina = CollectionModel.of(modelos, Link.of("http://localhost/api/v2/usuarios?limit=" + tamanoPagina));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Benchmark
+    public byte[] usuario() throws JsonProcessingException {
+        return json.writeValueAsBytes(usuario);
+    }
+
+    @Benchmark
+    public byte[] coleccionHal() throws JsonProcessingException {
+        return hal.writeValueAsBytes(pagina);
+    }
+}
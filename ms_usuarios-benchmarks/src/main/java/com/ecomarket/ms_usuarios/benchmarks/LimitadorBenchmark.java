@@ -0,0 +1,43 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import com.ecomarket.ms_usuarios.service.CubetasTokens;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Coste de una comprobación de cuota de login con muchos hilos a la vez. claves = 1 es el peor caso
+// (todos los hilos sobre la misma franja); con muchas claves se ve el efecto del reparto en franjas
+// y, por encima de maximo-claves, el del descarte LRU.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class LimitadorBenchmark {
+
+    @Param({"1", "10000", "1000000"})
+    public int claves;
+
+    private CubetasTokens cubetas;
+    private String[] emails;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        // Los mismos valores por defecto que usuarios.login.limite.email.*
+        cubetas = new CubetasTokens(10, Duration.ofMinutes(1), 100_000, 64, System::nanoTime);
+        emails = new String[claves];
+        for (int i = 0; i < claves; i++) {
+            emails[i] = "usuario" + i + "@ecomarket.cl";
+        }
+    }
+
+    @Benchmark
+    public long consumir() {
+        // Con más claves que maximo-claves casi cada intento crea una cubeta y descarta la menos reciente
+        return cubetas.consumir(emails[ThreadLocalRandom.current().nextInt(claves)]);
+    }
+}
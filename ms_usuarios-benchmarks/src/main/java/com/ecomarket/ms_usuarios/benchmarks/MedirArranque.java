@@ -0,0 +1,204 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Tiempo de arranque del servicio empaquetado, medido desde fuera del proceso:
+// - listo: hasta que /actuator/health/readiness responde 200 (incluye los ApplicationRunner).
+// - primera: latencia de la primera petición de listado tras estar listo.
+// - rapida: desde el lanzamiento hasta la primera petición de listado por debajo del umbral (JIT caliente).
+// Modos: normal (java -jar), rapido (AOT + archivo CDS del perfil arranque-rapido) y calentado (rapido con
+// usuarios.calentamiento.enabled=true). Argumentos clave=valor (modos, repeticiones, umbral en ms, maximo en s);
+// los que empiezan por "--" se pasan al servicio, p. ej. --spring.datasource.url=... para su base de datos.
+// Sin --usuarios.jwt.claves.* se genera una clave JWT por ejecución.
+// Resultado en target/arranque/<commit>.json y el log de cada ejecución junto a él.
+public final class MedirArranque {
+
+    private static final Duration ESPERA_PETICION = Duration.ofSeconds(5);
+
+    private final Path servicio;
+    private final int umbralMs;
+    private final Duration maximo;
+    private final List<String> argumentosServicio;
+    private final Path salida;
+    private final HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private MedirArranque(Path servicio, int umbralMs, Duration maximo, List<String> argumentosServicio, Path salida) {
+        this.servicio = servicio;
+        this.umbralMs = umbralMs;
+        this.maximo = maximo;
+        this.argumentosServicio = argumentosServicio;
+        this.salida = salida;
+    }
+
+    record Medida(String modo, int repeticion, long listoMs, long primeraMs, long rapidaMs, int peticionesHastaRapida) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        List<String> argumentosServicio = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                argumentosServicio.add(arg);
+            } else if (arg.contains("=")) {
+                opciones.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        List<String> modos = Arrays.asList(opciones.getOrDefault("modos", "normal,rapido,calentado").split(","));
+        int repeticiones = Integer.parseInt(opciones.getOrDefault("repeticiones", "5"));
+        Path salida = Path.of("target", "arranque");
+        Files.createDirectories(salida);
+
+        MedirArranque medicion = new MedirArranque(
+                Path.of(opciones.getOrDefault("servicio", "../ms_usuarios/target")),
+                Integer.parseInt(opciones.getOrDefault("umbral", "20")),
+                Duration.ofSeconds(Long.parseLong(opciones.getOrDefault("maximo", "120"))),
+                argumentosServicio, salida);
+
+        List<Medida> medidas = new ArrayList<>();
+        for (String modo : modos) {
+            for (int i = 1; i <= repeticiones; i++) {
+                Medida medida = medicion.medir(modo.trim(), i);
+                System.out.printf("%-10s #%d  listo %6d ms  primera %5d ms  rápida %6d ms (%d peticiones)%n",
+                        medida.modo(), medida.repeticion(), medida.listoMs(), medida.primeraMs(),
+                        medida.rapidaMs(), medida.peticionesHastaRapida());
+                medidas.add(medida);
+            }
+        }
+        resumir(modos, medidas);
+
+        Path resultado = salida.resolve(EjecutarBenchmarks.version() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultado.toFile(),
+                Map.of("umbralMs", medicion.umbralMs, "medidas", medidas));
+        System.out.println("Resultado: " + resultado);
+    }
+
+    private Medida medir(String modo, int repeticion) throws IOException, InterruptedException {
+        int puerto = puertoLibre();
+        int puertoGestion = puertoLibre();
+        List<String> comando = new ArrayList<>(List.of("java"));
+        Path directorio;
+        if (modo.equals("normal")) {
+            directorio = servicio;
+        } else if (modo.equals("rapido") || modo.equals("calentado")) {
+            directorio = servicio.resolve("cds");
+            if (!Files.exists(directorio.resolve("ms_usuarios.jsa"))) {
+                throw new IllegalStateException("Falta " + directorio.resolve("ms_usuarios.jsa")
+                        + ": empaquete ms_usuarios con -Parranque-rapido");
+            }
+            comando.addAll(List.of("-XX:SharedArchiveFile=ms_usuarios.jsa", "-Dspring.aot.enabled=true"));
+        } else {
+            throw new IllegalArgumentException("Modo desconocido: " + modo + " (normal, rapido, calentado)");
+        }
+        comando.addAll(List.of("-jar", jarEjecutable(directorio).getFileName().toString(),
+                "--server.port=" + puerto, "--management.server.port=" + puertoGestion,
+                "--management.endpoint.health.probes.enabled=true",
+                "--usuarios.calentamiento.enabled=" + modo.equals("calentado")));
+        if (argumentosServicio.stream().noneMatch(arg -> arg.startsWith("--usuarios.jwt.claves."))) {
+            comando.add("--usuarios.jwt.claves.k1=" + Datos.claveJwt());
+        }
+        comando.addAll(argumentosServicio);
+
+        Path log = salida.resolve(modo + "-" + repeticion + ".log").toAbsolutePath();
+        long inicio = System.nanoTime();
+        Process proceso = new ProcessBuilder(comando).directory(directorio.toFile())
+                .redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long limite = inicio + maximo.toNanos();
+            URI readiness = URI.create("http://localhost:" + puertoGestion + "/actuator/health/readiness");
+            while (estado(readiness) != 200) {
+                if (!proceso.isAlive() || System.nanoTime() > limite) {
+                    throw new IllegalStateException("El servicio no llegó a estar listo (" + modo + "), ver " + log);
+                }
+                Thread.sleep(20);
+            }
+            long listo = System.nanoTime();
+
+            URI listado = URI.create("http://localhost:" + puerto + "/api/v2/usuarios?limit=50");
+            long primeraMs = -1;
+            int peticiones = 0;
+            while (System.nanoTime() < limite) {
+                long antes = System.nanoTime();
+                if (estado(listado) != 200) {
+                    throw new IllegalStateException("El listado no respondió 200 (" + modo + "), ver " + log);
+                }
+                long latenciaMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - antes);
+                peticiones++;
+                if (primeraMs < 0) {
+                    primeraMs = latenciaMs;
+                }
+                if (latenciaMs <= umbralMs) {
+                    return new Medida(modo, repeticion, TimeUnit.NANOSECONDS.toMillis(listo - inicio), primeraMs,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), peticiones);
+                }
+            }
+            throw new IllegalStateException("Ninguna petición bajó de " + umbralMs + " ms en " + maximo);
+        } finally {
+            proceso.destroy();
+            if (!proceso.waitFor(30, TimeUnit.SECONDS)) {
+                proceso.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Código de estado, o -1 si aún no acepta conexiones
+    private int estado(URI uri) throws InterruptedException {
+        try {
+            HttpRequest peticion = HttpRequest.newBuilder(uri).timeout(ESPERA_PETICION).GET().build();
+            return cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    // Medianas por modo, para comparar de un vistazo
+    private static void resumir(List<String> modos, List<Medida> medidas) {
+        System.out.println();
+        for (String modo : modos) {
+            List<Medida> delModo = medidas.stream().filter(medida -> medida.modo().equals(modo.trim())).toList();
+            System.out.printf("%-10s mediana  listo %6d ms  primera %5d ms  rápida %6d ms%n", modo.trim(),
+                    mediana(delModo.stream().mapToLong(Medida::listoMs).toArray()),
+                    mediana(delModo.stream().mapToLong(Medida::primeraMs).toArray()),
+                    mediana(delModo.stream().mapToLong(Medida::rapidaMs).toArray()));
+        }
+    }
+
+    private static long mediana(long[] valores) {
+        Arrays.sort(valores);
+        return valores.length == 0 ? 0 : valores[valores.length / 2];
+    }
+
+    private static Path jarEjecutable(Path directorio) throws IOException {
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            return ficheros.filter(fichero -> fichero.getFileName().toString().endsWith("-exec.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No hay jar ejecutable en " + directorio));
+        }
+    }
+
+    private static int puertoLibre() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
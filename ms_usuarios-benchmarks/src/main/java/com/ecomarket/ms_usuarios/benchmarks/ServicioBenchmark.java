@@ -0,0 +1,85 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import com.ecomarket.ms_usuarios.MsUsuariosApplication;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.service.AuthService;
+import com.ecomarket.ms_usuarios.service.UsuarioService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Login y alta con el contexto completo de Spring sobre H2 en memoria (modo MySQL).
+// El coste de BCrypt se fija bajo por defecto para medir el resto de la ruta; -p hashCoste=10
+// da la latencia real de producción.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServicioBenchmark {
+
+    private static final String EMAIL = "benchmark@ecomarket.cl";
+    private static final String CONTRASENA = "contrasena-benchmark";
+
+    @Param({"4"})
+    public int hashCoste;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private ConfigurableApplicationContext contexto;
+    private AuthService authService;
+    private UsuarioService usuarioService;
+    private final AtomicInteger altas = new AtomicInteger();
+
+    @Setup
+    public void arrancar() {
+        // Como argumentos de línea de comandos para que prevalezcan sobre application.properties
+        contexto = new SpringApplicationBuilder(MsUsuariosApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--usuarios.hash.coste=" + hashCoste,
+                        "--usuarios.cache.enabled=" + cache,
+                        "--usuarios.jwt.claves.k1=" + Datos.claveJwt());
+        authService = contexto.getBean(AuthService.class);
+        usuarioService = contexto.getBean(UsuarioService.class);
+
+        Usuario usuario = Datos.usuario(0);
+        usuario.setId(null);
+        usuario.setEmail(EMAIL);
+        usuario.setContraseña(CONTRASENA);
+        usuarioService.guardarUsuario(usuario);
+    }
+
+    @TearDown
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> login() {
+        return authService.login(EMAIL, CONTRASENA);
+    }
+
+    @Benchmark
+    public Usuario guardarUsuario() {
+        Usuario usuario = Datos.usuario(altas.incrementAndGet());
+        usuario.setId(null);
+        return usuarioService.guardarUsuario(usuario);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import com.ecomarket.ms_usuarios.model.UuidV7Generator;
+import com.ecomarket.ms_usuarios.service.IndiceTrigramas;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// GET /api/v2/usuarios/sugerencias sin HTTP: una consulta contra el índice de trigramas ya cargado
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SugerenciasBenchmark {
+
+    @Param({"100000"})
+    public int cantidad;
+
+    // Una letra (inicio de palabra), un prefijo corto, un apellido completo y un fragmento de email
+    @Param({"j", "mar", "gonzalez", "rojas1"})
+    public String consulta;
+
+    private IndiceTrigramas indice;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        indice = new IndiceTrigramas();
+        for (String[] datos : Datos.nombresYEmails(cantidad)) {
+            indice.agregar(UuidV7Generator.generar(), datos[0], datos[1]);
+        }
+        indice.recortar();
+        System.out.printf("%nSugerencias: %d usuarios, %d trigramas, ~%d KiB%n",
+                indice.tamano(), indice.trigramas(), indice.bytesEstimados() / 1024);
+    }
+
+    @Benchmark
+    public Object sugerir() {
+        return indice.buscar(consulta, 10);
+    }
+}
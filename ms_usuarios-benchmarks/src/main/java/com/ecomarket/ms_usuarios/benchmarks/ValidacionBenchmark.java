@@ -0,0 +1,52 @@
+package com.ecomarket.ms_usuarios.benchmarks;
+
+import com.ecomarket.ms_usuarios.model.Usuario;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Bean Validation de Usuario tal como la aplican @Valid y el alta masiva
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidacionBenchmark {
+
+    private ValidatorFactory fabrica;
+    private Validator validator;
+    private Usuario valido;
+    private Usuario invalido;
+
+    @Setup
+    public void preparar() {
+        fabrica = Validation.buildDefaultValidatorFactory();
+        validator = fabrica.getValidator();
+        valido = Datos.usuario(1);
+        invalido = Datos.usuario(2);
+        invalido.setEmail("no-es-un-email");
+        invalido.setTelefono("12");
+        invalido.setContraseña("corta");
+    }
+
+    @TearDown
+    public void cerrar() {
+        fabrica.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Usuario>> usuarioValido() {
+        return validator.validate(valido);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Usuario>> usuarioInvalido() {
+        return validator.validate(invalido);
+    }
+}
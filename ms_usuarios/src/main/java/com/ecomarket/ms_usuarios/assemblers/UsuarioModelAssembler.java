@@ -2,36 +2,112 @@ package com.ecomarket.ms_usuarios.assemblers;
 
 import com.ecomarket.ms_usuarios.controller.UsuarioControllerV2;
 import com.ecomarket.ms_usuarios.dto.UsuarioModel;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
 import com.ecomarket.ms_usuarios.model.Usuario;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.WebRequest;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @Component
-public class UsuarioModelAssembler extends RepresentationModelAssemblerSupport<Usuario, UsuarioModel> {
+public class UsuarioModelAssembler extends RepresentationModelAssemblerSupport<UsuarioResumen, UsuarioModel> {
+
+    private static final String ATRIBUTO_COLECCION = UsuarioModelAssembler.class.getName() + ".coleccion";
+
+    // Con enlaces precalculados no se crea un proxy methodOn por enlace: las rutas se leen una vez
+    // de las anotaciones del controlador y por petición solo se resuelve la URI de la colección
+    // (host, contexto y cabeceras Forwarded), igual que haría linkTo.
+    private final boolean precalculados;
+    private final PlantillaId detalle;
+    private final PlantillaId eliminar;
+    private final PlantillaId actualizar;
 
-    public UsuarioModelAssembler() {
+    public UsuarioModelAssembler(@Value("${usuarios.hateoas.enlaces-precalculados:true}") boolean precalculados) {
         super(UsuarioControllerV2.class, UsuarioModel.class);
+        this.precalculados = precalculados;
+        this.detalle = PlantillaId.de(metodo("obtenerPorId", UUID.class, WebRequest.class));
+        this.eliminar = PlantillaId.de(metodo("eliminarUsuario", UUID.class));
+        this.actualizar = PlantillaId.de(metodo("actualizarUsuario", UUID.class, Usuario.class, String.class));
     }
 
     @Override
-    public @NonNull UsuarioModel toModel(@NonNull Usuario usuario) {
+    public @NonNull UsuarioModel toModel(@NonNull UsuarioResumen usuario) {
         UsuarioModel model = new UsuarioModel(
-                usuario.getId(),
-                usuario.getNombre(),
-                usuario.getEmail(),
-                usuario.getDireccion(),
-                usuario.getTelefono(),
-                usuario.getRol()
+                usuario.id(),
+                usuario.nombre(),
+                usuario.email(),
+                usuario.direccion(),
+                usuario.telefono(),
+                usuario.rol()
         );
 
-        model.add(linkTo(methodOn(UsuarioControllerV2.class).obtenerPorId(usuario.getId())).withSelfRel());
-        model.add(linkTo(methodOn(UsuarioControllerV2.class).obtenerTodos()).withRel("usuarios"));
-        model.add(linkTo(methodOn(UsuarioControllerV2.class).eliminarUsuario(usuario.getId())).withRel("eliminar"));
-        model.add(linkTo(methodOn(UsuarioControllerV2.class).actualizarUsuario(usuario.getId(), usuario)).withRel("actualizar"));
+        if (precalculados) {
+            String coleccion = uriColeccion();
+            String id = usuario.id().toString();
+            model.add(Link.of(detalle.expandir(coleccion, id), IanaLinkRelations.SELF));
+            model.add(Link.of(coleccion, "usuarios"));
+            model.add(Link.of(eliminar.expandir(coleccion, id), "eliminar"));
+            model.add(Link.of(actualizar.expandir(coleccion, id), "actualizar"));
+            return model;
+        }
+
+        model.add(linkTo(methodOn(UsuarioControllerV2.class).obtenerPorId(usuario.id(), null)).withSelfRel());
+        model.add(linkTo(UsuarioControllerV2.class).withRel("usuarios"));
+        model.add(linkTo(methodOn(UsuarioControllerV2.class).eliminarUsuario(usuario.id())).withRel("eliminar"));
+        model.add(linkTo(methodOn(UsuarioControllerV2.class).actualizarUsuario(usuario.id(), null, null)).withRel("actualizar"));
 
         return model;
     }
+
+    // Una resolución por petición, compartida por todos los usuarios de la página
+    private static String uriColeccion() {
+        RequestAttributes peticion = RequestContextHolder.getRequestAttributes();
+        if (peticion == null) {
+            return linkTo(UsuarioControllerV2.class).toUri().toString();
+        }
+        String coleccion = (String) peticion.getAttribute(ATRIBUTO_COLECCION, RequestAttributes.SCOPE_REQUEST);
+        if (coleccion == null) {
+            coleccion = linkTo(UsuarioControllerV2.class).toUri().toString();
+            peticion.setAttribute(ATRIBUTO_COLECCION, coleccion, RequestAttributes.SCOPE_REQUEST);
+        }
+        return coleccion;
+    }
+
+    private static Method metodo(String nombre, Class<?>... parametros) {
+        try {
+            return UsuarioControllerV2.class.getMethod(nombre, parametros);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("UsuarioControllerV2 no declara " + nombre, ex);
+        }
+    }
+
+    // Ruta del método relativa a la colección, partida en torno a {id}
+    private record PlantillaId(String prefijo, String sufijo) {
+
+        static PlantillaId de(Method metodo) {
+            RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(metodo, RequestMapping.class);
+            String ruta = mapping == null || mapping.path().length == 0 ? "" : mapping.path()[0];
+            int posicion = ruta.indexOf("{id}");
+            if (posicion < 0) {
+                throw new IllegalStateException("La ruta de " + metodo.getName() + " no contiene {id}: " + ruta);
+            }
+            return new PlantillaId(ruta.substring(0, posicion), ruta.substring(posicion + "{id}".length()));
+        }
+
+        String expandir(String coleccion, String id) {
+            return coleccion + prefijo + id + sufijo;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.ecomarket.ms_usuarios.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Cabecera de depuración X-Sql-Statements para respuestas con cuerpo: se escribe antes de que el
+// cuerpo confirme la respuesta, con las sentencias ejecutadas hasta ese momento.
+@ControllerAdvice
+public class CabeceraSentenciasSql implements ResponseBodyAdvice<Object> {
+
+    private final boolean activa;
+
+    public CabeceraSentenciasSql(@Value("${usuarios.sql.cabecera-debug:false}") boolean activa) {
+        this.activa = activa;
+    }
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+                            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return activa;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @NonNull MethodParameter returnType,
+                                  @NonNull MediaType selectedContentType,
+                                  @NonNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  @NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response) {
+        ContadorSentencias.Contador contador = ContadorSentencias.actual();
+        if (contador != null) {
+            response.getHeaders().set(FiltroSentenciasSql.CABECERA, Integer.toString(contador.getTotal()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecomarket.ms_usuarios.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    public static final String USUARIOS_POR_ID = "usuariosPorId";
+    public static final String USUARIOS_POR_EMAIL = "usuariosPorEmail";
+    public static final String RESUMENES_POR_ID = "resumenesPorId";
+
+    // Acotada por tamaño y por TTL; recordStats() deja disponibles aciertos, fallos y desalojos
+    @Bean
+    @ConditionalOnProperty(name = "usuarios.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager cacheManager(@Value("${usuarios.cache.maximo:10000}") long maximo,
+                                     @Value("${usuarios.cache.ttl:5m}") Duration ttl) {
+        CaffeineCacheManager manager = new CaffeineCacheManager(USUARIOS_POR_ID, USUARIOS_POR_EMAIL, RESUMENES_POR_ID);
+        manager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        manager.setAllowNullValues(false);
+        return manager;
+    }
+
+    // Con la caché desactivada todas las lecturas van directo a la base de datos
+    @Bean
+    @ConditionalOnProperty(name = "usuarios.cache.enabled", havingValue = "false")
+    public CacheManager cacheManagerDesactivado() {
+        return new NoOpCacheManager();
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecomarket.ms_usuarios.config;
+
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+// Caché de segundo nivel de Hibernate en memoria local (JCache sobre Caffeine).
+// Las regiones se crean aquí con tamaño y TTL configurables; si Hibernate pidiera otra, falla al arrancar.
+// Los UPDATE/DELETE masivos (PATCH, PUT, borrados) vacían la región de Usuario y las consultas
+// cacheadas de la tabla: es la invalidación que garantiza Hibernate para sentencias sin entidad.
+@Configuration
+@ConditionalOnProperty(name = "usuarios.cache.segundo-nivel.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheSegundoNivelConfig {
+
+    // Un CacheManager por contexto: dos contextos en la misma JVM (p. ej. en las pruebas) no comparten regiones
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel(@Value("${usuarios.cache.segundo-nivel.maximo:10000}") long maximo,
+                                                 @Value("${usuarios.cache.segundo-nivel.ttl:10m}") Duration ttl) {
+        CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-l2:" + UUID.randomUUID()), getClass().getClassLoader());
+
+        // Hibernate guarda estados desensamblados e inmutables: no hace falta copiarlos en cada acceso
+        CaffeineConfiguration<Object, Object> datos = new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maximo))
+                .setExpireAfterWrite(OptionalLong.of(ttl.toNanos()))
+                .setStatisticsEnabled(true);
+        datos.setStoreByValue(false);
+        manager.createCache(Usuario.REGION_CACHE, datos);
+        manager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>(datos));
+
+        // Una marca de tiempo por tabla: no puede expirar ni desalojarse, o la caché de consultas
+        // devolvería resultados anteriores a la última escritura
+        CaffeineConfiguration<Object, Object> marcas = new CaffeineConfiguration<>().setStatisticsEnabled(true);
+        marcas.setStoreByValue(false);
+        manager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, marcas);
+        return manager;
+    }
+
+    // Aciertos y fallos por región se publican con las estadísticas de Hibernate
+    // (hibernate.second.level.cache.requests, hibernate.cache.query.requests)
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager cacheManagerSegundoNivel) {
+        return propiedades -> {
+            propiedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            propiedades.put(AvailableSettings.USE_QUERY_CACHE, true);
+            propiedades.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+            propiedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecomarket.ms_usuarios.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Cuenta las sentencias que Hibernate prepara en el hilo actual mientras haya un contador abierto.
+// Los contadores se anidan: una sentencia suma en el activo y en todos los que lo envuelven, de modo
+// que el filtro por petición y un test que la ejecuta con MockMvc ven la misma cifra.
+// Un lote JDBC cuenta una vez por sentencia preparada, no por fila.
+public class ContadorSentencias implements StatementInspector {
+
+    // Sentencias guardadas por contador; las siguientes solo se cuentan
+    static final int MAXIMO_CAPTURADAS = 200;
+
+    private static final ThreadLocal<Contador> ACTUAL = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Contador contador = ACTUAL.get();
+        if (contador != null) {
+            contador.registrar(sql);
+        }
+        return sql;
+    }
+
+    public static Contador iniciar() {
+        Contador contador = new Contador(ACTUAL.get());
+        ACTUAL.set(contador);
+        return contador;
+    }
+
+    public static Contador actual() {
+        return ACTUAL.get();
+    }
+
+    public static final class Contador implements AutoCloseable {
+
+        private final Contador padre;
+        private final List<String> sentencias = new ArrayList<>();
+        private int total;
+
+        private Contador(Contador padre) {
+            this.padre = padre;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<String> getSentencias() {
+            return Collections.unmodifiableList(sentencias);
+        }
+
+        private void registrar(String sql) {
+            for (Contador contador = this; contador != null; contador = contador.padre) {
+                contador.total++;
+                if (contador.sentencias.size() < MAXIMO_CAPTURADAS) {
+                    contador.sentencias.add(sql);
+                }
+            }
+        }
+
+        // Devuelve el hilo al contador exterior (o a ninguno)
+        @Override
+        public void close() {
+            if (ACTUAL.get() != this) {
+                return;
+            }
+            if (padre == null) {
+                ACTUAL.remove();
+            } else {
+                ACTUAL.set(padre);
+            }
+        }
+    }
+}
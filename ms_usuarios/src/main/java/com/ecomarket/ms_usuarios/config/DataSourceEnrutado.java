@@ -0,0 +1,144 @@
+package com.ecomarket.ms_usuarios.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Envía las transacciones de solo lectura a la réplica y el resto al primario. Va detrás de un
+// LazyConnectionDataSourceProxy: la conexión se pide con la primera sentencia, cuando la transacción
+// ya está marcada como readOnly (al empezar, Hibernate pide la conexión antes de que lo esté).
+// - Lectura de lo propio: tras una transacción de escritura, el resto de la sesión (la petición HTTP,
+//   que con open-in-view es también la sesión de Hibernate) lee del primario. Un filtro de
+//   ReplicaLecturaConfig la reinicia al terminar cada petición.
+// - enPrimaria() fuerza el primario para una lectura concreta (p. ej. de un usuario recién escrito).
+// - Si la réplica no da conexión se marca como caída y se usa el primario hasta que la comprobación
+//   periódica vuelva a validarla.
+public class DataSourceEnrutado extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceEnrutado.class);
+
+    enum Destino { PRIMARIA, REPLICA }
+
+    private static final ThreadLocal<Boolean> ESCRITURA_EN_SESION = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> FORZAR_PRIMARIA = new ThreadLocal<>();
+
+    private final DataSource primaria;
+    private final DataSource replica;
+    private final Counter conexionesPrimaria;
+    private final Counter conexionesReplica;
+    private final Counter fallosReplica;
+
+    private volatile boolean replicaDisponible = true;
+
+    public DataSourceEnrutado(DataSource primaria, DataSource replica, MeterRegistry registry) {
+        this.primaria = primaria;
+        this.replica = replica;
+        setTargetDataSources(Map.of(Destino.PRIMARIA, primaria, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primaria);
+        setLenientFallback(false);
+
+        this.conexionesPrimaria = contador(registry, "primaria");
+        this.conexionesReplica = contador(registry, "replica");
+        this.fallosReplica = Counter.builder("usuarios.datasource.replica.fallos")
+                .description("Conexiones a la réplica fallidas (se sirvieron desde el primario)")
+                .register(registry);
+        Gauge.builder("usuarios.datasource.replica.disponible", this, enrutado -> enrutado.replicaDisponible ? 1 : 0)
+                .description("1 si las lecturas se envían a la réplica, 0 si se desvían al primario")
+                .register(registry);
+    }
+
+    // Ejecuta la lectura contra el primario aunque la transacción sea de solo lectura
+    public static <T> T enPrimaria(Supplier<T> lectura) {
+        Boolean anterior = FORZAR_PRIMARIA.get();
+        FORZAR_PRIMARIA.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            FORZAR_PRIMARIA.set(anterior);
+        }
+    }
+
+    // Fin de la sesión: las lecturas siguientes del hilo vuelven a poder ir a la réplica
+    public static void reiniciarSesion() {
+        ESCRITURA_EN_SESION.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Solo en peticiones HTTP: las tareas en segundo plano se enrutan únicamente por readOnly
+            if (TransactionSynchronizationManager.isActualTransactionActive()
+                    && RequestContextHolder.getRequestAttributes() != null) {
+                ESCRITURA_EN_SESION.set(Boolean.TRUE);
+            }
+            return Destino.PRIMARIA;
+        }
+        boolean aPrimaria = !replicaDisponible || ESCRITURA_EN_SESION.get() != null || FORZAR_PRIMARIA.get() != null;
+        return aPrimaria ? Destino.PRIMARIA : Destino.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Destino.PRIMARIA) {
+            conexionesPrimaria.increment();
+            return primaria.getConnection();
+        }
+        try {
+            Connection conexion = replica.getConnection();
+            conexionesReplica.increment();
+            return conexion;
+        } catch (SQLException ex) {
+            marcarCaida(ex);
+            conexionesPrimaria.increment();
+            return primaria.getConnection();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${usuarios.datasource.replica.comprobacion:PT5S}")
+    public void comprobarReplica() {
+        try (Connection conexion = replica.getConnection()) {
+            if (!conexion.isValid(1)) {
+                throw new SQLException("La conexión no es válida");
+            }
+            if (!replicaDisponible) {
+                log.info("Réplica de lectura disponible de nuevo");
+                replicaDisponible = true;
+            }
+        } catch (SQLException ex) {
+            marcarCaida(ex);
+        }
+    }
+
+    public boolean isReplicaDisponible() {
+        return replicaDisponible;
+    }
+
+    private void marcarCaida(SQLException ex) {
+        fallosReplica.increment();
+        if (replicaDisponible) {
+            replicaDisponible = false;
+            log.warn("Réplica de lectura no disponible, lecturas al primario: {}", ex.getMessage());
+        }
+    }
+
+    private static Counter contador(MeterRegistry registry, String destino) {
+        return Counter.builder("usuarios.datasource.conexiones")
+                .description("Conexiones entregadas por destino")
+                .tag("destino", destino)
+                .register(registry);
+    }
+}
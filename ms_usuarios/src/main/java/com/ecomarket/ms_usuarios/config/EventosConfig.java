@@ -0,0 +1,32 @@
+package com.ecomarket.ms_usuarios.config;
+
+import com.ecomarket.ms_usuarios.service.PublicadorEventos;
+import com.ecomarket.ms_usuarios.service.PublicadorEventosArchivo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class EventosConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(EventosConfig.class);
+
+    // Publicador por defecto: NDJSON en usuarios.eventos.archivo si está configurado o, si no, el log,
+    // para que la outbox no crezca sin consumidor. Otro publicador (p. ej. el de un broker) lo sustituye
+    // declarándose @Primary.
+    @Bean
+    public PublicadorEventos publicadorEventos(@Value("${usuarios.eventos.archivo:}") String archivo,
+                                               ObjectMapper objectMapper) {
+        if (!archivo.isBlank()) {
+            log.info("Eventos de usuario: publicador de archivo en {}", archivo);
+            return new PublicadorEventosArchivo(Path.of(archivo), objectMapper);
+        }
+        return eventos -> eventos.forEach(evento ->
+                log.debug("Evento {} del usuario {} ({})", evento.tipo(), evento.usuarioId(), evento.id()));
+    }
+}
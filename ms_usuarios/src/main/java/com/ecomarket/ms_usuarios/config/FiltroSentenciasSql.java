@@ -0,0 +1,52 @@
+package com.ecomarket.ms_usuarios.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Sentencias SQL por petición: métrica usuarios.sql.sentencias por método de controlador y,
+// con usuarios.sql.cabecera-debug=true, la cabecera X-Sql-Statements en la respuesta.
+// Las respuestas con cuerpo ya están enviadas al volver de la cadena; a esas les pone la cabecera
+// CabeceraSentenciasSql justo antes de escribir el cuerpo.
+@Component
+public class FiltroSentenciasSql extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-Sql-Statements";
+    public static final String METRICA = "usuarios.sql.sentencias";
+
+    private final ObjectProvider<MeterRegistry> registro;
+    private final boolean cabecera;
+
+    public FiltroSentenciasSql(ObjectProvider<MeterRegistry> registro,
+                               @Value("${usuarios.sql.cabecera-debug:false}") boolean cabecera) {
+        this.registro = registro;
+        this.cabecera = cabecera;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (ContadorSentencias.Contador contador = ContadorSentencias.iniciar()) {
+            chain.doFilter(request, response);
+
+            if (cabecera && !response.isCommitted()) {
+                response.setHeader(CABECERA, Integer.toString(contador.getTotal()));
+            }
+            registro.ifAvailable(meterRegistry -> DistributionSummary.builder(METRICA)
+                    .baseUnit("sentencias")
+                    .tag(MetricasConfig.ETIQUETA_CONTROLADOR, MetricasConfig.controlador(request))
+                    .serviceLevelObjectives(1, 2, 3, 5, 10, 25)
+                    .register(meterRegistry)
+                    .record(contador.getTotal()));
+        }
+    }
+}
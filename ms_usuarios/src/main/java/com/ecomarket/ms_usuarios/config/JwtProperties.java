@@ -0,0 +1,48 @@
+package com.ecomarket.ms_usuarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+
+// Juego de claves HMAC (kid -> secreto en Base64, mínimo 256 bits). Se firma con la clave activa
+// y se aceptan todas las del juego, lo que permite rotar sin invalidar los tokens emitidos.
+// No hay claves por defecto: sin la clave activa (o con una clave corta) el arranque falla en lugar de
+// firmar con un secreto conocido. En producción llegan por entorno, p. ej. USUARIOS_JWT_CLAVES_K1.
+@ConfigurationProperties("usuarios.jwt")
+public record JwtProperties(
+        @DefaultValue("ms_usuarios") String emisor,
+        @DefaultValue("2h") Duration duracion,
+        String claveActiva,
+        Map<String, String> claves,
+        @DefaultValue("10000") long cacheMaximo,
+        @DefaultValue("5m") Duration cacheTtl
+) {
+
+    private static final int MINIMO_BYTES = 32;
+
+    public JwtProperties {
+        if (claveActiva == null || claveActiva.isBlank()) {
+            throw new IllegalStateException("Falta usuarios.jwt.clave-activa");
+        }
+        if (claves == null || !claves.containsKey(claveActiva)) {
+            throw new IllegalStateException("No hay clave JWT configurada para la clave activa " + claveActiva
+                    + " (usuarios.jwt.claves." + claveActiva + ")");
+        }
+        claves.forEach((kid, valor) -> {
+            if (valor == null || Base64.getDecoder().decode(valor).length < MINIMO_BYTES) {
+                throw new IllegalStateException("La clave JWT " + kid + " debe tener al menos 256 bits");
+            }
+        });
+    }
+
+    public byte[] secreto(String kid) {
+        String valor = claves == null ? null : claves.get(kid);
+        if (valor == null) {
+            throw new IllegalStateException("No hay clave JWT configurada con kid " + kid);
+        }
+        return Base64.getDecoder().decode(valor);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecomarket.ms_usuarios.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+@Configuration
+public class MetricasConfig {
+
+    public static final String ETIQUETA_CONTROLADOR = "controlador";
+
+    // http.server.requests con una etiqueta por método de controlador (p. ej. AuthController.login):
+    // los percentiles de application.properties quedan así separados por endpoint y versión.
+    @Bean
+    public ServerRequestObservationConvention convencionPeticiones() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(controlador(context));
+            }
+        };
+    }
+
+    static KeyValue controlador(ServerRequestObservationContext context) {
+        return KeyValue.of(ETIQUETA_CONTROLADOR, controlador(context.getCarrier()));
+    }
+
+    static String controlador(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod metodo) {
+            return metodo.getBeanType().getSimpleName() + "." + metodo.getMethod().getName();
+        }
+        return "none";
+    }
+}
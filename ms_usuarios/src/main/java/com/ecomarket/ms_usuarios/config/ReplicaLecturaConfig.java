@@ -0,0 +1,97 @@
+package com.ecomarket.ms_usuarios.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Réplica de lectura: solo se activa con usuarios.datasource.replica.url. Sin ella la aplicación usa el
+// único DataSource que configura Spring Boot con spring.datasource.*.
+@Configuration
+@ConditionalOnProperty(name = "usuarios.datasource.replica.url")
+public class ReplicaLecturaConfig {
+
+    // El primario con la misma configuración que tendría sin réplica (spring.datasource.* y .hikari.*)
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties propiedades) {
+        HikariDataSource primaria = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setPoolName("primaria");
+        return primaria;
+    }
+
+    // Credenciales del primario salvo que se indiquen otras. Conexiones en solo lectura (MySQL rechaza
+    // cualquier escritura que se cuele) y espera corta: si la réplica no responde se lee del primario.
+    // Arranca aunque la réplica esté caída.
+    @Bean
+    public HikariDataSource dataSourceReplica(DataSourceProperties propiedades,
+                                              @Value("${usuarios.datasource.replica.url}") String url,
+                                              @Value("${usuarios.datasource.replica.username:${spring.datasource.username:}}") String usuario,
+                                              @Value("${usuarios.datasource.replica.password:${spring.datasource.password:}}") String contrasena,
+                                              @Value("${usuarios.datasource.replica.maximo-conexiones:10}") int maximoConexiones,
+                                              @Value("${usuarios.datasource.replica.espera-conexion:1s}") Duration esperaConexion) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(url);
+        replica.setUsername(usuario);
+        replica.setPassword(contrasena);
+        replica.setDriverClassName(propiedades.determineDriverClassName());
+        replica.setReadOnly(true);
+        replica.setMaximumPoolSize(maximoConexiones);
+        replica.setConnectionTimeout(esperaConexion.toMillis());
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+
+    @Bean
+    public DataSourceEnrutado dataSourceEnrutado(HikariDataSource dataSourcePrimaria, HikariDataSource dataSourceReplica,
+                                                 MeterRegistry registry) {
+        return new DataSourceEnrutado(dataSourcePrimaria, dataSourceReplica, registry);
+    }
+
+    // El que usan JPA y el resto de la aplicación
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceEnrutado dataSourceEnrutado) {
+        return new LazyConnectionDataSourceProxy(dataSourceEnrutado);
+    }
+
+    // Spring configura Hibernate para conservar la conexión hasta cerrar la sesión; con open-in-view
+    // la primera transacción de la petición decidiría el destino de todas las demás. Se libera al
+    // terminar cada transacción para que cada una se enrute por separado.
+    @Bean
+    public HibernatePropertiesCustomizer conexionPorTransaccion() {
+        return propiedades -> propiedades.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    // La lectura de lo propio dura una petición: el hilo no arrastra la marca a la siguiente
+    @Bean
+    public FilterRegistrationBean<Filter> filtroSesionLecturas() {
+        Filter filtro = (peticion, respuesta, cadena) -> {
+            try {
+                cadena.doFilter(peticion, respuesta);
+            } finally {
+                DataSourceEnrutado.reiniciarSesion();
+            }
+        };
+        FilterRegistrationBean<Filter> registro = new FilterRegistrationBean<>(filtro);
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+}
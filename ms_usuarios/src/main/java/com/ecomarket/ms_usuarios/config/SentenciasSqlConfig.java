@@ -0,0 +1,16 @@
+package com.ecomarket.ms_usuarios.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SentenciasSqlConfig {
+
+    // Una única instancia para toda la SessionFactory: el estado vive en el ThreadLocal del contador
+    @Bean
+    public HibernatePropertiesCustomizer inspectorSentencias() {
+        return propiedades -> propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorSentencias());
+    }
+}
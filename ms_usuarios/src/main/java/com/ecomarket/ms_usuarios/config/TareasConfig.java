@@ -0,0 +1,10 @@
+package com.ecomarket.ms_usuarios.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas periódicas (@Scheduled) en el planificador de Spring Boot (spring.task.scheduling.*)
+@Configuration
+@EnableScheduling
+public class TareasConfig {
+}
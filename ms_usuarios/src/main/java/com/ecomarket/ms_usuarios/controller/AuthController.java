@@ -1,6 +1,9 @@
 package com.ecomarket.ms_usuarios.controller;
 
 import com.ecomarket.ms_usuarios.service.AuthService;
+import com.ecomarket.ms_usuarios.service.LimitadorLogin;
+import com.ecomarket.ms_usuarios.service.VerificadorTokens;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,13 +14,20 @@ import java.util.Map;
 public class AuthController {
 
     private final AuthService service;
+    private final VerificadorTokens verificadorTokens;
+    private final LimitadorLogin limitador;
+    private final IpCliente ipCliente;
 
-    public AuthController(AuthService service) {
+    public AuthController(AuthService service, VerificadorTokens verificadorTokens, LimitadorLogin limitador,
+                          IpCliente ipCliente) {
         this.service = service;
+        this.verificadorTokens = verificadorTokens;
+        this.limitador = limitador;
+        this.ipCliente = ipCliente;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> credentials) {
+    public ResponseEntity<?> login(@RequestBody Map<String, String> credentials, HttpServletRequest peticion) {
         String email = credentials.getOrDefault("email", "").trim();
         String contraseña = credentials.getOrDefault("contraseña", "").trim();
 
@@ -25,6 +35,20 @@ public class AuthController {
             return ResponseEntity.badRequest().body(Map.of("error", "El email y la contraseña son obligatorios"));
         }
 
+        // Cuota por IP (la del socket, o la que anotan los proxies de confianza) y por email: 429 antes de ir a la base de datos
+        limitador.comprobar(email, ipCliente.de(peticion));
         return ResponseEntity.ok(service.login(email, contraseña));
     }
+
+    // Validación para los demás servicios: firma y vigencia se comprueban en local, sin consultar la base de datos
+    @PostMapping("/token/validate")
+    public ResponseEntity<?> validarToken(@RequestBody Map<String, String> cuerpo) {
+        String token = cuerpo.getOrDefault("token", "").trim();
+
+        if (token.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El token es obligatorio"));
+        }
+
+        return ResponseEntity.ok(verificadorTokens.verificar(token));
+    }
 }
@@ -0,0 +1,59 @@
+package com.ecomarket.ms_usuarios.controller;
+
+import com.ecomarket.ms_usuarios.dto.Cambios;
+import com.ecomarket.ms_usuarios.service.FeedCambios;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+// Feed incremental para sincronizar copias de los usuarios en otros servicios: el coste depende de los
+// cambios pendientes y no del tamaño de la tabla. Sin since devuelve la posición actual, desde la que
+// seguir tras una carga completa con GET /api/v2/usuarios; un since anterior a la retención responde 410.
+@RestController
+@Validated
+@RequestMapping("/api/v2/usuarios/changes")
+public class CambiosUsuarioController {
+
+    public static final int ESPERA_MAXIMA_SEGUNDOS = 60;
+
+    private final FeedCambios feed;
+
+    public CambiosUsuarioController(FeedCambios feed) {
+        this.feed = feed;
+    }
+
+    @Operation(summary = "Cambios de usuarios posteriores a since; con wait > 0 espera a que haya alguno (long-poll)")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<Cambios> cambios(
+            @RequestParam(required = false) @Min(0) Long since,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(FeedCambios.LIMITE_MAXIMO) int limit,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(ESPERA_MAXIMA_SEGUNDOS) int wait) {
+        if (since == null) {
+            DeferredResult<Cambios> posicion = new DeferredResult<>();
+            posicion.setResult(feed.leer(null, limit));
+            return posicion;
+        }
+        return feed.esperar(since, limit, Duration.ofSeconds(wait));
+    }
+
+    @Operation(summary = "Cambios de usuarios posteriores a since como Server-Sent Events (reanuda con Last-Event-ID)")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribir(
+            @RequestParam(required = false) @Min(0) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long ultimoEvento) {
+        // Al reconectar, el último evento recibido manda sobre el since de la URL original
+        long desde = ultimoEvento != null ? ultimoEvento : since != null ? since : feed.leer(null, 1).siguiente();
+        return feed.suscribir(desde);
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecomarket.ms_usuarios.controller;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+// ETags fuertes a partir de la columna @Version de Usuario: "<version>"
+final class Etags {
+
+    private Etags() {
+    }
+
+    static String de(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Versión exigida por If-Match; null si no hay condición o es "*" (basta con que exista).
+    // Una ETag débil o que no sale de una versión nunca coincide con la actual: 412.
+    static Long versionEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            try {
+                return Long.parseLong(etag.substring(1, etag.length() - 1));
+            } catch (NumberFormatException ignorada) {
+                // cae al 412
+            }
+        }
+        throw new OptimisticLockingFailureException("If-Match no corresponde a ninguna versión del usuario: " + etag);
+    }
+}
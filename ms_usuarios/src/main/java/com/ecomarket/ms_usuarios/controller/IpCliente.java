@@ -0,0 +1,59 @@
+package com.ecomarket.ms_usuarios.controller;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// IP del cliente para la cuota de login. No sirve getRemoteAddr() tal cual: con
+// server.forward-headers-strategy=framework, ForwardedHeaderFilter lo toma de X-Forwarded-For, que el
+// cliente puede cambiar en cada petición para estrenar cuota. Se parte de la dirección del socket y
+// X-Forwarded-For solo se sigue a través de proxies de confianza, de derecha a izquierda, como hace
+// RemoteIpValve de Tomcat: la primera dirección que no es de un proxy de confianza es el cliente.
+@Component
+class IpCliente {
+
+    private final Pattern proxiesConfianza;
+
+    IpCliente(@Value("${usuarios.login.proxies-confianza:}") String proxiesConfianza) {
+        this.proxiesConfianza = proxiesConfianza.isBlank() ? null : Pattern.compile(proxiesConfianza);
+    }
+
+    String de(HttpServletRequest peticion) {
+        // La petición original, sin los envoltorios que reescriben la dirección remota
+        ServletRequest original = peticion;
+        while (original instanceof ServletRequestWrapper envoltorio) {
+            original = envoltorio.getRequest();
+        }
+        String ip = original.getRemoteAddr();
+        if (!deConfianza(ip) || !(original instanceof HttpServletRequest http)) {
+            return ip;
+        }
+
+        List<String> saltos = new ArrayList<>();
+        for (String cabecera : Collections.list(http.getHeaders("X-Forwarded-For"))) {
+            for (String salto : cabecera.split(",")) {
+                if (!salto.isBlank()) {
+                    saltos.add(salto.trim());
+                }
+            }
+        }
+        for (int i = saltos.size() - 1; i >= 0; i--) {
+            ip = saltos.get(i);
+            if (!deConfianza(ip)) {
+                return ip;
+            }
+        }
+        return ip;
+    }
+
+    private boolean deConfianza(String ip) {
+        return proxiesConfianza != null && ip != null && proxiesConfianza.matcher(ip).matches();
+    }
+}
@@ -1,32 +1,99 @@
 package com.ecomarket.ms_usuarios.controller;
 
+import com.ecomarket.ms_usuarios.dto.Pagina;
+import com.ecomarket.ms_usuarios.dto.ResultadoLote;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
 import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import com.ecomarket.ms_usuarios.service.UsuarioLoteService;
 import com.ecomarket.ms_usuarios.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
+@Validated
 @RequestMapping("/api/usuarios")
 public class UsuarioController {
 
+    public static final String CABECERA_CURSOR = "X-Next-Cursor";
+    public static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
     private final UsuarioService service;
+    private final UsuarioLoteService loteService;
+    private final ObjectWriter writerExportacion;
 
-    public UsuarioController(UsuarioService service) {
+    public UsuarioController(UsuarioService service, UsuarioLoteService loteService, ObjectMapper objectMapper) {
         this.service = service;
+        this.loteService = loteService;
+        this.writerExportacion = objectMapper.writerFor(UsuarioResumen.class);
     }
 
+    // El cuerpo sigue siendo un arreglo; la página siguiente viaja en las cabeceras
     @GetMapping
-    public ResponseEntity<List<Usuario>> obtenerTodos() {
-        return ResponseEntity.ok(service.listarUsuarios());
+    public ResponseEntity<List<UsuarioResumen>> obtenerTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(UsuarioService.LIMITE_MAXIMO) int limit
+    ) {
+        Pagina<UsuarioResumen> pagina = service.listarUsuarios(cursor, limit);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.tieneSiguiente()) {
+            String siguiente = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", pagina.siguiente())
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            respuesta.header(CABECERA_CURSOR, pagina.siguiente())
+                    .header(HttpHeaders.LINK, Link.of(siguiente, IanaLinkRelations.NEXT).toString());
+        }
+        return respuesta.body(pagina.contenido());
+    }
+
+    // Exportación completa en NDJSON: una línea por usuario, escrita a medida que se lee
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody cuerpo = salida -> {
+            int[] escritos = {0};
+            service.exportarUsuarios(usuario -> {
+                try {
+                    salida.write(writerExportacion.writeValueAsBytes(usuario));
+                    salida.write('\n');
+                    // El primer registro se envía de inmediato; luego, uno por bloque de fetch
+                    if (++escritos[0] % UsuarioRepository.TAMANO_FETCH_EXPORTACION == 1) {
+                        salida.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            salida.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Usuario> obtenerPorId(@PathVariable UUID id) {
-        return service.obtenerUsuarioPorId(id)
+    public ResponseEntity<UsuarioResumen> obtenerPorId(@PathVariable UUID id) {
+        return service.obtenerResumenPorId(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -36,30 +103,48 @@ public class UsuarioController {
         return ResponseEntity.ok(service.guardarUsuario(usuario));
     }
 
+    // Cada usuario se valida por separado; la respuesta indica el resultado de cada uno
+    @PostMapping("/batch")
+    public ResponseEntity<ResultadoLote> crearLote(
+            @RequestBody @NotEmpty @Size(max = UsuarioLoteService.MAXIMO_POR_LOTE) List<Usuario> usuarios
+    ) {
+        return ResponseEntity.ok(loteService.crearUsuarios(usuarios));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Usuario> actualizarUsuario(
             @PathVariable UUID id,
             @Valid @RequestBody Usuario usuario
     ) {
-        return service.obtenerUsuarioPorId(id)
-                .map(usuarioExistente -> {
-                    usuarioExistente.setNombre(usuario.getNombre());
-                    usuarioExistente.setEmail(usuario.getEmail());
-                    usuarioExistente.setContraseña(usuario.getContraseña()); // <- CAMBIO AQUÍ
-                    usuarioExistente.setDireccion(usuario.getDireccion());
-                    usuarioExistente.setTelefono(usuario.getTelefono());
-                    usuarioExistente.setRol(usuario.getRol());
-                    return ResponseEntity.ok(service.guardarUsuario(usuarioExistente));
-                })
+        return service.actualizarUsuario(id, usuario)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // JSON Merge Patch: solo se validan y actualizan los campos enviados
+    @PatchMapping(value = "/{id}", consumes = {UsuarioController.MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Usuario> actualizarParcial(
+            @PathVariable UUID id,
+            @RequestBody Map<String, Object> parche
+    ) {
+        return service.actualizarParcial(id, parche)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarUsuario(@PathVariable UUID id) {
-        if (!service.obtenerUsuarioPorId(id).isPresent()) {
+        if (!service.eliminarUsuario(id)) {
             return ResponseEntity.notFound().build();
         }
-        service.eliminarUsuario(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Borrado masivo de una lista de ids; responde cuántos existían
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> eliminarUsuarios(
+            @RequestBody @NotEmpty @Size(max = UsuarioService.MAXIMO_BORRADO) List<UUID> ids
+    ) {
+        return ResponseEntity.ok(Map.of("eliminados", service.eliminarUsuarios(ids)));
+    }
 }
@@ -1,46 +1,117 @@
 package com.ecomarket.ms_usuarios.controller;
 
 import com.ecomarket.ms_usuarios.assemblers.UsuarioModelAssembler;
+import com.ecomarket.ms_usuarios.dto.FiltroUsuarios;
+import com.ecomarket.ms_usuarios.dto.Pagina;
+import com.ecomarket.ms_usuarios.dto.ResultadoLote;
+import com.ecomarket.ms_usuarios.dto.Sugerencia;
 import com.ecomarket.ms_usuarios.dto.UsuarioModel;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Rol;
 import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.service.SugerenciasUsuarios;
+import com.ecomarket.ms_usuarios.service.UsuarioLoteService;
 import com.ecomarket.ms_usuarios.service.UsuarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @RestController
+@Validated
 @RequestMapping("/api/v2/usuarios")
 public class UsuarioControllerV2 {
 
     private final UsuarioService service;
+    private final UsuarioLoteService loteService;
     private final UsuarioModelAssembler assembler;
 
-    public UsuarioControllerV2(UsuarioService service, UsuarioModelAssembler assembler) {
+    public UsuarioControllerV2(UsuarioService service, UsuarioLoteService loteService, UsuarioModelAssembler assembler) {
         this.service = service;
+        this.loteService = loteService;
         this.assembler = assembler;
     }
 
-    @Operation(summary = "Obtiene todos los usuarios")
+    @Operation(summary = "Obtiene los usuarios paginados por cursor")
     @GetMapping
-    public ResponseEntity<CollectionModel<UsuarioModel>> obtenerTodos() {
-        List<Usuario> usuarios = service.listarUsuarios();
-        List<UsuarioModel> modelos = usuarios.stream().map(assembler::toModel).toList();
-        return ResponseEntity.ok(CollectionModel.of(modelos,
-                linkTo(methodOn(UsuarioControllerV2.class).obtenerTodos()).withSelfRel()));
+    public ResponseEntity<CollectionModel<UsuarioModel>> obtenerTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(UsuarioService.LIMITE_MAXIMO) int limit) {
+        Pagina<UsuarioResumen> pagina = service.listarUsuarios(cursor, limit);
+        return ResponseEntity.ok(coleccion(pagina, linkTo(UsuarioControllerV2.class).toUriComponentsBuilder(), cursor, limit));
+    }
+
+    @Operation(summary = "Busca usuarios por rol, prefijo de nombre y dominio de email, paginados por cursor")
+    @GetMapping("/search")
+    public ResponseEntity<CollectionModel<UsuarioModel>> buscar(
+            @RequestParam(required = false) Rol rol,
+            @RequestParam(required = false) @Size(max = 100) String nombre,
+            @RequestParam(required = false) @Size(max = 255) String dominio,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(UsuarioService.LIMITE_MAXIMO) int limit) {
+        FiltroUsuarios filtro = new FiltroUsuarios(rol, nombre, dominio);
+        Pagina<UsuarioResumen> pagina = service.buscarUsuarios(filtro, cursor, limit);
+
+        // Los enlaces conservan los filtros para que "next" siga la misma búsqueda
+        UriComponentsBuilder base = linkTo(UsuarioControllerV2.class).slash("search").toUriComponentsBuilder();
+        if (filtro.rol() != null) {
+            base.queryParam("rol", filtro.rol());
+        }
+        if (filtro.nombre() != null) {
+            base.queryParam("nombre", filtro.nombre());
+        }
+        if (filtro.dominio() != null) {
+            base.queryParam("dominio", filtro.dominio());
+        }
+        return ResponseEntity.ok(coleccion(pagina, base, cursor, limit));
+    }
+
+    @Operation(summary = "Sugiere usuarios cuyo nombre o email contiene el texto (búsqueda mientras se escribe)")
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<Sugerencia>> sugerencias(
+            @RequestParam @NotBlank @Size(max = 100) String q,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(SugerenciasUsuarios.MAXIMO_SUGERENCIAS) int limit) {
+        return ResponseEntity.ok(service.sugerirUsuarios(q, limit));
     }
 
     @Operation(summary = "Obtiene un usuario por ID")
     @GetMapping("/{id}")
-    public ResponseEntity<UsuarioModel> obtenerPorId(@PathVariable UUID id) {
-        return service.obtenerUsuarioPorId(id)
-                .map(usuario -> ResponseEntity.ok(assembler.toModel(usuario)))
+    public ResponseEntity<UsuarioModel> obtenerPorId(@PathVariable UUID id, WebRequest peticion) {
+        // Con If-None-Match basta la versión: el 304 no lee la fila completa ni serializa el cuerpo
+        if (peticion.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<Long> version = service.obtenerVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (peticion.checkNotModified(Etags.de(version.get()))) {
+                // checkNotModified ya dejó el 304 y la ETag en la respuesta
+                return null;
+            }
+        }
+        return service.obtenerResumenPorId(id)
+                .map(usuario -> ResponseEntity.ok().eTag(Etags.de(usuario.version())).body(assembler.toModel(usuario)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -48,35 +119,75 @@ public class UsuarioControllerV2 {
     @PostMapping
     public ResponseEntity<UsuarioModel> crearUsuario(@Valid @RequestBody Usuario usuario) {
         Usuario nuevo = service.guardarUsuario(usuario);
-        return ResponseEntity.ok(assembler.toModel(nuevo));
+        return ResponseEntity.ok(assembler.toModel(UsuarioResumen.de(nuevo)));
+    }
+
+    @Operation(summary = "Crea varios usuarios en una sola petición")
+    @PostMapping("/batch")
+    public ResponseEntity<EntityModel<ResultadoLote>> crearLote(
+            @RequestBody @NotEmpty @Size(max = UsuarioLoteService.MAXIMO_POR_LOTE) List<Usuario> usuarios) {
+        ResultadoLote resultado = loteService.crearUsuarios(usuarios);
+        return ResponseEntity.ok(EntityModel.of(resultado, linkTo(UsuarioControllerV2.class).withRel("usuarios")));
     }
 
     @Operation(summary = "Actualiza un usuario existente")
     @PutMapping("/{id}")
     public ResponseEntity<UsuarioModel> actualizarUsuario(@PathVariable UUID id,
-                                                          @Valid @RequestBody Usuario usuario) {
-        return service.obtenerUsuarioPorId(id)
-                .map(usuarioExistente -> {
-                    usuarioExistente.setNombre(usuario.getNombre());
-                    usuarioExistente.setEmail(usuario.getEmail());
-                    usuarioExistente.setContraseña(usuario.getContraseña());
-                    usuarioExistente.setDireccion(usuario.getDireccion());
-                    usuarioExistente.setTelefono(usuario.getTelefono());
-                    usuarioExistente.setRol(usuario.getRol());
-                    Usuario actualizado = service.guardarUsuario(usuarioExistente);
-                    return ResponseEntity.ok(assembler.toModel(actualizado));
-                })
+                                                          @Valid @RequestBody Usuario usuario,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return service.actualizarUsuario(id, usuario, Etags.versionEsperada(ifMatch))
+                .map(actualizado -> conEtag(actualizado.getVersion()).body(assembler.toModel(UsuarioResumen.de(actualizado))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Actualiza solo los campos enviados (JSON Merge Patch)")
+    @PatchMapping(value = "/{id}", consumes = {UsuarioController.MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<UsuarioModel> actualizarParcial(@PathVariable UUID id,
+                                                          @RequestBody Map<String, Object> parche,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return service.actualizarParcial(id, parche, Etags.versionEsperada(ifMatch))
+                .map(usuario -> conEtag(usuario.getVersion()).body(assembler.toModel(UsuarioResumen.de(usuario))))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @Operation(summary = "Elimina un usuario por ID")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarUsuario(@PathVariable UUID id) {
-    if (service.obtenerUsuarioPorId(id).isPresent()) {
-        service.eliminarUsuario(id);
-        return ResponseEntity.noContent().build();
-    } else {
-        return ResponseEntity.notFound().build();
+        return service.eliminarUsuario(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @Operation(summary = "Elimina varios usuarios por ID")
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> eliminarUsuarios(
+            @RequestBody @NotEmpty @Size(max = UsuarioService.MAXIMO_BORRADO) List<UUID> ids) {
+        return ResponseEntity.ok(Map.of("eliminados", service.eliminarUsuarios(ids)));
+    }
+
+    // Un PUT sin If-Match no conoce la versión resultante y responde sin ETag
+    private static ResponseEntity.BodyBuilder conEtag(Long version) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        return version == null ? respuesta : respuesta.eTag(Etags.de(version));
+    }
+
+    private CollectionModel<UsuarioModel> coleccion(Pagina<UsuarioResumen> pagina, UriComponentsBuilder base,
+                                                    String cursor, int limit) {
+        List<UsuarioModel> modelos = pagina.contenido().stream().map(assembler::toModel).toList();
+        CollectionModel<UsuarioModel> coleccion = CollectionModel.of(modelos,
+                enlacePagina(base.cloneBuilder(), cursor, limit, IanaLinkRelations.SELF));
+        if (pagina.tieneSiguiente()) {
+            coleccion.add(enlacePagina(base.cloneBuilder(), pagina.siguiente(), limit, IanaLinkRelations.NEXT));
+        }
+        return coleccion;
+    }
+
+    // Se arma a mano para no dejar plantillas {?cursor} cuando el cursor es null
+    private static Link enlacePagina(UriComponentsBuilder uri, String cursor, int limit, LinkRelation relacion) {
+        uri.queryParam("limit", limit);
+        if (cursor != null) {
+            uri.queryParam("cursor", cursor);
+        }
+        return Link.of(uri.toUriString(), relacion);
     }
-}
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import com.ecomarket.ms_usuarios.model.CambioUsuario;
+import com.ecomarket.ms_usuarios.model.TipoEvento;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Entrada del feed de cambios: "secuencia" es el cursor para pedir los siguientes y "datos" la vista
+// pública del usuario tras el cambio (null en ELIMINADO)
+public record Cambio(long secuencia, UUID eventoId, UUID usuarioId, TipoEvento tipo, Instant fecha,
+                     @JsonRawValue String datos) {
+
+    public static Cambio de(CambioUsuario cambio) {
+        return new Cambio(cambio.getSecuencia(), cambio.getEventoId(), cambio.getUsuarioId(), cambio.getTipo(),
+                cambio.getFecha(), cambio.getDatos());
+    }
+}
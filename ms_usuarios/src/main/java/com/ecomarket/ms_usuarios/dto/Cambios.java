@@ -0,0 +1,12 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import java.util.List;
+
+// Respuesta del feed de cambios. "siguiente" es el since de la próxima petición: la secuencia del último
+// cambio devuelto o, si no hay ninguno, el mismo since recibido.
+public record Cambios(List<Cambio> cambios, long siguiente) {
+
+    public static Cambios desde(List<Cambio> cambios, long since) {
+        return new Cambios(cambios, cambios.isEmpty() ? since : cambios.get(cambios.size() - 1).secuencia());
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import com.ecomarket.ms_usuarios.model.EventoOutbox;
+import com.ecomarket.ms_usuarios.model.TipoEvento;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Evento publicado a otros servicios. El id permite descartar duplicados (la entrega es al menos una vez)
+// y "datos" es la vista pública del usuario tal como quedó (null en ELIMINADO).
+public record EventoUsuario(UUID id, UUID usuarioId, TipoEvento tipo, Instant fecha, @JsonRawValue String datos) {
+
+    public static EventoUsuario de(EventoOutbox evento) {
+        return new EventoUsuario(evento.getId(), evento.getUsuarioId(), evento.getTipo(), evento.getFecha(), evento.getDatos());
+    }
+}
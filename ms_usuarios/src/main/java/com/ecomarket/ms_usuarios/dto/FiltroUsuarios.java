@@ -0,0 +1,16 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+
+// Filtros de la búsqueda de usuarios; los textos en blanco cuentan como ausentes
+public record FiltroUsuarios(Rol rol, String nombre, String dominio) {
+
+    public FiltroUsuarios {
+        nombre = (nombre == null || nombre.isBlank()) ? null : nombre;
+        dominio = (dominio == null || dominio.isBlank()) ? null : dominio.trim();
+    }
+
+    public boolean vacio() {
+        return rol == null && nombre == null && dominio == null;
+    }
+}
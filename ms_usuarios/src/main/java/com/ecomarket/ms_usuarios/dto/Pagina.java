@@ -0,0 +1,12 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import java.util.List;
+
+// Página de resultados con paginación por cursor (keyset).
+// "siguiente" es null cuando no quedan más elementos.
+public record Pagina<T>(List<T> contenido, String siguiente) {
+
+    public boolean tieneSiguiente() {
+        return siguiente != null;
+    }
+}
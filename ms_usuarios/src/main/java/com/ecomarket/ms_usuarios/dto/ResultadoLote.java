@@ -0,0 +1,21 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// Resultado de un alta masiva: un elemento por usuario recibido, en el mismo orden
+public record ResultadoLote(int creados, int rechazados, List<Item> resultados) {
+
+    public enum Estado { CREADO, ERROR }
+
+    public record Item(int indice, String email, Estado estado, UUID id, List<String> errores) {
+
+        public static Item creado(int indice, String email, UUID id) {
+            return new Item(indice, email, Estado.CREADO, id, List.of());
+        }
+
+        public static Item error(int indice, String email, List<String> errores) {
+            return new Item(indice, email, Estado.ERROR, null, errores);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import java.util.UUID;
+
+// Resultado de la búsqueda "mientras se escribe": lo justo para mostrar y abrir el usuario
+public record Sugerencia(UUID id, String nombre, String email) {
+}
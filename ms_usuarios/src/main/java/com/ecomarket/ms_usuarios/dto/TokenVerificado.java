@@ -0,0 +1,10 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Claims de un token ya verificado; es lo que consumen los demás servicios
+public record TokenVerificado(UUID id, String email, Rol rol, Instant expiracion) {
+}
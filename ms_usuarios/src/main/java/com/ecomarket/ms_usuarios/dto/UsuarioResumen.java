@@ -0,0 +1,24 @@
+package com.ecomarket.ms_usuarios.dto;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.UUID;
+
+// Vista pública de un usuario (sin contraseña). La versión no va en el cuerpo: viaja en la cabecera ETag
+public record UsuarioResumen(UUID id, String nombre, String email, String direccion, String telefono, Rol rol,
+                             @JsonIgnore Long version) {
+
+    public static UsuarioResumen de(Usuario usuario) {
+        return new UsuarioResumen(
+                usuario.getId(),
+                usuario.getNombre(),
+                usuario.getEmail(),
+                usuario.getDireccion(),
+                usuario.getTelefono(),
+                usuario.getRol(),
+                usuario.getVersion()
+        );
+    }
+}
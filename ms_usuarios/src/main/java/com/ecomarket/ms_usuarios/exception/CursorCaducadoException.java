@@ -0,0 +1,10 @@
+package com.ecomarket.ms_usuarios.exception;
+
+// Se traduce a 410: el since pedido es anterior a la retención del registro de cambios, faltan cambios
+// intermedios y el consumidor debe resincronizar con el listado completo
+public class CursorCaducadoException extends RuntimeException {
+
+    public CursorCaducadoException(String message) {
+        super(message);
+    }
+}
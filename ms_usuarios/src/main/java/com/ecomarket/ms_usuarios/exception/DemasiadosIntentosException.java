@@ -0,0 +1,16 @@
+package com.ecomarket.ms_usuarios.exception;
+
+// Se traduce a 429 con Retry-After: el cliente superó su cuota de intentos
+public class DemasiadosIntentosException extends RuntimeException {
+
+    private final long reintentarEnSegundos;
+
+    public DemasiadosIntentosException(String message, long reintentarEnSegundos) {
+        super(message);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
@@ -2,11 +2,15 @@ package com.ecomarket.ms_usuarios.exception;
 
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,9 +37,28 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    // Query param o path variable que no se puede convertir (p. ej. un rol que no existe)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return ResponseEntity.badRequest().body(new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Parámetro inválido",
+                "Valor no válido para '" + ex.getName() + "': " + ex.getValue()
+        ));
+    }
+
     // Violación de integridad desde la base de datos
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        // El índice único de email es la única comprobación de duplicados
+        if (ViolacionesIntegridad.esEmailDuplicado(ex)) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(),
+                    "Violación de integridad de datos",
+                    ViolacionesIntegridad.MENSAJE_EMAIL_DUPLICADO
+            ));
+        }
+
         // SOLUCIÓN: Almacenar el rootCause en una variable temporal para evitar múltiples llamadas y potencial NPE
         Throwable rootCause = ex.getRootCause();
         String errorMessage = (rootCause != null) ? rootCause.getMessage() : ex.getMessage();
@@ -57,6 +80,61 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    // If-Match con una versión que ya no es la actual, o conflicto de bloqueo optimista de JPA
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleVersionObsoleta(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(new ErrorResponse(
+                HttpStatus.PRECONDITION_FAILED.value(),
+                "Versión obsoleta",
+                "El usuario fue modificado por otra petición; vuelva a leerlo antes de actualizarlo"
+        ));
+    }
+
+    // Token con firma, emisor o vigencia no válidos
+    @ExceptionHandler(TokenInvalidoException.class)
+    public ResponseEntity<ErrorResponse> handleTokenInvalido(TokenInvalidoException ex) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ErrorResponse(
+                HttpStatus.UNAUTHORIZED.value(),
+                "Token inválido",
+                ex.getMessage()
+        ));
+    }
+
+    // Pool de hash de contraseñas saturado: rechazo inmediato en lugar de bloquear el hilo
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<ErrorResponse> handleServicioSaturado(ServicioSaturadoException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ServicioSaturadoException.REINTENTAR_EN_SEGUNDOS))
+                .body(new ErrorResponse(
+                        HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "Servicio saturado",
+                        ex.getMessage()
+                ));
+    }
+
+    // Cuota de intentos agotada (login): Retry-After indica cuándo habrá un intento disponible
+    @ExceptionHandler(DemasiadosIntentosException.class)
+    public ResponseEntity<ErrorResponse> handleDemasiadosIntentos(DemasiadosIntentosException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getReintentarEnSegundos()))
+                .body(new ErrorResponse(
+                        HttpStatus.TOO_MANY_REQUESTS.value(),
+                        "Demasiados intentos",
+                        ex.getMessage()
+                ));
+    }
+
+    // Cursor del feed de cambios anterior a la retención: el consumidor debe resincronizar.
+    // JSON explícito: la petición SSE acepta solo text/event-stream y sin él no habría cuerpo posible.
+    @ExceptionHandler(CursorCaducadoException.class)
+    public ResponseEntity<ErrorResponse> handleCursorCaducado(CursorCaducadoException ex) {
+        return ResponseEntity.status(HttpStatus.GONE).contentType(MediaType.APPLICATION_JSON).body(new ErrorResponse(
+                HttpStatus.GONE.value(),
+                "Cursor caducado",
+                ex.getMessage()
+        ));
+    }
+
     // Fallback para errores inesperados
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneralError(Exception ex) {
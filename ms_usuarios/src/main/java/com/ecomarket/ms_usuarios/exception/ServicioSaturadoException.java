@@ -0,0 +1,11 @@
+package com.ecomarket.ms_usuarios.exception;
+
+// Se traduce a 503 con Retry-After: la petición puede reintentarse más tarde
+public class ServicioSaturadoException extends RuntimeException {
+
+    public static final int REINTENTAR_EN_SEGUNDOS = 1;
+
+    public ServicioSaturadoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecomarket.ms_usuarios.exception;
+
+// Token con firma, emisor o vigencia no válidos; se responde 401
+public class TokenInvalidoException extends RuntimeException {
+
+    public TokenInvalidoException(String message) {
+        super(message);
+    }
+
+    public TokenInvalidoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecomarket.ms_usuarios.exception;
+
+import com.ecomarket.ms_usuarios.model.Usuario;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+// Reconoce las violaciones de restricciones propias del esquema de usuarios
+public final class ViolacionesIntegridad {
+
+    public static final String MENSAJE_EMAIL_DUPLICADO = "Ya existe un usuario con ese correo";
+
+    private ViolacionesIntegridad() {
+    }
+
+    // MySQL informa "Duplicate entry ... for key 'usuario.uk_usuario_email'"; H2 usa el nombre en mayúsculas.
+    // También sin traducir a DataIntegrityViolationException, p. ej. en un flush del EntityManager.
+    public static boolean esEmailDuplicado(Throwable ex) {
+        for (Throwable causa = ex; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacion
+                    && contieneRestriccionEmail(violacion.getConstraintName())) {
+                return true;
+            }
+            if (contieneRestriccionEmail(causa.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Violación de una restricción del esquema (única, NOT NULL, longitud...), traducida por Spring o no
+    public static boolean esViolacion(Throwable ex) {
+        for (Throwable causa = ex; causa != null; causa = causa.getCause()) {
+            if (causa instanceof DataIntegrityViolationException || causa instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contieneRestriccionEmail(String texto) {
+        return texto != null && texto.toLowerCase(Locale.ROOT).contains(Usuario.RESTRICCION_EMAIL_UNICO);
+    }
+}
@@ -0,0 +1,53 @@
+package com.ecomarket.ms_usuarios.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Entrada del registro de cambios (feed incremental): los mismos eventos de la outbox, numerados con una
+// secuencia que crece en orden de confirmación. Las bajas quedan como lápidas (datos null) hasta que
+// la retención las purga.
+@Entity
+@Table(name = "usuario_cambio", indexes = @Index(name = "idx_usuario_cambio_fecha", columnList = "fecha"))
+@Getter
+@NoArgsConstructor
+public class CambioUsuario {
+
+    // Asignada por RegistroCambios, no por la base de datos: con IDENTITY el orden de los valores es el
+    // de los INSERT y no el de las confirmaciones, y un lector podría saltarse un cambio aún sin confirmar
+    @Id
+    private Long secuencia;
+
+    // Id del evento en la outbox, el mismo que reciben los publicadores
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "evento_id", length = 16, nullable = false)
+    private UUID eventoId;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "usuario_id", length = 16, nullable = false)
+    private UUID usuarioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoEvento tipo;
+
+    @Column(length = 2000)
+    private String datos;
+
+    @Column(nullable = false)
+    private Instant fecha;
+
+    public CambioUsuario(long secuencia, EventoOutbox evento) {
+        this.secuencia = secuencia;
+        this.eventoId = evento.getId();
+        this.usuarioId = evento.getUsuarioId();
+        this.tipo = evento.getTipo();
+        this.datos = evento.getDatos();
+        this.fecha = evento.getFecha();
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecomarket.ms_usuarios.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Fila única con la última secuencia asignada en el registro de cambios. RegistroCambios la bloquea para
+// numerar cada lote: bloquear la última entrada de usuario_cambio no sirve con la tabla vacía, donde no
+// hay fila que bloquear y dos relevos numerarían ambos desde 1.
+@Entity
+@Table(name = "usuario_cambio_contador")
+@Getter
+@NoArgsConstructor
+public class ContadorCambios {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Setter
+    @Column(nullable = false)
+    private long ultima;
+}
@@ -0,0 +1,48 @@
+package com.ecomarket.ms_usuarios.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Cambio de un usuario pendiente de publicar (patrón outbox): se inserta en la misma transacción que
+// el cambio, así que existe si y solo si el cambio se confirmó. RelevoEventos lo publica y lo borra.
+@Entity
+@Table(name = "usuario_outbox")
+@Getter
+@NoArgsConstructor
+public class EventoOutbox {
+
+    // v7: el orden de la PK es el orden de escritura y, sin IDENTITY, los INSERT van en lotes JDBC
+    @Id
+    @UuidV7
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID id;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "usuario_id", length = 16, nullable = false)
+    private UUID usuarioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoEvento tipo;
+
+    // Estado del usuario en JSON (sin contraseña); null en las bajas
+    @Column(length = 2000)
+    private String datos;
+
+    @Column(nullable = false)
+    private Instant fecha;
+
+    public EventoOutbox(UUID usuarioId, TipoEvento tipo, String datos, Instant fecha) {
+        this.usuarioId = usuarioId;
+        this.tipo = tipo;
+        this.datos = datos;
+        this.fecha = fecha;
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecomarket.ms_usuarios.model;
+
+public enum TipoEvento {
+    CREADO,
+    ACTUALIZADO,
+    ELIMINADO
+}
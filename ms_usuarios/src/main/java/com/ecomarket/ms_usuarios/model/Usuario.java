@@ -1,20 +1,41 @@
 package com.ecomarket.ms_usuarios.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Usuario.REGION_CACHE)
+@Table(uniqueConstraints = @UniqueConstraint(name = Usuario.RESTRICCION_EMAIL_UNICO, columnNames = "email"),
+        // Índices de la búsqueda filtrada; el id final sirve al orden de la paginación por cursor
+        indexes = {
+                @Index(name = "idx_usuario_rol_id", columnList = "rol, id"),
+                @Index(name = "idx_usuario_nombre_id", columnList = "nombre, id"),
+                @Index(name = "idx_usuario_email_dominio_id", columnList = "email_dominio, id")
+        })
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Usuario {
 
+    public static final String RESTRICCION_EMAIL_UNICO = "uk_usuario_email";
+    public static final String REGION_CACHE = "usuarios";
+
+    // Los ids v4 ya existentes siguen siendo válidos: la columna guarda los mismos 16 bytes
     @Id
-    @GeneratedValue
+    @UuidV7
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
     @NotBlank(message = "El nombre es obligatorio")
@@ -25,7 +46,14 @@ public class Usuario {
     @Email(message = "El email no es válido")
     private String email;
 
-    @JsonProperty("contrasena")
+    // Dominio del email en minúsculas, derivado de email: permite filtrar por dominio con un índice
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_dominio")
+    private String emailDominio;
+
+    // Solo se acepta en las peticiones; nunca se serializa en una respuesta
+    @JsonProperty(value = "contrasena", access = JsonProperty.Access.WRITE_ONLY)
     @Column(name = "contraseña")
     @NotBlank(message = "La contraseña es obligatoria")
     @Size(min = 8, message = "La contraseña debe tener mínimo 8 caracteres")
@@ -39,4 +67,39 @@ public class Usuario {
     @NotNull(message = "El rol es obligatorio")
     @Enumerated(EnumType.STRING)
     private Rol rol;
+
+    // Bloqueo optimista y ETag de la representación; el default cubre las filas anteriores a la columna
+    @Version
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    public Usuario(UUID id, String nombre, String email, String contraseña, String direccion, String telefono, Rol rol) {
+        this(id, nombre, email, contraseña, direccion, telefono, rol, null);
+    }
+
+    public Usuario(UUID id, String nombre, String email, String contraseña, String direccion, String telefono,
+                   Rol rol, Long version) {
+        this.id = id;
+        this.nombre = nombre;
+        setEmail(email);
+        this.contraseña = contraseña;
+        this.direccion = direccion;
+        this.telefono = telefono;
+        this.rol = rol;
+        this.version = version;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailDominio = dominioDe(email);
+    }
+
+    public static String dominioDe(String email) {
+        if (email == null) {
+            return null;
+        }
+        return email.substring(email.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
 }
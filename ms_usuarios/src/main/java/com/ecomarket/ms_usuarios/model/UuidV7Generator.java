@@ -0,0 +1,49 @@
+package com.ecomarket.ms_usuarios.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UUID versión 7 (RFC 9562): 48 bits de milisegundos Unix, 12 bits de secuencia dentro del
+// mismo milisegundo y 62 bits aleatorios. Guardado como BINARY(16) los ids nuevos se insertan
+// siempre al final del índice clustered de InnoDB en lugar de en posiciones aleatorias.
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    // Milisegundos << 12 | secuencia del último id emitido; garantiza orden estricto en la JVM
+    private static final AtomicLong ULTIMA_MARCA = new AtomicLong();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return generar();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    public static UUID generar() {
+        return generar(System.currentTimeMillis());
+    }
+
+    // El menor id v7 posible en ese milisegundo: límite inferior de "ids creados desde"
+    public static UUID minimoEn(long milisegundos) {
+        return new UUID((Math.max(0, milisegundos) << 16) | 0x7000L, 0L);
+    }
+
+    static UUID generar(long milisegundos) {
+        // Si la secuencia se agota dentro de un milisegundo, se toma prestado el siguiente
+        long marca = ULTIMA_MARCA.updateAndGet(anterior -> Math.max(anterior + 1, milisegundos << 12));
+        long masSignificativos = ((marca >>> 12) << 16) | 0x7000L | (marca & 0xFFFL);
+        long menosSignificativos = (ALEATORIO.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(masSignificativos, menosSignificativos);
+    }
+}
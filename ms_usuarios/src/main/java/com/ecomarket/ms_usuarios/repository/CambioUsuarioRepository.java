@@ -0,0 +1,30 @@
+package com.ecomarket.ms_usuarios.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecomarket.ms_usuarios.model.CambioUsuario;
+
+@Repository
+public interface CambioUsuarioRepository extends JpaRepository<CambioUsuario, Long> {
+
+    @Query("select max(c.secuencia) from CambioUsuario c")
+    Long ultimaSecuencia();
+
+    @Query("select min(c.secuencia) from CambioUsuario c")
+    Long primeraSecuencia();
+
+    List<CambioUsuario> findBySecuenciaGreaterThanOrderBySecuencia(long secuencia, Limit limit);
+
+    // Conserva siempre la última entrada: los lectores toman de ella la secuencia actual
+    @Modifying
+    @Query("delete from CambioUsuario c where c.fecha < :limite and c.secuencia < :ultima")
+    int purgarAnteriores(@Param("limite") Instant limite, @Param("ultima") long ultima);
+}
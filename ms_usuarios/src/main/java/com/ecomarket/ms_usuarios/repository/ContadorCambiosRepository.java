@@ -0,0 +1,30 @@
+package com.ecomarket.ms_usuarios.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+
+import com.ecomarket.ms_usuarios.model.ContadorCambios;
+
+@Repository
+public interface ContadorCambiosRepository extends JpaRepository<ContadorCambios, Integer> {
+
+    // SELECT ... FOR UPDATE: ve el último valor confirmado y los registros concurrentes esperan a que este confirme
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from ContadorCambios c where c.id = :id")
+    Optional<ContadorCambios> bloquear(@Param("id") int id);
+
+    // INSERT y no save(): save() haría merge y podría pisar un contador creado entretanto por otra instancia.
+    // Parte de la última entrada del registro, por si la tabla ya tenía cambios numerados.
+    @Modifying
+    @Query(value = "insert into usuario_cambio_contador (id, ultima) "
+            + "select :id, coalesce(max(secuencia), 0) from usuario_cambio", nativeQuery = true)
+    int crear(@Param("id") int id);
+}
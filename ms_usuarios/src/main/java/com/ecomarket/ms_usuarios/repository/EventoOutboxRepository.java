@@ -0,0 +1,24 @@
+package com.ecomarket.ms_usuarios.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+
+import com.ecomarket.ms_usuarios.model.EventoOutbox;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, UUID> {
+
+    // Los eventos más antiguos con SELECT ... FOR UPDATE: otra instancia que releve a la vez espera
+    // a que este lote se publique y se borre, así que los eventos de un usuario salen en orden.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from EventoOutbox e order by e.id")
+    List<EventoOutbox> bloquearSiguientes(Limit limit);
+}
@@ -1,15 +1,96 @@
 package com.ecomarket.ms_usuarios.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
 import com.ecomarket.ms_usuarios.model.Usuario;
 
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, UUID> {
+public interface UsuarioRepository extends JpaRepository<Usuario, UUID>, UsuarioRepositoryCustom {
+    int TAMANO_FETCH_EXPORTACION = 500;
+
+    // En la caché de consultas de Hibernate; cualquier escritura en la tabla la invalida.
+    // Solo lectura: el login no abre transacción y, sin ella, la consulta iría al primario y no a la réplica
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Usuario> findByEmail(String email);
-    boolean existsById(UUID id); // <- opcional, por claridad
+
+    // Borrado en una sola sentencia; el número de filas afectadas indica si existía
+    @Modifying
+    @Query("delete from Usuario u where u.id = :id")
+    int borrarPorId(@Param("id") UUID id);
+
+    // Ids que existen de un borrado masivo, con sus filas bloqueadas (FOR UPDATE) hasta el final de la transacción
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u.id from Usuario u where u.id in :ids")
+    List<UUID> bloquearExistentes(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("delete from Usuario u where u.id in :ids")
+    int borrarPorIds(@Param("ids") Collection<UUID> ids);
+
+    // Rehash tras un login correcto; no pisa una contraseña cambiada entretanto
+    @Transactional
+    @Modifying
+    @Query("update Usuario u set u.contraseña = :nueva, u.version = u.version + 1 where u.id = :id and u.contraseña = :anterior")
+    int actualizarContrasena(@Param("id") UUID id, @Param("anterior") String anterior, @Param("nueva") String nueva);
+
+    // Filas anteriores a la columna email_dominio; con todo relleno no actualiza nada
+    @Transactional
+    @Modifying
+    @Query("update Usuario u set u.emailDominio = lower(substring(u.email, locate('@', u.email) + 1)) "
+            + "where u.emailDominio is null and u.email is not null")
+    int rellenarDominiosEmail();
+
+    // Comprobación de duplicados de un alta masiva en una sola consulta
+    @Query("select u.email from Usuario u where u.email in :emails")
+    List<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+
+    // Filtro de emails del login: carga completa en streaming
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TAMANO_FETCH_EXPORTACION))
+    @Query("select u.email from Usuario u")
+    Stream<String> streamEmails();
+
+    // Lecturas públicas: proyecciones a UsuarioResumen con solo las columnas visibles.
+    // No se carga la contraseña ni se crean entidades gestionadas (sin snapshot para dirty checking).
+    String RESUMEN = "select new com.ecomarket.ms_usuarios.dto.UsuarioResumen("
+            + "u.id, u.nombre, u.email, u.direccion, u.telefono, u.rol, u.version) from Usuario u ";
+
+    // Solo la columna de versión: basta para responder a un GET condicional sin leer la fila entera
+    @Query("select u.version from Usuario u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    @Query(RESUMEN + "where u.id = :id")
+    Optional<UsuarioResumen> findResumenById(@Param("id") UUID id);
+
+    // Paginación por cursor: buscan por índice de la PK en lugar de usar OFFSET
+    @Query(RESUMEN + "order by u.id")
+    List<UsuarioResumen> findResumenes(Limit limit);
+
+    @Query(RESUMEN + "where u.id > :id order by u.id")
+    List<UsuarioResumen> findResumenesDespuesDe(@Param("id") UUID id, Limit limit);
+
+    // Recorre la tabla completa sin materializarla; requiere useCursorFetch=true en MySQL
+    // para que el driver respete el fetch size en vez de traer todo el resultado.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TAMANO_FETCH_EXPORTACION))
+    @Query(RESUMEN)
+    Stream<UsuarioResumen> streamResumenes();
 }
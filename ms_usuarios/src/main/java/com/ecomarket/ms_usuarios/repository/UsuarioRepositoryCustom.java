@@ -0,0 +1,25 @@
+package com.ecomarket.ms_usuarios.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Usuario;
+
+public interface UsuarioRepositoryCustom {
+
+    // UPDATE de solo las columnas indicadas (propiedad de Usuario -> valor); devuelve las filas afectadas.
+    // Incrementa la versión y, si versionEsperada no es null, solo actualiza la fila en esa versión.
+    int actualizarCampos(UUID id, Map<String, Object> campos, Long versionEsperada);
+
+    // Lee la fila de la base de datos sin pasar por la caché de segundo nivel: tras actualizarCampos,
+    // dentro de la misma transacción, la caché aún puede tener el estado anterior
+    Optional<Usuario> releer(UUID id);
+
+    // Proyección a UsuarioResumen de las filas que cumplen el filtro, ordenadas por id
+    List<UsuarioResumen> buscarResumenes(Specification<Usuario> filtro, int limite);
+}
@@ -0,0 +1,94 @@
+package com.ecomarket.ms_usuarios.repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Usuario;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class UsuarioRepositoryImpl implements UsuarioRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int actualizarCampos(UUID id, Map<String, Object> campos, Long versionEsperada) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Usuario> update = cb.createCriteriaUpdate(Usuario.class);
+        Root<Usuario> usuario = update.from(Usuario.class);
+
+        // email_dominio se deriva del email también aquí: el UPDATE masivo no pasa por la entidad
+        Map<String, Object> columnas = new LinkedHashMap<>(campos);
+        if (campos.containsKey("email")) {
+            columnas.put("emailDominio", Usuario.dominioDe((String) campos.get("email")));
+        }
+        columnas.forEach((campo, valor) -> {
+            Path<Object> columna = usuario.get(campo);
+            if (valor == null) {
+                asignarNulo(update, columna, cb);
+            } else {
+                update.set(columna, valor);
+            }
+        });
+        // Un UPDATE de Criteria no toca @Version por sí solo
+        Path<Long> version = usuario.get("version");
+        update.set(version, cb.sum(version, 1L));
+        update.where(versionEsperada == null
+                ? cb.equal(usuario.get("id"), id)
+                : cb.and(cb.equal(usuario.get("id"), id), cb.equal(version, versionEsperada)));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public Optional<Usuario> releer(UUID id) {
+        return Optional.ofNullable(entityManager.find(Usuario.class, id, Map.of(
+                "jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS,
+                "jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS)));
+    }
+
+    // Las Specification aportan solo el WHERE: la consulta sigue siendo una proyección, como las
+    // lecturas por @Query, en lugar de cargar entidades con findAll(spec)
+    @Override
+    public List<UsuarioResumen> buscarResumenes(Specification<Usuario> filtro, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UsuarioResumen> consulta = cb.createQuery(UsuarioResumen.class);
+        Root<Usuario> usuario = consulta.from(Usuario.class);
+
+        consulta.select(cb.construct(UsuarioResumen.class,
+                usuario.get("id"), usuario.get("nombre"), usuario.get("email"), usuario.get("direccion"),
+                usuario.get("telefono"), usuario.get("rol"), usuario.get("version")));
+        Predicate condicion = filtro.toPredicate(usuario, consulta, cb);
+        if (condicion != null) {
+            consulta.where(condicion);
+        }
+        consulta.orderBy(cb.asc(usuario.get("id")));
+
+        return entityManager.createQuery(consulta).setMaxResults(limite).getResultList();
+    }
+
+    // Con Path<Object> set(path, expresion) es ambiguo; el tipo genérico lo resuelve
+    private static <Y> void asignarNulo(CriteriaUpdate<Usuario> update, Path<Y> columna, CriteriaBuilder cb) {
+        Expression<? extends Y> nulo = cb.nullLiteral(columna.getJavaType());
+        update.set(columna, nulo);
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecomarket.ms_usuarios.repository;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+
+// Condiciones de la búsqueda filtrada. Cada una tiene un índice detrás (ver @Table de Usuario),
+// así que cualquier combinación con al menos un filtro evita recorrer la tabla.
+public final class UsuarioSpecs {
+
+    private static final char ESCAPE = '\\';
+
+    private UsuarioSpecs() {
+    }
+
+    public static Specification<Usuario> conRol(Rol rol) {
+        return (usuario, consulta, cb) -> cb.equal(usuario.get("rol"), rol);
+    }
+
+    // Con el patrón como parámetro, LIKE ? no siempre se planifica como rango (H2 no lo hace), así
+    // que el prefijo se expresa también como [prefijo, siguiente). El LIKE queda como filtro exacto.
+    public static Specification<Usuario> nombreEmpiezaPor(String prefijo) {
+        String patron = escaparComodines(prefijo) + "%";
+        String siguiente = siguientePrefijo(prefijo);
+        return (usuario, consulta, cb) -> {
+            Path<String> nombre = usuario.get("nombre");
+            Predicate rango = siguiente == null
+                    ? cb.greaterThanOrEqualTo(nombre, prefijo)
+                    : cb.and(cb.greaterThanOrEqualTo(nombre, prefijo), cb.lessThan(nombre, siguiente));
+            return cb.and(rango, cb.like(nombre, patron, ESCAPE));
+        };
+    }
+
+    public static Specification<Usuario> emailEnDominio(String dominio) {
+        String normalizado = Usuario.dominioDe(dominio);
+        return (usuario, consulta, cb) -> cb.equal(usuario.get("emailDominio"), normalizado);
+    }
+
+    // Paginación por cursor: continúa tras el último id entregado
+    public static Specification<Usuario> idDespuesDe(UUID id) {
+        return (usuario, consulta, cb) -> cb.greaterThan(usuario.get("id"), id);
+    }
+
+    // Menor cadena mayor que todas las que empiezan por el prefijo; null si no se puede acotar
+    static String siguientePrefijo(String prefijo) {
+        char ultimo = prefijo.charAt(prefijo.length() - 1);
+        if (ultimo == Character.MAX_VALUE || Character.isSurrogate(ultimo)) {
+            return null;
+        }
+        return prefijo.substring(0, prefijo.length() - 1) + (char) (ultimo + 1);
+    }
+
+    private static String escaparComodines(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,39 +1,108 @@
 package com.ecomarket.ms_usuarios.service;
 
+import com.ecomarket.ms_usuarios.exception.ServicioSaturadoException;
 import com.ecomarket.ms_usuarios.model.Usuario;
 import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class AuthService {
 
+    public static final String METRICA_LOGIN = "usuarios.login";
+
     private final UsuarioRepository repository;
+    private final UsuarioCache cache;
+    private final HashContrasenas hashContrasenas;
+    private final EmisorTokens emisorTokens;
+    private final FiltroEmails filtroEmails;
+
+    // usuarios.login{resultado, motivo}: los contadores se registran al arrancar para que
+    // Prometheus vea la serie a 0 antes del primer fallo. Con el filtro de emails activo,
+    // usuario_no_encontrado son sus falsos positivos y email_desconocido los rechazos sin consulta.
+    private final Counter loginExitoso;
+    private final Counter emailDesconocido;
+    private final Counter usuarioNoEncontrado;
+    private final Counter credencialesIncorrectas;
+    private final Counter servicioSaturado;
 
-    public AuthService(UsuarioRepository repository) {
+    public AuthService(UsuarioRepository repository, UsuarioCache cache, HashContrasenas hashContrasenas,
+                       EmisorTokens emisorTokens, FiltroEmails filtroEmails, MeterRegistry registry) {
         this.repository = repository;
+        this.cache = cache;
+        this.hashContrasenas = hashContrasenas;
+        this.emisorTokens = emisorTokens;
+        this.filtroEmails = filtroEmails;
+        this.loginExitoso = contadorLogin(registry, "exito", "ok");
+        this.emailDesconocido = contadorLogin(registry, "fallo", "email_desconocido");
+        this.usuarioNoEncontrado = contadorLogin(registry, "fallo", "usuario_no_encontrado");
+        this.credencialesIncorrectas = contadorLogin(registry, "fallo", "credenciales_incorrectas");
+        this.servicioSaturado = contadorLogin(registry, "fallo", "servicio_saturado");
     }
 
     public Map<String, Object> login(String email, String contraseña) {
-        Usuario usuario = repository.findByEmail(email)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+        // Mismo error que sin filtro: la respuesta no distingue por dónde se rechazó
+        if (!filtroEmails.podriaExistir(email)) {
+            emailDesconocido.increment();
+            throw new IllegalArgumentException("Usuario no encontrado");
+        }
+        Usuario usuario = cache.porEmail(email, repository::findByEmail).orElse(null);
+        if (usuario == null) {
+            usuarioNoEncontrado.increment();
+            throw new IllegalArgumentException("Usuario no encontrado");
+        }
 
-        if (!usuario.getContraseña().equals(contraseña)) {
+        boolean valida;
+        try {
+            valida = hashContrasenas.verificar(contraseña, usuario.getContraseña());
+        } catch (ServicioSaturadoException ex) {
+            servicioSaturado.increment();
+            throw ex;
+        }
+        if (!valida) {
+            credencialesIncorrectas.increment();
             throw new IllegalArgumentException("Credenciales incorrectas");
         }
+        actualizarHashSiProcede(usuario, contraseña);
+        loginExitoso.increment();
 
-        String token = "fake-jwt-" + UUID.randomUUID(); // Token simulado
-        LocalDateTime expiracion = LocalDateTime.now().plusHours(2);
+        EmisorTokens.Emitido emitido = emisorTokens.emitir(usuario);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("token", token);
-        response.put("expiracion", expiracion);
+        response.put("token", emitido.token());
+        response.put("expiracion", LocalDateTime.ofInstant(emitido.expiracion(), ZoneId.systemDefault()));
         response.put("usuario", usuario.getEmail());
 
         return response;
     }
+
+    // Texto plano heredado o coste antiguo: se aprovecha la contraseña ya verificada para
+    // guardar un hash actual. Si el pool está saturado se deja para el siguiente login.
+    private void actualizarHashSiProcede(Usuario usuario, String contraseña) {
+        if (!hashContrasenas.requiereActualizacion(usuario.getContraseña())) {
+            return;
+        }
+        try {
+            String nuevo = hashContrasenas.hashear(contraseña);
+            if (repository.actualizarContrasena(usuario.getId(), usuario.getContraseña(), nuevo) > 0) {
+                cache.invalidar(usuario.getId(), usuario.getEmail());
+            }
+        } catch (ServicioSaturadoException ex) {
+            // El login ya es válido; no se penaliza por el rehash
+        }
+    }
+
+    private static Counter contadorLogin(MeterRegistry registry, String resultado, String motivo) {
+        return Counter.builder(METRICA_LOGIN)
+                .description("Intentos de login por resultado y motivo")
+                .tag("resultado", resultado)
+                .tag("motivo", motivo)
+                .register(registry);
+    }
 }
@@ -0,0 +1,121 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.model.UuidV7Generator;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+
+// Calentamiento opcional antes de declararse lista: Spring Boot publica ReadinessState.ACCEPTING_TRAFFIC
+// (/actuator/health/readiness) después de los ApplicationRunner, así que las primeras peticiones reales no
+// pagan la carga de clases ni el código que el JIT aún no ha compilado.
+// - Peticiones HTTP al propio puerto: recorren filtros, controladores, Jackson, HATEOAS y JPA.
+// - Listado v2 y login. Con cuenta de calentamiento (email y contraseña) el login va por HTTP y consume cuota
+//   de la IP local y del email: por defecto queda por debajo de la del email.
+// - Sin cuenta, un email inventado lo rechazaría el filtro de emails sin llegar a la base de datos, BCrypt ni
+//   JWT: esos pasos del login se llaman directamente (findByEmail, verificar y emitir un token).
+// - Después de los demás ApplicationRunner: el filtro de emails y las sugerencias ya están construidos.
+// - Acotado en tiempo; un fallo se registra y el arranque sigue.
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CalentamientoArranque implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CalentamientoArranque.class);
+
+    private static final String EMAIL_INEXISTENTE = "calentamiento@ecomarket.invalid";
+
+    private final Environment entorno;
+    private final UsuarioRepository repository;
+    private final HashContrasenas hashContrasenas;
+    private final EmisorTokens emisorTokens;
+    private final boolean activo;
+    private final int peticiones;
+    private final int logins;
+    private final String email;
+    private final String contrasena;
+    private final Duration duracionMaxima;
+
+    public CalentamientoArranque(Environment entorno, UsuarioRepository repository,
+                                 HashContrasenas hashContrasenas, EmisorTokens emisorTokens,
+                                 @Value("${usuarios.calentamiento.enabled:false}") boolean activo,
+                                 @Value("${usuarios.calentamiento.peticiones:200}") int peticiones,
+                                 @Value("${usuarios.calentamiento.logins:5}") int logins,
+                                 @Value("${usuarios.calentamiento.email:}") String email,
+                                 @Value("${usuarios.calentamiento.contrasena:}") String contrasena,
+                                 @Value("${usuarios.calentamiento.duracion-maxima:30s}") Duration duracionMaxima) {
+        this.entorno = entorno;
+        this.repository = repository;
+        this.hashContrasenas = hashContrasenas;
+        this.emisorTokens = emisorTokens;
+        this.activo = activo;
+        this.peticiones = peticiones;
+        this.logins = logins;
+        // Sin email no hay cuenta: la contraseña sola no sirve para nada
+        this.email = email.isBlank() ? null : email;
+        this.contrasena = contrasena.isBlank() ? "calentamiento" : contrasena;
+        this.duracionMaxima = duracionMaxima;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!activo) {
+            return;
+        }
+        // Sin servidor web (p. ej. pruebas con MockMvc) no hay a dónde llamar
+        Integer puerto = entorno.getProperty("local.server.port", Integer.class);
+        if (puerto == null) {
+            log.info("Calentamiento omitido: no hay servidor web");
+            return;
+        }
+
+        RestClient cliente = RestClient.create("http://localhost:" + puerto);
+        long inicio = System.nanoTime();
+        long limite = inicio + duracionMaxima.toNanos();
+        int realizadas = 0;
+        try {
+            // Sin cuenta: hash de la contraseña de calentamiento y usuario ficticio para el token
+            String hash = email == null && logins > 0 ? hashContrasenas.hashear(contrasena) : null;
+            Usuario ficticio = new Usuario(UuidV7Generator.generar(), "Calentamiento", EMAIL_INEXISTENTE,
+                    hash, null, null, Rol.CLIENTE);
+            for (int i = 0; i < peticiones && System.nanoTime() < limite; i++) {
+                cliente.get().uri("/api/v2/usuarios?limit={limit}", 50)
+                        .exchange((peticion, respuesta) -> respuesta.getStatusCode());
+                realizadas++;
+                if (i < logins) {
+                    if (email != null) {
+                        cliente.post().uri("/api/usuarios/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .body(Map.of("email", email, "contraseña", contrasena))
+                                .exchange((peticion, respuesta) -> respuesta.getStatusCode());
+                    } else {
+                        repository.findByEmail(EMAIL_INEXISTENTE);
+                        hashContrasenas.verificar(contrasena, hash);
+                        emisorTokens.emitir(ficticio);
+                    }
+                    realizadas++;
+                }
+            }
+        } catch (RuntimeException ex) {
+            // Peticiones rechazadas, o el pool de hash saturado
+            log.warn("Calentamiento interrumpido tras {} pasos: {}", realizadas, ex.getMessage());
+            return;
+        }
+        log.info("Calentamiento: {} pasos en {} ms", realizadas,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+}
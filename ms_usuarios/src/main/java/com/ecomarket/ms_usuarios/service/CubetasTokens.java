@@ -0,0 +1,117 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Cubetas de tokens por clave (email, IP...) para limitar la frecuencia de peticiones.
+// - El estado se reparte en franjas con su propio candado: hilos con claves distintas casi nunca compiten.
+// - Cada franja es un LinkedHashMap en orden de acceso con un máximo de claves, de modo que el espacio
+//   de claves queda acotado aunque un ataque rote emails o IPs (se descarta la menos reciente).
+// - Una cubeta sin uso durante el periodo de recarga completa equivale a una nueva: se descarta.
+public final class CubetasTokens {
+
+    private final double capacidad;
+    private final double tokensPorNano;
+    private final long nanosHastaLlena;
+    private final int maximoPorFranja;
+    private final Franja[] franjas;
+    private final LongSupplier reloj;
+
+    // "capacidad" intentos seguidos como máximo, recuperados por completo en "periodo"
+    public CubetasTokens(int capacidad, Duration periodo, int maximoClaves, int franjas, LongSupplier reloj) {
+        if (capacidad < 1 || periodo.isZero() || periodo.isNegative()) {
+            throw new IllegalArgumentException("La capacidad y el periodo deben ser positivos");
+        }
+        this.capacidad = capacidad;
+        this.nanosHastaLlena = periodo.toNanos();
+        this.tokensPorNano = capacidad / (double) nanosHastaLlena;
+        this.reloj = reloj;
+
+        int cantidad = Math.max(1, franjas);
+        this.maximoPorFranja = Math.max(1, (maximoClaves + cantidad - 1) / cantidad);
+        this.franjas = new Franja[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            this.franjas[i] = new Franja(maximoPorFranja);
+        }
+    }
+
+    // 0 si hay token (y lo consume); si no, nanosegundos hasta que haya uno
+    public long consumir(String clave) {
+        long ahora = reloj.getAsLong();
+        Franja franja = franjas[franja(clave)];
+        synchronized (franja) {
+            Cubeta cubeta = franja.get(clave);
+            if (cubeta == null) {
+                franja.descartarInactivas(ahora, nanosHastaLlena);
+                cubeta = new Cubeta(capacidad, ahora);
+                franja.put(clave, cubeta);
+            } else {
+                cubeta.tokens = Math.min(capacidad, cubeta.tokens + (ahora - cubeta.ultimoUso) * tokensPorNano);
+                cubeta.ultimoUso = ahora;
+            }
+            if (cubeta.tokens >= 1) {
+                cubeta.tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - cubeta.tokens) / tokensPorNano));
+        }
+    }
+
+    // Claves con estado en memoria
+    public int tamano() {
+        int total = 0;
+        for (Franja franja : franjas) {
+            synchronized (franja) {
+                total += franja.size();
+            }
+        }
+        return total;
+    }
+
+    public int maximoClaves() {
+        return maximoPorFranja * franjas.length;
+    }
+
+    // Con los bits altos de un hash mezclado: el HashMap de la franja usa los bajos, y si ambos
+    // coincidieran todas las claves de una franja caerían en los mismos cubos
+    private int franja(String clave) {
+        long mezcla = (clave.hashCode() * 0x9E3779B9) & 0xFFFFFFFFL;
+        return (int) ((mezcla * franjas.length) >>> 32);
+    }
+
+    private static final class Cubeta {
+        double tokens;
+        long ultimoUso;
+
+        Cubeta(double tokens, long ultimoUso) {
+            this.tokens = tokens;
+            this.ultimoUso = ultimoUso;
+        }
+    }
+
+    private static final class Franja extends LinkedHashMap<String, Cubeta> {
+
+        private final int maximo;
+
+        Franja(int maximo) {
+            super(16, 0.75f, true);
+            this.maximo = maximo;
+        }
+
+        // En orden de acceso las inactivas están al principio: se para en la primera reciente
+        void descartarInactivas(long ahora, long inactividad) {
+            Iterator<Cubeta> cubetas = values().iterator();
+            while (cubetas.hasNext() && ahora - cubetas.next().ultimoUso >= inactividad) {
+                cubetas.remove();
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cubeta> eldest) {
+            return size() > maximo;
+        }
+    }
+}
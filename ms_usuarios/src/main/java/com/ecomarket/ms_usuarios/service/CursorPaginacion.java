@@ -0,0 +1,37 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+// Codifica el último id de una página como un cursor opaco (Base64 URL-safe de 16 bytes),
+// para que los clientes no dependan del formato interno del id.
+public final class CursorPaginacion {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CursorPaginacion() {
+    }
+
+    public static String codificar(UUID id) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    public static UUID decodificar(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.config.JwtProperties;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+// Firma HS256 con la clave activa; el kid en la cabecera indica a los verificadores qué clave usar
+@Component
+public class EmisorTokens {
+
+    static final String CLAIM_EMAIL = "email";
+    static final String CLAIM_ROL = "rol";
+
+    private final JWSSigner firmante;
+    private final String kid;
+    private final String emisor;
+    private final Duration duracion;
+
+    public EmisorTokens(JwtProperties propiedades) {
+        this.kid = propiedades.claveActiva();
+        this.emisor = propiedades.emisor();
+        this.duracion = propiedades.duracion();
+        try {
+            this.firmante = new MACSigner(propiedades.secreto(kid));
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Clave JWT " + kid + " no válida para HS256 (mínimo 256 bits)", ex);
+        }
+    }
+
+    public Emitido emitir(Usuario usuario) {
+        Instant ahora = Instant.now();
+        Instant expiracion = ahora.plus(duracion);
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(emisor)
+                .subject(usuario.getId().toString())
+                .claim(CLAIM_EMAIL, usuario.getEmail())
+                .claim(CLAIM_ROL, usuario.getRol().name())
+                .issueTime(Date.from(ahora))
+                .expirationTime(Date.from(expiracion))
+                .build();
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID(kid).build(), claims);
+        try {
+            jwt.sign(firmante);
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("No se pudo firmar el token", ex);
+        }
+        return new Emitido(jwt.serialize(), expiracion);
+    }
+
+    public record Emitido(String token, Instant expiracion) {}
+}
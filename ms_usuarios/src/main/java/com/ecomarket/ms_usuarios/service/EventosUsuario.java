@@ -0,0 +1,59 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.EventoOutbox;
+import com.ecomarket.ms_usuarios.model.TipoEvento;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.EventoOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Escribe los eventos de cambio en la tabla outbox. MANDATORY: fuera de la transacción del cambio
+// el evento podría quedar sin cambio o el cambio sin evento, así que se exige una ya abierta.
+// Los INSERT se envían con el flush de la transacción, en lote con los demás.
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class EventosUsuario {
+
+    private final EventoOutboxRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public EventosUsuario(EventoOutboxRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void creado(Usuario usuario) {
+        registrar(usuario.getId(), TipoEvento.CREADO, UsuarioResumen.de(usuario));
+    }
+
+    public void actualizado(Usuario usuario) {
+        registrar(usuario.getId(), TipoEvento.ACTUALIZADO, UsuarioResumen.de(usuario));
+    }
+
+    public void eliminado(UUID id) {
+        registrar(id, TipoEvento.ELIMINADO, null);
+    }
+
+    public void eliminados(Collection<UUID> ids) {
+        Instant ahora = Instant.now();
+        repository.saveAll(ids.stream().map(id -> new EventoOutbox(id, TipoEvento.ELIMINADO, null, ahora)).toList());
+    }
+
+    private void registrar(UUID usuarioId, TipoEvento tipo, UsuarioResumen datos) {
+        try {
+            String json = datos == null ? null : objectMapper.writeValueAsString(datos);
+            repository.save(new EventoOutbox(usuarioId, tipo, json, Instant.now()));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar el evento del usuario " + usuarioId, ex);
+        }
+    }
+}
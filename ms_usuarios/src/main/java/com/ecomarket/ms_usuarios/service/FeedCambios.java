@@ -0,0 +1,198 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ecomarket.ms_usuarios.dto.Cambio;
+import com.ecomarket.ms_usuarios.dto.Cambios;
+import com.ecomarket.ms_usuarios.exception.CursorCaducadoException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Feed incremental sobre el registro de cambios: consulta inmediata, long-poll y Server-Sent Events.
+// Las esperas no retienen hilos ni conexiones JDBC: quedan registradas y despachar() (periódico) lee
+// la última secuencia, una consulta por la clave primaria, y solo si avanzó trae los cambios nuevos en
+// una consulta compartida por todas las esperas. Así ve también los cambios relevados por otras instancias.
+@Component
+public class FeedCambios {
+
+    public static final int LIMITE_MAXIMO = 500;
+    // Comentario SSE periódico para que proxies y balanceadores no cierren la conexión por inactividad
+    static final Duration LATIDO = Duration.ofSeconds(15);
+
+    private final RegistroCambios registro;
+    private final Set<Espera> esperas = ConcurrentHashMap.newKeySet();
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+
+    private long ultimoLatido = System.nanoTime();
+
+    public FeedCambios(RegistroCambios registro, MeterRegistry registry) {
+        this.registro = registro;
+        Gauge.builder("usuarios.cambios.esperas", esperas, Set::size)
+                .description("Peticiones long-poll del feed de cambios a la espera")
+                .tag("modo", "long-poll")
+                .register(registry);
+        Gauge.builder("usuarios.cambios.esperas", suscripciones, Set::size)
+                .description("Suscripciones SSE abiertas al feed de cambios")
+                .tag("modo", "sse")
+                .register(registry);
+    }
+
+    // Sin since: ningún cambio y la posición actual, desde la que seguir tras una carga completa
+    public Cambios leer(Long since, int limite) {
+        if (since == null) {
+            return new Cambios(List.of(), registro.ultimaSecuencia());
+        }
+        return Cambios.desde(registro.leer(since, limite).stream().map(Cambio::de).toList(), since);
+    }
+
+    // Responde en cuanto hay cambios posteriores a since o, al vencer la espera, con una lista vacía
+    public DeferredResult<Cambios> esperar(long since, int limite, Duration espera) {
+        DeferredResult<Cambios> resultado = new DeferredResult<>(espera.toMillis(), () -> new Cambios(List.of(), since));
+        Cambios inmediatos = leer(since, limite);
+        if (!inmediatos.cambios().isEmpty() || espera.isZero()) {
+            resultado.setResult(inmediatos);
+            return resultado;
+        }
+        Espera registrada = new Espera(since, limite, resultado);
+        esperas.add(registrada);
+        resultado.onCompletion(() -> esperas.remove(registrada));
+        return resultado;
+    }
+
+    // Envía los cambios posteriores a since como eventos "cambio" con id = secuencia: al reconectar,
+    // el navegador (o el cliente) manda Last-Event-ID y el feed continúa desde ahí
+    public SseEmitter suscribir(long since) {
+        // Comprueba el cursor antes de abrir el stream: un since caducado responde 410 y no un stream vacío
+        registro.leer(since, 1);
+        SseEmitter emisor = new SseEmitter();
+        Suscripcion suscripcion = new Suscripcion(emisor, since);
+        suscripciones.add(suscripcion);
+        emisor.onCompletion(() -> suscripciones.remove(suscripcion));
+        emisor.onTimeout(emisor::complete);
+        emisor.onError(error -> suscripciones.remove(suscripcion));
+        return emisor;
+    }
+
+    @Scheduled(fixedDelayString = "${usuarios.cambios.sondeo:PT0.5S}")
+    public synchronized void despachar() {
+        if (esperas.isEmpty() && suscripciones.isEmpty()) {
+            return;
+        }
+        List<Cambio> nuevos = leerPendientes(registro.ultimaSecuencia());
+        if (!nuevos.isEmpty()) {
+            esperas.forEach(espera -> responder(espera, nuevos));
+            suscripciones.forEach(suscripcion -> enviar(suscripcion, nuevos));
+        }
+        if (System.nanoTime() - ultimoLatido >= LATIDO.toNanos()) {
+            ultimoLatido = System.nanoTime();
+            suscripciones.forEach(this::latir);
+        }
+    }
+
+    // Cambios desde el cursor más retrasado. Si alguna suscripción va más de LIMITE_MAXIMO por detrás, el
+    // resto llega en las siguientes pasadas.
+    private List<Cambio> leerPendientes(long ultima) {
+        long desde;
+        while ((desde = cursorMinimo()) < ultima) {
+            try {
+                return registro.leer(desde, LIMITE_MAXIMO).stream().map(Cambio::de).toList();
+            } catch (CursorCaducadoException ex) {
+                // La retención purgó lo que le faltaba al más retrasado: se le retira y se vuelve a leer
+                // para los demás en esta misma pasada
+                caducar(desde, ex);
+            }
+        }
+        return List.of();
+    }
+
+    private long cursorMinimo() {
+        long desde = Long.MAX_VALUE;
+        for (Espera espera : esperas) {
+            desde = Math.min(desde, espera.since);
+        }
+        for (Suscripcion suscripcion : suscripciones) {
+            desde = Math.min(desde, suscripcion.cursor);
+        }
+        return desde;
+    }
+
+    // Un long-poll recibe el 410 en su respuesta; una suscripción se cierra y el cliente, al reconectar con
+    // su Last-Event-ID, recibe el 410
+    private void caducar(long cursor, CursorCaducadoException ex) {
+        esperas.removeIf(espera -> {
+            boolean retrasada = espera.since == cursor;
+            if (retrasada) {
+                espera.resultado.setErrorResult(ex);
+            }
+            return retrasada;
+        });
+        suscripciones.removeIf(suscripcion -> {
+            boolean retrasada = suscripcion.cursor == cursor;
+            if (retrasada) {
+                suscripcion.emisor.complete();
+            }
+            return retrasada;
+        });
+    }
+
+    private static void responder(Espera espera, List<Cambio> nuevos) {
+        List<Cambio> posteriores = nuevos.stream()
+                .filter(cambio -> cambio.secuencia() > espera.since)
+                .limit(espera.limite)
+                .toList();
+        if (!posteriores.isEmpty()) {
+            espera.resultado.setResult(Cambios.desde(posteriores, espera.since));
+        }
+    }
+
+    private void enviar(Suscripcion suscripcion, List<Cambio> nuevos) {
+        try {
+            for (Cambio cambio : nuevos) {
+                if (cambio.secuencia() > suscripcion.cursor) {
+                    suscripcion.emisor.send(SseEmitter.event()
+                            .id(Long.toString(cambio.secuencia()))
+                            .name("cambio")
+                            .data(cambio, MediaType.APPLICATION_JSON));
+                    suscripcion.cursor = cambio.secuencia();
+                }
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // Cliente desconectado: el contenedor completa el emisor y onCompletion lo retira
+            suscripciones.remove(suscripcion);
+        }
+    }
+
+    private void latir(Suscripcion suscripcion) {
+        try {
+            suscripcion.emisor.send(SseEmitter.event().comment(""));
+        } catch (IOException | IllegalStateException ex) {
+            suscripciones.remove(suscripcion);
+        }
+    }
+
+    private record Espera(long since, int limite, DeferredResult<Cambios> resultado) {
+    }
+
+    private static final class Suscripcion {
+
+        private final SseEmitter emisor;
+        // Solo lo modifica despachar(), sincronizado
+        private long cursor;
+
+        private Suscripcion(SseEmitter emisor, long cursor) {
+            this.emisor = emisor;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Filtro de Bloom sobre cadenas: "no está" es seguro, "podría estar" se equivoca con la probabilidad
+// configurada mientras no se supere la capacidad.
+// - Bits en un long[] que se marcan con OR atómico: añadir y consultar no necesitan candados.
+// - k posiciones por doble hash (h1 + i·h2) a partir de un único hash de 64 bits de la cadena.
+// - No admite borrados: un valor eliminado sigue dando "podría estar" hasta reconstruir el filtro.
+public final class FiltroBloom {
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final double LN2 = Math.log(2);
+
+    private final long[] bits;
+    private final long numeroBits;
+    private final int funciones;
+    private final long capacidad;
+
+    public FiltroBloom(long capacidad, double probabilidadFalsos) {
+        if (capacidad < 1 || probabilidadFalsos <= 0 || probabilidadFalsos >= 1) {
+            throw new IllegalArgumentException("Capacidad positiva y probabilidad entre 0 y 1 (exclusive)");
+        }
+        // m = -n·ln(p) / ln(2)², k = m/n·ln(2); m redondeado a palabras de 64 bits
+        long palabras = (long) Math.ceil(-capacidad * Math.log(probabilidadFalsos) / (LN2 * LN2) / Long.SIZE);
+        if (palabras > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Filtro demasiado grande para " + capacidad + " elementos");
+        }
+        this.bits = new long[(int) Math.max(1, palabras)];
+        this.numeroBits = (long) bits.length * Long.SIZE;
+        this.funciones = (int) Math.max(1, Math.round((double) numeroBits / capacidad * LN2));
+        this.capacidad = capacidad;
+    }
+
+    public void agregar(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numeroBits);
+            long mascara = 1L << bit;
+            int palabra = (int) (bit >>> 6);
+            // Evita la escritura (y la invalidación de la línea de caché) si el bit ya estaba
+            if (((long) BITS.getAcquire(bits, palabra) & mascara) == 0) {
+                BITS.getAndBitwiseOr(bits, palabra, mascara);
+            }
+        }
+    }
+
+    public boolean podriaContener(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numeroBits);
+            if (((long) BITS.getAcquire(bits, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Probabilidad de falso positivo según los bits marcados: (marcados / m)^k
+    public double probabilidadEstimada() {
+        long marcados = 0;
+        for (int i = 0; i < bits.length; i++) {
+            marcados += Long.bitCount((long) BITS.getAcquire(bits, i));
+        }
+        return Math.pow((double) marcados / numeroBits, funciones);
+    }
+
+    public long bytes() {
+        return 16 + 8L * bits.length;
+    }
+
+    public long capacidad() {
+        return capacidad;
+    }
+
+    public int funciones() {
+        return funciones;
+    }
+
+    // FNV-1a de 64 bits sobre los caracteres, con la mezcla final de MurmurHash3 para repartir los bits
+    private static long hash(String valor) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash = (hash ^ valor.charAt(i)) * 0x100000001B3L;
+        }
+        return mezclar(hash);
+    }
+
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,217 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.exception.CursorCaducadoException;
+import com.ecomarket.ms_usuarios.model.CambioUsuario;
+import com.ecomarket.ms_usuarios.model.TipoEvento;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+// Filtro de Bloom con los emails registrados: un login con un email que el filtro no conoce se
+// rechaza sin consultar la base de datos. Un falso negativo dejaría fuera a un usuario real, así que
+// todo alta o cambio de email pasa por el filtro antes de escribirse:
+// - registrar() lo añade al momento y otra vez al confirmar, por si entretanto empezó una reconstrucción.
+// - Las altas y cambios de email de otras instancias llegan con el refresco periódico, que lee el registro
+//   de cambios (RegistroCambios) igual que las sugerencias. No se busca por rango de la PK: los ids v4
+//   anteriores a los v7 son aleatorios y casi todos quedarían por encima de cualquier marca de tiempo.
+// - La reconstrucción periódica descarta los emails borrados o cambiados y vuelve a dimensionar.
+// Antes de la primera construcción, o con el filtro desactivado, todo email "podría existir".
+@Component
+// Antes que CalentamientoArranque (LOWEST_PRECEDENCE): el calentamiento encuentra el filtro ya construido
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class FiltroEmails implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(FiltroEmails.class);
+
+    // Capacidad = max(mínima, usuarios × holgura): margen para las altas hasta la siguiente reconstrucción
+    private static final int HOLGURA = 2;
+    private static final int LOTE_CAMBIOS = 500;
+
+    private final UsuarioRepository repository;
+    private final RegistroCambios registroCambios;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate lectura;
+    private final boolean activo;
+    private final double probabilidadFalsos;
+    private final long capacidadMinima;
+
+    private volatile FiltroBloom filtro;
+    // Filtro en construcción; null fuera de una reconstrucción
+    private volatile FiltroBloom siguiente;
+    // Último cambio del registro ya aplicado
+    private long secuencia;
+
+    public FiltroEmails(UsuarioRepository repository, RegistroCambios registroCambios, ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${usuarios.login.filtro-emails.enabled:true}") boolean activo,
+                        @Value("${usuarios.login.filtro-emails.probabilidad-falsos:0.01}") double probabilidadFalsos,
+                        @Value("${usuarios.login.filtro-emails.capacidad-minima:100000}") long capacidadMinima,
+                        MeterRegistry registry) {
+        this.repository = repository;
+        this.registroCambios = registroCambios;
+        this.objectMapper = objectMapper;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.activo = activo;
+        this.probabilidadFalsos = probabilidadFalsos;
+        this.capacidadMinima = capacidadMinima;
+
+        Gauge.builder("usuarios.login.filtro.memoria", this, emails -> emails.medir(FiltroBloom::bytes))
+                .description("Memoria del filtro de emails registrados")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("usuarios.login.filtro.falsos-positivos", this,
+                        emails -> emails.medir(FiltroBloom::probabilidadEstimada))
+                .description("Probabilidad estimada de falso positivo según los bits marcados")
+                .register(registry);
+        Gauge.builder("usuarios.login.filtro.falsos-positivos.objetivo", this, emails -> emails.probabilidadFalsos)
+                .description("Probabilidad de falso positivo configurada (usuarios.login.filtro-emails.probabilidad-falsos)")
+                .register(registry);
+        Gauge.builder("usuarios.login.filtro.capacidad", this, emails -> emails.medir(FiltroBloom::capacidad))
+                .description("Emails para los que se dimensionó el filtro")
+                .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reconstruir();
+    }
+
+    // false solo si el email seguro que no está registrado
+    public boolean podriaExistir(String email) {
+        FiltroBloom actual = filtro;
+        return actual == null || actual.podriaContener(normalizar(email));
+    }
+
+    // Antes de escribir el email: si la escritura falla solo queda un falso positivo
+    public void registrar(String email) {
+        if (!activo || email == null) {
+            return;
+        }
+        String normalizado = normalizar(email);
+        agregar(normalizado);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agregar(normalizado);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${usuarios.login.filtro-emails.reconstruccion:PT30M}",
+            initialDelayString = "${usuarios.login.filtro-emails.reconstruccion:PT30M}")
+    public synchronized void reconstruir() {
+        if (!activo) {
+            return;
+        }
+        // Antes de leer la tabla: lo anotado después, incluidas las altas confirmadas tras leerla, se
+        // aplica al refrescar
+        long desde = registroCambios.ultimaSecuencia();
+        long usuarios = repository.count();
+        FiltroBloom nuevo = new FiltroBloom(Math.max(capacidadMinima, usuarios * HOLGURA), probabilidadFalsos);
+        siguiente = nuevo;
+        try {
+            lectura.executeWithoutResult(estado -> {
+                try (Stream<String> emails = repository.streamEmails()) {
+                    emails.filter(Objects::nonNull).forEach(email -> nuevo.agregar(normalizar(email)));
+                }
+            });
+            filtro = nuevo;
+        } finally {
+            siguiente = null;
+        }
+        secuencia = desde;
+        log.info("Filtro de emails: {} usuarios, capacidad {}, {} funciones hash, {} KiB",
+                usuarios, nuevo.capacidad(), nuevo.funciones(), nuevo.bytes() / 1024);
+    }
+
+    // Altas y cambios de email hechos en otras instancias desde la última pasada
+    @Scheduled(fixedDelayString = "${usuarios.login.filtro-emails.refresco:PT10S}",
+            initialDelayString = "${usuarios.login.filtro-emails.refresco:PT10S}")
+    public synchronized void refrescar() {
+        if (!activo || filtro == null) {
+            return;
+        }
+        aplicarCambios();
+    }
+
+    private void aplicarCambios() {
+        List<CambioUsuario> cambios;
+        do {
+            try {
+                cambios = registroCambios.leer(secuencia, LOTE_CAMBIOS);
+            } catch (CursorCaducadoException ex) {
+                log.warn("Filtro de emails desfasado más allá de la retención del registro de cambios, se reconstruye");
+                reconstruir();
+                return;
+            }
+            for (CambioUsuario cambio : cambios) {
+                aplicar(cambio);
+                secuencia = cambio.getSecuencia();
+            }
+        } while (cambios.size() == LOTE_CAMBIOS);
+    }
+
+    // Los borrados no quitan nada: un filtro de Bloom no olvida, lo hace la reconstrucción
+    private void aplicar(CambioUsuario cambio) {
+        if (cambio.getTipo() == TipoEvento.ELIMINADO) {
+            return;
+        }
+        try {
+            String email = objectMapper.readValue(cambio.getDatos(), UsuarioResumen.class).email();
+            if (email != null) {
+                agregar(normalizar(email));
+            }
+        } catch (JsonProcessingException ex) {
+            log.warn("Cambio {} ilegible, se omite en el filtro de emails: {}", cambio.getSecuencia(), ex.getMessage());
+        }
+    }
+
+    private void agregar(String normalizado) {
+        FiltroBloom actual = filtro;
+        if (actual != null) {
+            actual.agregar(normalizado);
+        }
+        FiltroBloom enConstruccion = siguiente;
+        if (enConstruccion != null) {
+            enConstruccion.agregar(normalizado);
+        }
+    }
+
+    private double medir(ToDoubleFunction<FiltroBloom> medida) {
+        FiltroBloom actual = filtro;
+        return actual == null ? 0 : medida.applyAsDouble(actual);
+    }
+
+    // La collation de MySQL compara los emails sin distinguir mayúsculas
+    private static String normalizar(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,163 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.exception.ServicioSaturadoException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// BCrypt en un pool propio y acotado: un pico de logins no ocupa todos los hilos de Tomcat.
+// Con la cola llena se rechaza al momento (503) en lugar de encolar peticiones sin límite.
+@Component
+public class HashContrasenas {
+
+    private static final Logger log = LoggerFactory.getLogger(HashContrasenas.class);
+
+    static final int COSTE_MINIMO = 10;
+    static final int COSTE_MAXIMO = 16;
+    private static final Pattern FORMATO_BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+
+    private final int coste;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration esperaMaxima;
+
+    public HashContrasenas(@Value("${usuarios.hash.coste:0}") int coste,
+                           @Value("${usuarios.hash.objetivo:250ms}") Duration objetivo,
+                           @Value("${usuarios.hash.hilos:0}") int hilos,
+                           @Value("${usuarios.hash.cola:64}") int cola,
+                           @Value("${usuarios.hash.espera-maxima:5s}") Duration esperaMaxima) {
+        // coste = 0: se calibra al arrancar contra la latencia objetivo de esta máquina
+        this.coste = coste > 0 ? coste : calibrar(objetivo);
+        this.encoder = new BCryptPasswordEncoder(this.coste);
+        this.esperaMaxima = esperaMaxima;
+
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(tamano, tamano, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), hilosDaemon(), new ThreadPoolExecutor.AbortPolicy());
+        log.info("Hash de contraseñas: BCrypt coste {}, {} hilos, cola de {}", this.coste, tamano, cola);
+    }
+
+    public int getCoste() {
+        return coste;
+    }
+
+    public String hashear(String contrasena) {
+        return esperar(ejecutar(() -> encoder.encode(contrasena)));
+    }
+
+    // Altas masivas: ventanas del tamaño del pool para no acaparar la cola frente a los logins
+    public List<String> hashearTodos(List<String> contrasenas) {
+        List<String> hashes = new ArrayList<>(contrasenas.size());
+        int ventana = executor.getMaximumPoolSize();
+        for (int inicio = 0; inicio < contrasenas.size(); inicio += ventana) {
+            List<Future<String>> pendientes = new ArrayList<>(ventana);
+            for (String contrasena : contrasenas.subList(inicio, Math.min(inicio + ventana, contrasenas.size()))) {
+                pendientes.add(ejecutar(() -> encoder.encode(contrasena)));
+            }
+            for (Future<String> pendiente : pendientes) {
+                hashes.add(esperar(pendiente));
+            }
+        }
+        return hashes;
+    }
+
+    // Las contraseñas heredadas en texto plano se comparan en tiempo constante y sin pasar por el pool
+    public boolean verificar(String contrasena, String almacenada) {
+        if (almacenada == null) {
+            return false;
+        }
+        if (!esBcrypt(almacenada)) {
+            return MessageDigest.isEqual(
+                    contrasena.getBytes(StandardCharsets.UTF_8),
+                    almacenada.getBytes(StandardCharsets.UTF_8));
+        }
+        return esperar(ejecutar(() -> encoder.matches(contrasena, almacenada)));
+    }
+
+    // Texto plano o un coste menor que el actual: se vuelve a hashear tras un login correcto
+    public boolean requiereActualizacion(String almacenada) {
+        return almacenada == null || !esBcrypt(almacenada) || encoder.upgradeEncoding(almacenada);
+    }
+
+    static boolean esBcrypt(String valor) {
+        return FORMATO_BCRYPT.matcher(valor).matches();
+    }
+
+    <T> Future<T> ejecutar(Callable<T> tarea) {
+        try {
+            return executor.submit(tarea);
+        } catch (RejectedExecutionException ex) {
+            throw new ServicioSaturadoException("Demasiadas operaciones de contraseña en curso, reintente más tarde", ex);
+        }
+    }
+
+    private <T> T esperar(Future<T> pendiente) {
+        try {
+            return pendiente.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            pendiente.cancel(true);
+            throw new ServicioSaturadoException("La operación de contraseña excedió el tiempo de espera", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pendiente.cancel(true);
+            throw new IllegalStateException("Hash de contraseña interrumpido", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error al procesar la contraseña", ex.getCause());
+        }
+    }
+
+    // Cada punto de coste duplica el tiempo: se mide una vez el mínimo y se extrapola
+    static int calibrar(Duration objetivo) {
+        new BCryptPasswordEncoder(4).encode("calentamiento");
+        BCryptPasswordEncoder base = new BCryptPasswordEncoder(COSTE_MINIMO);
+        long inicio = System.nanoTime();
+        base.encode("calibracion");
+        long nanos = Math.max(1, System.nanoTime() - inicio);
+
+        int coste = COSTE_MINIMO;
+        while (coste < COSTE_MAXIMO && nanos * 2 <= objetivo.toNanos()) {
+            nanos *= 2;
+            coste++;
+        }
+        log.info("BCrypt calibrado: coste {} (~{} ms, objetivo {} ms)", coste,
+                TimeUnit.NANOSECONDS.toMillis(nanos), objetivo.toMillis());
+        return coste;
+    }
+
+    private static ThreadFactory hilosDaemon() {
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, "hash-contrasenas-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    @PreDestroy
+    void cerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,492 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import com.ecomarket.ms_usuarios.dto.Sugerencia;
+
+// Índice de trigramas en memoria para sugerencias "mientras se escribe" sobre nombre y email.
+// - Cada usuario es un documento con una posición densa; sus datos van en arrays paralelos.
+// - Las listas de postings son int[] ordenados (las posiciones solo crecen) y las tablas
+//   trigrama -> lista y UUID -> documento son de direccionamiento abierto sobre long/int.
+//   Nada de colecciones con enteros boxeados.
+// - El texto se normaliza (minúsculas, sin tildes, solo letras y dígitos) y cada palabra va
+//   precedida de dos espacios: "  juan  perez  juan  perez  ecomarket  cl". Así " ju" solo
+//   aparece al inicio de una palabra y las consultas de 1-2 caracteres buscan prefijos.
+// - Actualizar un usuario marca el documento anterior como borrado y añade uno nuevo; cuando los
+//   borrados superan la cuarta parte se compacta.
+public final class IndiceTrigramas {
+
+    private static final int LIBRE = -1;
+    private static final int BORRADO = -2;
+    private static final int COMPACTAR_DESDE = 1024;
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Documentos
+    private long[] idsAlto;
+    private long[] idsBajo;
+    private String[] nombres;
+    private String[] emails;
+    private String[] textos;
+    // Largo del nombre en un array primitivo: desempata el ranking sin leer las cadenas
+    private short[] longitudes;
+    private BitSet borrados;
+    private int documentos;
+    private int vivos;
+
+    // UUID -> documento (LIBRE / BORRADO en las casillas sin documento)
+    private int[] porId;
+    private int ocupadasPorId;
+
+    // Trigrama -> lista de postings
+    private long[] claves;
+    private int[] listaDe;
+    private int[][] postings;
+    private int[] tamanos;
+    private int trigramas;
+
+    public IndiceTrigramas() {
+        reiniciar(16);
+    }
+
+    // Añade o reemplaza el usuario
+    public void agregar(UUID id, String nombre, String email) {
+        lock.writeLock().lock();
+        try {
+            quitar(id);
+            insertar(id, nombre, email);
+            compactarSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean eliminar(UUID id) {
+        lock.writeLock().lock();
+        try {
+            boolean eliminado = quitar(id);
+            compactarSiHaceFalta();
+            return eliminado;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Hasta "maximo" usuarios cuyo nombre o email contiene la consulta, de mejor a peor:
+    // prefijo del nombre, inicio de alguna palabra y, por último, coincidencia en medio de una palabra.
+    // A igual puntuación gana el nombre más corto.
+    public List<Sugerencia> buscar(String consulta, int maximo) {
+        String normalizada = consulta == null ? "" : normalizar(consulta);
+        if (normalizada.isEmpty() || maximo < 1) {
+            return List.of();
+        }
+        // Consultas cortas: solo inicios de palabra (" ju", "  j"); con un único trigrama no hace falta verificar
+        String patron = normalizada.length() >= 3 ? normalizada
+                : (normalizada.length() == 2 ? " " : "  ") + normalizada;
+        String inicioPalabra = "  " + normalizada;
+
+        lock.readLock().lock();
+        try {
+            boolean verificar = patron.length() > 3;
+
+            int[] mejores = new int[maximo];
+            int[] puntos = new int[maximo];
+            int encontrados = 0;
+            for (int doc : candidatos(patron)) {
+                // Con el top-K lleno de prefijos de nombre solo puede entrar un nombre más corto:
+                // el resto se descarta sin tocar su texto, que es lo caro en las consultas de una letra
+                if (encontrados == maximo && puntos[maximo - 1] == 3 && longitudes[doc] >= longitudes[mejores[maximo - 1]]) {
+                    continue;
+                }
+                String texto = textos[doc];
+                if (borrados.get(doc) || (verificar && !texto.contains(patron))) {
+                    continue;
+                }
+                int puntuacion = texto.startsWith(inicioPalabra) ? 3 : texto.contains(inicioPalabra) ? 2 : 1;
+                encontrados = insertarOrdenado(mejores, puntos, encontrados, doc, puntuacion);
+            }
+
+            List<Sugerencia> sugerencias = new ArrayList<>(encontrados);
+            for (int i = 0; i < encontrados; i++) {
+                int doc = mejores[i];
+                sugerencias.add(new Sugerencia(new UUID(idsAlto[doc], idsBajo[doc]), nombres[doc], emails[doc]));
+            }
+            return sugerencias;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tras una carga masiva: ajusta cada lista de postings a su tamaño y libera la holgura de los duplicados
+    public void recortar() {
+        lock.writeLock().lock();
+        try {
+            for (int lista = 0; lista < trigramas; lista++) {
+                postings[lista] = Arrays.copyOf(postings[lista], Math.max(tamanos[lista], 1));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return vivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int trigramas() {
+        lock.readLock().lock();
+        try {
+            return trigramas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Estimación de la memoria retenida (arrays y cadenas), suponiendo compressed oops y cadenas Latin-1
+    public long bytesEstimados() {
+        lock.readLock().lock();
+        try {
+            long bytes = 2 * array(8, idsAlto.length) + 3 * array(4, nombres.length) + array(2, longitudes.length) + borrados.size() / 8
+                    + array(4, porId.length)
+                    + array(8, claves.length) + array(4, listaDe.length) + array(4, postings.length) + array(4, tamanos.length);
+            for (int lista = 0; lista < trigramas; lista++) {
+                bytes += array(4, postings[lista].length);
+            }
+            for (int doc = 0; doc < documentos; doc++) {
+                bytes += cadena(nombres[doc]) + cadena(emails[doc]) + cadena(textos[doc]);
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalizar(String texto) {
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder normalizado = new StringBuilder(sinTildes.length() + 8);
+        boolean separar = false;
+        for (int i = 0; i < sinTildes.length(); i++) {
+            char c = Character.toLowerCase(sinTildes.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (separar && !normalizado.isEmpty()) {
+                    normalizado.append("  ");
+                }
+                normalizado.append(c);
+                separar = false;
+            } else {
+                separar = true;
+            }
+        }
+        return normalizado.toString();
+    }
+
+    // Documentos (vivos o borrados) que contienen todos los trigramas del patrón, en orden
+    private int[] candidatos(String patron) {
+        int cantidad = patron.length() - 2;
+        int[] listas = new int[cantidad];
+        int distintas = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int lista = buscarLista(trigrama(patron, i));
+            if (lista == LIBRE) {
+                return new int[0];
+            }
+            if (!contiene(listas, distintas, lista)) {
+                // Ordenadas por tamaño: se parte de la lista más corta y cada intersección es barata
+                int posicion = distintas++;
+                while (posicion > 0 && tamanos[listas[posicion - 1]] > tamanos[lista]) {
+                    listas[posicion] = listas[posicion - 1];
+                    posicion--;
+                }
+                listas[posicion] = lista;
+            }
+        }
+
+        int[] resultado = Arrays.copyOf(postings[listas[0]], tamanos[listas[0]]);
+        int total = resultado.length;
+        for (int i = 1; i < distintas && total > 0; i++) {
+            total = intersecar(resultado, total, postings[listas[i]], tamanos[listas[i]]);
+        }
+        return total == resultado.length ? resultado : Arrays.copyOf(resultado, total);
+    }
+
+    // Deja en "a" la intersección de a[0..na) y b[0..nb); ambas ordenadas. Búsqueda exponencial en b
+    // desde la última posición: cuesta poco tanto si "a" es mucho más corta como si son parecidas.
+    private static int intersecar(int[] a, int na, int[] b, int nb) {
+        int escritos = 0;
+        int desde = 0;
+        for (int i = 0; i < na && desde < nb; i++) {
+            int hasta = desde;
+            for (int paso = 1; hasta < nb && b[hasta] < a[i]; paso <<= 1) {
+                desde = hasta + 1;
+                hasta += paso;
+            }
+            int posicion = Arrays.binarySearch(b, desde, Math.min(hasta + 1, nb), a[i]);
+            if (posicion >= 0) {
+                a[escritos++] = a[i];
+                desde = posicion + 1;
+            } else {
+                desde = -posicion - 1;
+            }
+        }
+        return escritos;
+    }
+
+    private int insertarOrdenado(int[] mejores, int[] puntos, int encontrados, int doc, int puntuacion) {
+        int posicion = encontrados;
+        while (posicion > 0 && mejor(doc, puntuacion, mejores[posicion - 1], puntos[posicion - 1])) {
+            posicion--;
+        }
+        if (posicion == mejores.length) {
+            return encontrados;
+        }
+        int hasta = Math.min(encontrados, mejores.length - 1);
+        System.arraycopy(mejores, posicion, mejores, posicion + 1, hasta - posicion);
+        System.arraycopy(puntos, posicion, puntos, posicion + 1, hasta - posicion);
+        mejores[posicion] = doc;
+        puntos[posicion] = puntuacion;
+        return Math.min(encontrados + 1, mejores.length);
+    }
+
+    private boolean mejor(int doc, int puntuacion, int otro, int puntuacionOtro) {
+        if (puntuacion != puntuacionOtro) {
+            return puntuacion > puntuacionOtro;
+        }
+        return longitudes[doc] < longitudes[otro];
+    }
+
+    private void insertar(UUID id, String nombre, String email) {
+        if (documentos == textos.length) {
+            int capacidad = textos.length * 2;
+            idsAlto = Arrays.copyOf(idsAlto, capacidad);
+            idsBajo = Arrays.copyOf(idsBajo, capacidad);
+            nombres = Arrays.copyOf(nombres, capacidad);
+            emails = Arrays.copyOf(emails, capacidad);
+            textos = Arrays.copyOf(textos, capacidad);
+            longitudes = Arrays.copyOf(longitudes, capacidad);
+        }
+        int doc = documentos++;
+        vivos++;
+        idsAlto[doc] = id.getMostSignificantBits();
+        idsBajo[doc] = id.getLeastSignificantBits();
+        nombres[doc] = nombre == null ? "" : nombre;
+        emails[doc] = email == null ? "" : email;
+        longitudes[doc] = (short) Math.min(nombres[doc].length(), Short.MAX_VALUE);
+        String texto = "  " + normalizar(nombres[doc]) + "  " + normalizar(emails[doc]);
+        textos[doc] = texto;
+        ponerPorId(doc);
+
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            int lista = obtenerOCrearLista(trigrama(texto, i));
+            int tamano = tamanos[lista];
+            // Un trigrama repetido en el mismo documento solo se anota una vez
+            if (tamano > 0 && postings[lista][tamano - 1] == doc) {
+                continue;
+            }
+            if (tamano == postings[lista].length) {
+                postings[lista] = Arrays.copyOf(postings[lista], tamano * 2);
+            }
+            postings[lista][tamano] = doc;
+            tamanos[lista] = tamano + 1;
+        }
+    }
+
+    private boolean quitar(UUID id) {
+        int casilla = casillaDe(id);
+        if (casilla < 0) {
+            return false;
+        }
+        borrados.set(porId[casilla]);
+        porId[casilla] = BORRADO;
+        vivos--;
+        return true;
+    }
+
+    private void compactarSiHaceFalta() {
+        int sinUso = documentos - vivos;
+        if (sinUso >= COMPACTAR_DESDE && sinUso > documentos / 4) {
+            compactar();
+        }
+    }
+
+    // Reconstruye las estructuras solo con los documentos vivos
+    private void compactar() {
+        int total = documentos;
+        long[] alto = idsAlto;
+        long[] bajo = idsBajo;
+        String[] nombresAnteriores = nombres;
+        String[] emailsAnteriores = emails;
+        BitSet borradosAnteriores = borrados;
+
+        reiniciar(Math.max(16, Integer.highestOneBit(Math.max(vivos, 1)) * 2));
+        for (int doc = 0; doc < total; doc++) {
+            if (!borradosAnteriores.get(doc)) {
+                insertar(new UUID(alto[doc], bajo[doc]), nombresAnteriores[doc], emailsAnteriores[doc]);
+            }
+        }
+    }
+
+    private void reiniciar(int capacidad) {
+        idsAlto = new long[capacidad];
+        idsBajo = new long[capacidad];
+        nombres = new String[capacidad];
+        emails = new String[capacidad];
+        textos = new String[capacidad];
+        longitudes = new short[capacidad];
+        borrados = new BitSet();
+        documentos = 0;
+        vivos = 0;
+        porId = new int[capacidad * 2];
+        Arrays.fill(porId, LIBRE);
+        ocupadasPorId = 0;
+        claves = new long[1024];
+        listaDe = new int[1024];
+        Arrays.fill(listaDe, LIBRE);
+        postings = new int[512][];
+        tamanos = new int[512];
+        trigramas = 0;
+    }
+
+    // --- UUID -> documento ---
+
+    private int casillaDe(UUID id) {
+        long alto = id.getMostSignificantBits();
+        long bajo = id.getLeastSignificantBits();
+        int mascara = porId.length - 1;
+        for (int casilla = dispersar(alto ^ bajo) & mascara; ; casilla = (casilla + 1) & mascara) {
+            int doc = porId[casilla];
+            if (doc == LIBRE) {
+                return -1;
+            }
+            if (doc >= 0 && idsAlto[doc] == alto && idsBajo[doc] == bajo) {
+                return casilla;
+            }
+        }
+    }
+
+    private void ponerPorId(int doc) {
+        if ((ocupadasPorId + 1) * 10 > porId.length * 6) {
+            redimensionarPorId();
+        }
+        int mascara = porId.length - 1;
+        int casilla = dispersar(idsAlto[doc] ^ idsBajo[doc]) & mascara;
+        while (porId[casilla] >= 0) {
+            casilla = (casilla + 1) & mascara;
+        }
+        if (porId[casilla] == LIBRE) {
+            ocupadasPorId++;
+        }
+        porId[casilla] = doc;
+    }
+
+    // Duplica la tabla si hace falta y descarta las casillas BORRADO
+    private void redimensionarPorId() {
+        int[] anterior = porId;
+        porId = new int[vivos * 10 >= anterior.length * 3 ? anterior.length * 2 : anterior.length];
+        Arrays.fill(porId, LIBRE);
+        ocupadasPorId = 0;
+        int mascara = porId.length - 1;
+        for (int doc : anterior) {
+            if (doc >= 0) {
+                int casilla = dispersar(idsAlto[doc] ^ idsBajo[doc]) & mascara;
+                while (porId[casilla] != LIBRE) {
+                    casilla = (casilla + 1) & mascara;
+                }
+                porId[casilla] = doc;
+                ocupadasPorId++;
+            }
+        }
+    }
+
+    // --- trigrama -> lista de postings ---
+
+    private static long trigrama(String texto, int desde) {
+        return ((long) texto.charAt(desde) << 32) | ((long) texto.charAt(desde + 1) << 16) | texto.charAt(desde + 2);
+    }
+
+    private int buscarLista(long clave) {
+        int mascara = claves.length - 1;
+        for (int casilla = dispersar(clave) & mascara; ; casilla = (casilla + 1) & mascara) {
+            int lista = listaDe[casilla];
+            if (lista == LIBRE || claves[casilla] == clave) {
+                return lista;
+            }
+        }
+    }
+
+    private int obtenerOCrearLista(long clave) {
+        int mascara = claves.length - 1;
+        int casilla = dispersar(clave) & mascara;
+        while (listaDe[casilla] != LIBRE) {
+            if (claves[casilla] == clave) {
+                return listaDe[casilla];
+            }
+            casilla = (casilla + 1) & mascara;
+        }
+        if (trigramas == postings.length) {
+            postings = Arrays.copyOf(postings, trigramas * 2);
+            tamanos = Arrays.copyOf(tamanos, trigramas * 2);
+        }
+        int lista = trigramas++;
+        postings[lista] = new int[4];
+        claves[casilla] = clave;
+        listaDe[casilla] = lista;
+        if (trigramas * 10 > claves.length * 6) {
+            redimensionarTrigramas();
+        }
+        return lista;
+    }
+
+    private void redimensionarTrigramas() {
+        long[] clavesAnteriores = claves;
+        int[] listasAnteriores = listaDe;
+        claves = new long[clavesAnteriores.length * 2];
+        listaDe = new int[clavesAnteriores.length * 2];
+        Arrays.fill(listaDe, LIBRE);
+        int mascara = claves.length - 1;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (listasAnteriores[i] != LIBRE) {
+                int casilla = dispersar(clavesAnteriores[i]) & mascara;
+                while (listaDe[casilla] != LIBRE) {
+                    casilla = (casilla + 1) & mascara;
+                }
+                claves[casilla] = clavesAnteriores[i];
+                listaDe[casilla] = listasAnteriores[i];
+            }
+        }
+    }
+
+    private static int dispersar(long valor) {
+        long mezcla = valor * 0x9E3779B97F4A7C15L;
+        return (int) (mezcla ^ (mezcla >>> 32));
+    }
+
+    private static boolean contiene(int[] valores, int cantidad, int valor) {
+        for (int i = 0; i < cantidad; i++) {
+            if (valores[i] == valor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long array(int bytesPorElemento, int longitud) {
+        return 16 + (long) bytesPorElemento * longitud;
+    }
+
+    private static long cadena(String texto) {
+        return texto == null ? 0 : 24 + array(1, texto.length());
+    }
+}
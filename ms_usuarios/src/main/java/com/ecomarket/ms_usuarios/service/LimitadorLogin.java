@@ -0,0 +1,74 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.exception.DemasiadosIntentosException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Cuota de intentos de login por IP y por email, comprobada antes de AuthService: en una oleada de
+// credential stuffing los intentos sobrantes se rechazan sin consultar la base de datos ni hashear.
+@Component
+public class LimitadorLogin {
+
+    private static final int FRANJAS = 64;
+
+    private final CubetasTokens porIp;
+    private final CubetasTokens porEmail;
+    private final Counter rechazosIp;
+    private final Counter rechazosEmail;
+
+    public LimitadorLogin(@Value("${usuarios.login.limite.ip.intentos:60}") int intentosIp,
+                          @Value("${usuarios.login.limite.ip.periodo:1m}") Duration periodoIp,
+                          @Value("${usuarios.login.limite.email.intentos:10}") int intentosEmail,
+                          @Value("${usuarios.login.limite.email.periodo:1m}") Duration periodoEmail,
+                          @Value("${usuarios.login.limite.maximo-claves:100000}") int maximoClaves,
+                          MeterRegistry registry) {
+        this.porIp = new CubetasTokens(intentosIp, periodoIp, maximoClaves, FRANJAS, System::nanoTime);
+        this.porEmail = new CubetasTokens(intentosEmail, periodoEmail, maximoClaves, FRANJAS, System::nanoTime);
+        this.rechazosIp = contadorRechazos(registry, "limite_ip");
+        this.rechazosEmail = contadorRechazos(registry, "limite_email");
+        medirClaves(registry, "ip", porIp);
+        medirClaves(registry, "email", porEmail);
+    }
+
+    // Consume un intento de la IP y, si queda cuota, del email; si no, DemasiadosIntentosException
+    public void comprobar(String email, String ip) {
+        long espera = porIp.consumir(ip == null ? "" : ip);
+        if (espera > 0) {
+            rechazosIp.increment();
+            throw rechazo(espera);
+        }
+        espera = porEmail.consumir(email.toLowerCase(Locale.ROOT));
+        if (espera > 0) {
+            rechazosEmail.increment();
+            throw rechazo(espera);
+        }
+    }
+
+    private static DemasiadosIntentosException rechazo(long esperaNanos) {
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return new DemasiadosIntentosException("Demasiados intentos de login, reintente en " + segundos + " s", segundos);
+    }
+
+    // Misma serie que AuthService (usuarios.login{resultado, motivo}) para ver los rechazos junto a los fallos
+    private static Counter contadorRechazos(MeterRegistry registry, String motivo) {
+        return Counter.builder(AuthService.METRICA_LOGIN)
+                .description("Intentos de login por resultado y motivo")
+                .tag("resultado", "fallo")
+                .tag("motivo", motivo)
+                .register(registry);
+    }
+
+    private static void medirClaves(MeterRegistry registry, String tipo, CubetasTokens cubetas) {
+        Gauge.builder("usuarios.login.limite.claves", cubetas, CubetasTokens::tamano)
+                .description("Claves con cuota de login en memoria (acotadas por usuarios.login.limite.maximo-claves)")
+                .tag("tipo", tipo)
+                .register(registry);
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Traduce un JSON Merge Patch (RFC 7396) a los cambios de columnas de Usuario.
+// Solo se validan los campos presentes; un null borra el valor (y falla si el campo es obligatorio).
+@Component
+public class ParcheUsuario {
+
+    static final String CONTRASENA = "contraseña";
+
+    // Nombre en el JSON -> propiedad de la entidad
+    private static final Map<String, String> CAMPOS = Map.of(
+            "nombre", "nombre",
+            "email", "email",
+            "contrasena", CONTRASENA,
+            "direccion", "direccion",
+            "telefono", "telefono",
+            "rol", "rol"
+    );
+
+    private final Validator validator;
+
+    public ParcheUsuario(Validator validator) {
+        this.validator = validator;
+    }
+
+    public Map<String, Object> aCambios(Map<String, Object> parche) {
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        Set<ConstraintViolation<Usuario>> violaciones = new LinkedHashSet<>();
+
+        parche.forEach((campo, valorJson) -> {
+            String propiedad = CAMPOS.get(campo);
+            if (propiedad == null) {
+                throw new IllegalArgumentException("El campo no se puede modificar: " + campo);
+            }
+            Object valor = convertir(propiedad, valorJson);
+            violaciones.addAll(validator.validateValue(Usuario.class, propiedad, valor));
+            cambios.put(propiedad, valor);
+        });
+
+        if (!violaciones.isEmpty()) {
+            throw new ConstraintViolationException(violaciones);
+        }
+        return cambios;
+    }
+
+    private static Object convertir(String propiedad, Object valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (valor instanceof Map<?, ?> || valor instanceof List<?>) {
+            throw new IllegalArgumentException("El campo " + propiedad + " debe ser un valor simple");
+        }
+        String texto = valor.toString();
+        if ("rol".equals(propiedad)) {
+            try {
+                return Rol.valueOf(texto);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Rol inválido: " + texto);
+            }
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.util.List;
+
+import com.ecomarket.ms_usuarios.dto.EventoUsuario;
+
+// Destino de los eventos de usuario (broker, archivo, memoria en pruebas). Recibe cada lote en el orden
+// de la outbox y debe conservarlo al menos entre eventos del mismo usuario. Si lanza una excepción,
+// ningún evento del lote se da por publicado y el lote entero se reintenta.
+public interface PublicadorEventos {
+
+    void publicar(List<EventoUsuario> eventos);
+}
@@ -0,0 +1,39 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.ecomarket.ms_usuarios.dto.EventoUsuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Publica los eventos como NDJSON (un evento por línea) al final de un archivo: para desarrollo,
+// pruebas o para que un agente de logs los reenvíe.
+public class PublicadorEventosArchivo implements PublicadorEventos {
+
+    private final Path archivo;
+    private final ObjectMapper objectMapper;
+
+    public PublicadorEventosArchivo(Path archivo, ObjectMapper objectMapper) {
+        this.archivo = archivo;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoUsuario> eventos) {
+        try (BufferedWriter salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (EventoUsuario evento : eventos) {
+                salida.write(objectMapper.writeValueAsString(evento));
+                salida.newLine();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudieron escribir los eventos en " + archivo, ex);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecomarket.ms_usuarios.exception.CursorCaducadoException;
+import com.ecomarket.ms_usuarios.model.CambioUsuario;
+import com.ecomarket.ms_usuarios.model.ContadorCambios;
+import com.ecomarket.ms_usuarios.model.EventoOutbox;
+import com.ecomarket.ms_usuarios.repository.CambioUsuarioRepository;
+import com.ecomarket.ms_usuarios.repository.ContadorCambiosRepository;
+
+// Registro de cambios con secuencia monótona para el feed incremental. Las entradas las añade el relevo
+// de la outbox en la transacción de cada lote: la secuencia continúa la de la fila contador, leída con
+// bloqueo, así que los lotes se numeran de uno en uno (también con el registro vacío) y una secuencia solo
+// es visible cuando todas las anteriores ya lo son. Un consumidor que pide "después de N" nunca se salta
+// un cambio.
+@Component
+public class RegistroCambios {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroCambios.class);
+
+    private final CambioUsuarioRepository repository;
+    private final ContadorCambiosRepository contadores;
+    private final TransactionTemplate nueva;
+    private final Duration retencion;
+
+    public RegistroCambios(CambioUsuarioRepository repository, ContadorCambiosRepository contadores,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${usuarios.cambios.retencion:P7D}") Duration retencion) {
+        this.repository = repository;
+        this.contadores = contadores;
+        this.nueva = new TransactionTemplate(transactionManager);
+        this.nueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retencion = retencion;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void anotar(List<EventoOutbox> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        ContadorCambios contador = contadores.bloquear(ContadorCambios.ID)
+                .orElseGet(() -> {
+                    crearContador();
+                    return contadores.bloquear(ContadorCambios.ID).orElseThrow();
+                });
+        long secuencia = contador.getUltima();
+        List<CambioUsuario> cambios = new ArrayList<>(eventos.size());
+        for (EventoOutbox evento : eventos) {
+            cambios.add(new CambioUsuario(++secuencia, evento));
+        }
+        contador.setUltima(secuencia);
+        repository.saveAll(cambios);
+    }
+
+    // Solo la primera vez, en su propia transacción para que los demás relevos lo vean al bloquearlo.
+    // Si otro relevo lo crea a la vez, su INSERT gana y este solo tiene que bloquearlo.
+    private void crearContador() {
+        try {
+            nueva.executeWithoutResult(estado -> contadores.crear(ContadorCambios.ID));
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Contador del registro de cambios creado por otro relevo");
+        }
+    }
+
+    // Cambios posteriores a "desde", en orden. Falla si la retención ya purgó alguno de los que siguen a "desde".
+    @Transactional(readOnly = true)
+    public List<CambioUsuario> leer(long desde, int limite) {
+        List<CambioUsuario> cambios = repository.findBySecuenciaGreaterThanOrderBySecuencia(desde, Limit.of(limite));
+        // Si el primero devuelto es el siguiente a "desde" no falta nada; si no, se comprueba si hubo purga
+        if (cambios.isEmpty() || cambios.get(0).getSecuencia() != desde + 1) {
+            Long primera = repository.primeraSecuencia();
+            if (primera != null && desde < primera - 1) {
+                throw new CursorCaducadoException("Los cambios posteriores a " + desde
+                        + " ya no se conservan; el primero disponible es " + primera);
+            }
+        }
+        return cambios;
+    }
+
+    @Transactional(readOnly = true)
+    public long ultimaSecuencia() {
+        Long ultima = repository.ultimaSecuencia();
+        return ultima == null ? 0 : ultima;
+    }
+
+    @Scheduled(fixedDelayString = "${usuarios.cambios.purga:PT1H}", initialDelayString = "${usuarios.cambios.purga:PT1H}")
+    @Transactional
+    public void purgar() {
+        Long ultima = repository.ultimaSecuencia();
+        if (ultima == null) {
+            return;
+        }
+        int purgados = repository.purgarAnteriores(Instant.now().minus(retencion), ultima);
+        if (purgados > 0) {
+            log.info("Registro de cambios: {} entradas anteriores a {} purgadas", purgados, retencion);
+        }
+    }
+}
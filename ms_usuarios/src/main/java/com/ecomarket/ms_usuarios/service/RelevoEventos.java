@@ -0,0 +1,85 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecomarket.ms_usuarios.dto.EventoUsuario;
+import com.ecomarket.ms_usuarios.model.EventoOutbox;
+import com.ecomarket.ms_usuarios.repository.EventoOutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Vacía la outbox en segundo plano: cada lote se bloquea, se anota en el registro de cambios (feed
+// incremental), se publica en orden y se borra en la misma transacción. Si la publicación falla, el
+// rollback deja el lote para el siguiente intento, así que la entrega es al menos una vez y los
+// consumidores descartan duplicados por el id del evento; el feed tampoco avanza hasta entonces.
+@Component
+public class RelevoEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(RelevoEventos.class);
+
+    private final EventoOutboxRepository repository;
+    private final PublicadorEventos publicador;
+    private final RegistroCambios registroCambios;
+    private final TransactionTemplate transaccion;
+    private final int tamanoLote;
+    private final Counter publicados;
+    private final Counter fallos;
+
+    public RelevoEventos(EventoOutboxRepository repository, PublicadorEventos publicador,
+                         RegistroCambios registroCambios,
+                         TransactionTemplate transaccion,
+                         @Value("${usuarios.eventos.relevo.lote:100}") int tamanoLote,
+                         MeterRegistry registry) {
+        this.repository = repository;
+        this.publicador = publicador;
+        this.registroCambios = registroCambios;
+        this.transaccion = transaccion;
+        this.tamanoLote = tamanoLote;
+        this.publicados = Counter.builder("usuarios.eventos.publicados")
+                .description("Eventos de usuario publicados y purgados de la outbox")
+                .register(registry);
+        this.fallos = Counter.builder("usuarios.eventos.fallos")
+                .description("Lotes de la outbox cuya publicación falló (se reintentan)")
+                .register(registry);
+    }
+
+    // Lotes seguidos hasta vaciar la outbox; tras un fallo se espera al siguiente intervalo
+    @Scheduled(fixedDelayString = "${usuarios.eventos.relevo.intervalo:PT1S}",
+            initialDelayString = "${usuarios.eventos.relevo.intervalo:PT1S}")
+    public void relevar() {
+        try {
+            while (relevarLote() == tamanoLote) {
+                // siguiente lote
+            }
+        } catch (RuntimeException ex) {
+            fallos.increment();
+            log.warn("No se pudo publicar un lote de eventos de usuario; se reintentará: {}", ex.getMessage());
+        }
+    }
+
+    // Devuelve el número de eventos publicados
+    public int relevarLote() {
+        Integer cantidad = transaccion.execute(estado -> {
+            List<EventoOutbox> lote = repository.bloquearSiguientes(Limit.of(tamanoLote));
+            if (lote.isEmpty()) {
+                return 0;
+            }
+            // El registro de cambios del feed se numera en la misma transacción que el borrado del lote
+            registroCambios.anotar(lote);
+            publicador.publicar(lote.stream().map(EventoUsuario::de).toList());
+            repository.deleteAllByIdInBatch(lote.stream().map(EventoOutbox::getId).toList());
+            return lote.size();
+        });
+        publicados.increment(cantidad);
+        return cantidad;
+    }
+}
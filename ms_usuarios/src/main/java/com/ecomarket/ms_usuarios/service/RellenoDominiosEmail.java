@@ -0,0 +1,31 @@
+package com.ecomarket.ms_usuarios.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+
+// ddl-auto=update añade email_dominio vacía en las tablas existentes: se rellena al arrancar.
+// Una vez completada, el UPDATE no encuentra filas y solo cuesta una consulta por índice.
+@Component
+public class RellenoDominiosEmail implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RellenoDominiosEmail.class);
+
+    private final UsuarioRepository repository;
+
+    public RellenoDominiosEmail(UsuarioRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int filas = repository.rellenarDominiosEmail();
+        if (filas > 0) {
+            log.info("email_dominio rellenado en {} usuarios", filas);
+        }
+    }
+}
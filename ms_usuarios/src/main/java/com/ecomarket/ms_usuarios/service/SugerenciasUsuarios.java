@@ -0,0 +1,189 @@
+package com.ecomarket.ms_usuarios.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecomarket.ms_usuarios.dto.Sugerencia;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.exception.CursorCaducadoException;
+import com.ecomarket.ms_usuarios.model.CambioUsuario;
+import com.ecomarket.ms_usuarios.model.TipoEvento;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+// Índice de sugerencias sobre nombre y email (ver IndiceTrigramas).
+// - Se construye al arrancar recorriendo la tabla con el stream de exportación, sin cargarla entera.
+// - Los cambios se aplican al confirmar la transacción que los hace; los que llegan durante una
+//   reconstrucción se repiten sobre el índice nuevo antes de publicarlo.
+// - Los de otras instancias llegan por el registro de cambios (RegistroCambios): sincronizar() lee las
+//   entradas posteriores a la última aplicada. Los propios vuelven a llegar por ahí, y añadir o quitar un
+//   usuario es idempotente. Si la retención ya purgó entradas pendientes, se reconstruye.
+@Component
+// Antes que CalentamientoArranque (LOWEST_PRECEDENCE): el calentamiento encuentra el índice ya construido
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class SugerenciasUsuarios implements ApplicationRunner {
+
+    public static final int MAXIMO_SUGERENCIAS = 20;
+
+    private static final Logger log = LoggerFactory.getLogger(SugerenciasUsuarios.class);
+
+    private static final int LOTE_CAMBIOS = 500;
+
+    private final UsuarioRepository repository;
+    private final RegistroCambios registroCambios;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate lectura;
+    // Serializa reconstrucciones y sincronizaciones, que mueven la secuencia
+    private final Object pasada = new Object();
+
+    private volatile IndiceTrigramas indice = new IndiceTrigramas();
+    // Cambios aplicados mientras se reconstruye; null fuera de una reconstrucción
+    private List<Consumer<IndiceTrigramas>> pendientes;
+    // Última entrada del registro de cambios reflejada en el índice
+    private long secuencia;
+
+    public SugerenciasUsuarios(UsuarioRepository repository, RegistroCambios registroCambios, ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.repository = repository;
+        this.registroCambios = registroCambios;
+        this.objectMapper = objectMapper;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+
+        Gauge.builder("usuarios.sugerencias.memoria", this, sugerencias -> sugerencias.indice.bytesEstimados())
+                .description("Memoria estimada del índice de sugerencias")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("usuarios.sugerencias.usuarios", this, sugerencias -> sugerencias.indice.tamano())
+                .description("Usuarios en el índice de sugerencias")
+                .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reconstruir();
+    }
+
+    public void reconstruir() {
+        synchronized (pasada) {
+            // Antes de leer la tabla: lo anotado después se repite al sincronizar
+            long desde = registroCambios.ultimaSecuencia();
+            reconstruirIndice();
+            secuencia = desde;
+        }
+    }
+
+    // Cambios de cualquier instancia anotados desde la última pasada
+    @Scheduled(fixedDelayString = "${usuarios.sugerencias.sincronizacion:PT2S}",
+            initialDelayString = "${usuarios.sugerencias.sincronizacion:PT2S}")
+    public void sincronizar() {
+        synchronized (pasada) {
+            List<CambioUsuario> cambios;
+            do {
+                try {
+                    cambios = registroCambios.leer(secuencia, LOTE_CAMBIOS);
+                } catch (CursorCaducadoException ex) {
+                    log.warn("Índice de sugerencias desfasado más allá de la retención, se reconstruye");
+                    reconstruir();
+                    return;
+                }
+                for (CambioUsuario cambio : cambios) {
+                    aplicar(cambio);
+                    secuencia = cambio.getSecuencia();
+                }
+            } while (cambios.size() == LOTE_CAMBIOS);
+        }
+    }
+
+    private void aplicar(CambioUsuario cambio) {
+        if (cambio.getTipo() == TipoEvento.ELIMINADO) {
+            aplicar(indice -> indice.eliminar(cambio.getUsuarioId()));
+            return;
+        }
+        try {
+            UsuarioResumen usuario = objectMapper.readValue(cambio.getDatos(), UsuarioResumen.class);
+            aplicar(indice -> indice.agregar(usuario.id(), usuario.nombre(), usuario.email()));
+        } catch (JsonProcessingException ex) {
+            log.warn("Cambio {} ilegible, se omite en el índice de sugerencias: {}", cambio.getSecuencia(), ex.getMessage());
+        }
+    }
+
+    private void reconstruirIndice() {
+        IndiceTrigramas nuevo = new IndiceTrigramas();
+        synchronized (this) {
+            pendientes = new ArrayList<>();
+        }
+        try {
+            lectura.executeWithoutResult(estado -> {
+                try (Stream<UsuarioResumen> usuarios = repository.streamResumenes()) {
+                    usuarios.forEach(usuario -> nuevo.agregar(usuario.id(), usuario.nombre(), usuario.email()));
+                }
+            });
+            nuevo.recortar();
+            synchronized (this) {
+                pendientes.forEach(cambio -> cambio.accept(nuevo));
+                indice = nuevo;
+            }
+        } finally {
+            synchronized (this) {
+                pendientes = null;
+            }
+        }
+        log.info("Índice de sugerencias: {} usuarios, {} trigramas, {} KiB",
+                nuevo.tamano(), nuevo.trigramas(), nuevo.bytesEstimados() / 1024);
+    }
+
+    public List<Sugerencia> sugerir(String consulta, int maximo) {
+        return indice.buscar(consulta, maximo);
+    }
+
+    public void indexar(UUID id, String nombre, String email) {
+        alConfirmar(indice -> indice.agregar(id, nombre, email));
+    }
+
+    public void eliminar(UUID id) {
+        alConfirmar(indice -> indice.eliminar(id));
+    }
+
+    // Un rollback no deja rastro en el índice
+    private void alConfirmar(Consumer<IndiceTrigramas> cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(cambio);
+                }
+            });
+        } else {
+            aplicar(cambio);
+        }
+    }
+
+    private synchronized void aplicar(Consumer<IndiceTrigramas> cambio) {
+        cambio.accept(indice);
+        if (pendientes != null) {
+            pendientes.add(cambio);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.config.CacheConfig;
+import com.ecomarket.ms_usuarios.config.DataSourceEnrutado;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Caché de lectura delante del repositorio.
+// - Por id se guarda una copia del usuario; por email solo se guarda el id, así un cambio de
+//   correo no deja datos viejos colgados: la entrada email -> id se valida contra el usuario.
+// - Siempre se devuelven copias, porque los llamadores modifican la entidad antes de guardarla.
+// - Las lecturas públicas usan su propia región de UsuarioResumen (inmutable, sin contraseña);
+//   la de entidades queda para el login, que necesita el hash.
+// - Con réplica de lectura, un usuario invalidado hace menos del retraso de replicación se carga del
+//   primario: la réplica aún podría devolver el estado anterior y quedaría en caché hasta el TTL.
+@Component
+public class UsuarioCache {
+
+    private final Cache porId;
+    private final Cache porEmail;
+    private final Cache resumenes;
+
+    // Se incrementa en cada invalidación; una carga que se cruzó con una escritura no se queda en caché
+    private final AtomicLong generacion = new AtomicLong();
+
+    // Ids y emails invalidados dentro del retraso de replicación; null sin réplica
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Boolean> recientes;
+
+    public UsuarioCache(CacheManager cacheManager,
+                        @Value("${usuarios.datasource.replica.retraso-maximo:0s}") Duration retrasoReplica) {
+        this.porId = cacheManager.getCache(CacheConfig.USUARIOS_POR_ID);
+        this.porEmail = cacheManager.getCache(CacheConfig.USUARIOS_POR_EMAIL);
+        this.resumenes = cacheManager.getCache(CacheConfig.RESUMENES_POR_ID);
+        this.recientes = retrasoReplica.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(retrasoReplica)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public Optional<Usuario> porId(UUID id, Function<UUID, Optional<Usuario>> cargador) {
+        Usuario enCache = porId.get(id, Usuario.class);
+        if (enCache != null) {
+            return Optional.of(copiar(enCache));
+        }
+        return cargar(id, cargador);
+    }
+
+    public Optional<Usuario> porEmail(String email, Function<String, Optional<Usuario>> cargador) {
+        UUID id = porEmail.get(email, UUID.class);
+        if (id != null) {
+            Usuario enCache = porId.get(id, Usuario.class);
+            if (enCache != null && email.equals(enCache.getEmail())) {
+                return Optional.of(copiar(enCache));
+            }
+        }
+        return cargar(email, cargador);
+    }
+
+    public Optional<UsuarioResumen> resumenPorId(UUID id, Function<UUID, Optional<UsuarioResumen>> cargador) {
+        UsuarioResumen enCache = resumenes.get(id, UsuarioResumen.class);
+        if (enCache != null) {
+            return Optional.of(enCache);
+        }
+        long inicio = generacion.get();
+        Optional<UsuarioResumen> cargado = leer(id, cargador);
+        cargado.ifPresent(resumen -> {
+            resumenes.put(id, resumen);
+            if (generacion.get() != inicio) {
+                resumenes.evict(id);
+            }
+        });
+        return cargado;
+    }
+
+    // Solo consulta la región de resúmenes; un fallo no carga nada
+    public Optional<Long> versionEnCache(UUID id) {
+        return Optional.ofNullable(resumenes.get(id, UsuarioResumen.class)).map(UsuarioResumen::version);
+    }
+
+    // Se invalida de inmediato y otra vez al terminar la transacción, para descartar lo que
+    // otro hilo haya leído de la base de datos antes del commit.
+    public void invalidar(UUID id, String email) {
+        desalojar(id, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    desalojar(id, email);
+                }
+            });
+        }
+    }
+
+    private <K> Optional<Usuario> cargar(K clave, Function<K, Optional<Usuario>> cargador) {
+        long inicio = generacion.get();
+        Optional<Usuario> cargado = leer(clave, cargador);
+        cargado.ifPresent(usuario -> {
+            Usuario copia = copiar(usuario);
+            porId.put(copia.getId(), copia);
+            porEmail.put(copia.getEmail(), copia.getId());
+            // Primero se guarda y luego se comprueba: si hubo una invalidación entre medio, se deshace
+            if (generacion.get() != inicio) {
+                porId.evict(copia.getId());
+            }
+        });
+        return cargado;
+    }
+
+    private <K, V> V leer(K clave, Function<K, V> cargador) {
+        if (recientes != null && recientes.getIfPresent(clave) != null) {
+            return DataSourceEnrutado.enPrimaria(() -> cargador.apply(clave));
+        }
+        return cargador.apply(clave);
+    }
+
+    private void desalojar(UUID id, String email) {
+        generacion.incrementAndGet();
+        if (recientes != null) {
+            if (id != null) {
+                recientes.put(id, Boolean.TRUE);
+            }
+            if (email != null) {
+                recientes.put(email, Boolean.TRUE);
+            }
+        }
+        if (id != null) {
+            porId.evict(id);
+            resumenes.evict(id);
+        }
+        if (email != null) {
+            porEmail.evict(email);
+        }
+    }
+
+    private static Usuario copiar(Usuario usuario) {
+        return new Usuario(
+                usuario.getId(),
+                usuario.getNombre(),
+                usuario.getEmail(),
+                usuario.getContraseña(),
+                usuario.getDireccion(),
+                usuario.getTelefono(),
+                usuario.getRol(),
+                usuario.getVersion()
+        );
+    }
+}
@@ -0,0 +1,175 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.dto.ResultadoLote;
+import com.ecomarket.ms_usuarios.exception.ViolacionesIntegridad;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Altas masivas: una sola consulta IN para los correos existentes y los INSERT enviados en
+// lotes JDBC (hibernate.jdbc.batch_size), un bloque por transacción.
+// Las contraseñas se hashean en paralelo antes de abrir ninguna transacción de escritura.
+// La consulta previa no ve un correo dado de alta a la vez por otra petición: el índice único rechaza
+// ese bloque, que se deshace y se reintenta usuario a usuario para informar solo del que falló.
+@Service
+public class UsuarioLoteService {
+
+    public static final int MAXIMO_POR_LOTE = 5000;
+
+    private final UsuarioRepository repository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final HashContrasenas hashContrasenas;
+    private final TransactionTemplate transaccion;
+    private final SugerenciasUsuarios sugerencias;
+    private final FiltroEmails filtroEmails;
+    private final EventosUsuario eventos;
+    private final int tamanoBloque;
+
+    public UsuarioLoteService(UsuarioRepository repository,
+                              EntityManager entityManager,
+                              Validator validator,
+                              HashContrasenas hashContrasenas,
+                              TransactionTemplate transaccion,
+                              SugerenciasUsuarios sugerencias,
+                              FiltroEmails filtroEmails,
+                              EventosUsuario eventos,
+                              @Value("${usuarios.lote.tamano:100}") int tamanoBloque) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.hashContrasenas = hashContrasenas;
+        this.transaccion = transaccion;
+        this.sugerencias = sugerencias;
+        this.filtroEmails = filtroEmails;
+        this.eventos = eventos;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    public ResultadoLote crearUsuarios(List<Usuario> usuarios) {
+        // Los correos se comparan sin distinguir mayúsculas, igual que la collation de MySQL
+        Set<String> recibidos = usuarios.stream()
+                .filter(Objects::nonNull)
+                .map(Usuario::getEmail)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> existentes = recibidos.isEmpty() ? Set.of() : repository.findEmailsExistentes(recibidos).stream()
+                .map(UsuarioLoteService::normalizar)
+                .collect(Collectors.toSet());
+
+        Set<String> vistos = new HashSet<>();
+        ResultadoLote.Item[] resultados = new ResultadoLote.Item[usuarios.size()];
+        List<Integer> aceptados = new ArrayList<>();
+
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario usuario = usuarios.get(i);
+            List<String> errores = validar(usuario);
+            if (errores.isEmpty()) {
+                String email = normalizar(usuario.getEmail());
+                if (existentes.contains(email)) {
+                    errores = List.of(ViolacionesIntegridad.MENSAJE_EMAIL_DUPLICADO);
+                } else if (!vistos.add(email)) {
+                    errores = List.of("El correo está repetido en el lote");
+                }
+            }
+            if (errores.isEmpty()) {
+                aceptados.add(i);
+            } else {
+                resultados[i] = ResultadoLote.Item.error(i, usuario == null ? null : usuario.getEmail(), errores);
+            }
+        }
+
+        // Solo se hashean los que se van a insertar, y sin conexión abierta mientras tanto
+        List<String> hashes = hashContrasenas.hashearTodos(aceptados.stream()
+                .map(indice -> usuarios.get(indice).getContraseña())
+                .toList());
+
+        for (int i = 0; i < aceptados.size(); i++) {
+            usuarios.get(aceptados.get(i)).setContraseña(hashes.get(i));
+        }
+
+        int creados = 0;
+        for (int desde = 0; desde < aceptados.size(); desde += tamanoBloque) {
+            List<Integer> bloque = aceptados.subList(desde, Math.min(desde + tamanoBloque, aceptados.size()));
+            try {
+                insertar(usuarios, bloque, resultados);
+                creados += bloque.size();
+            } catch (RuntimeException ex) {
+                if (!ViolacionesIntegridad.esViolacion(ex)) {
+                    throw ex;
+                }
+                for (int indice : bloque) {
+                    try {
+                        insertar(usuarios, List.of(indice), resultados);
+                        creados++;
+                    } catch (RuntimeException exUsuario) {
+                        if (!ViolacionesIntegridad.esViolacion(exUsuario)) {
+                            throw exUsuario;
+                        }
+                        resultados[indice] = ResultadoLote.Item.error(indice, usuarios.get(indice).getEmail(),
+                                List.of(ViolacionesIntegridad.esEmailDuplicado(exUsuario)
+                                        ? ViolacionesIntegridad.MENSAJE_EMAIL_DUPLICADO
+                                        : "La base de datos rechazó el usuario"));
+                    }
+                }
+            }
+        }
+
+        return new ResultadoLote(creados, usuarios.size() - creados, List.of(resultados));
+    }
+
+    // Un bloque en su transacción; los resultados solo se anotan si se confirma
+    private void insertar(List<Usuario> usuarios, List<Integer> bloque, ResultadoLote.Item[] resultados) {
+        List<ResultadoLote.Item> creados = new ArrayList<>(bloque.size());
+        transaccion.executeWithoutResult(estado -> {
+            for (int indice : bloque) {
+                Usuario usuario = usuarios.get(indice);
+                // Siempre es un alta: el id lo asigna el generador. Sin versión, por si es un reintento
+                // tras deshacer el bloque
+                usuario.setId(null);
+                usuario.setVersion(null);
+                filtroEmails.registrar(usuario.getEmail());
+                entityManager.persist(usuario);
+                eventos.creado(usuario);
+                creados.add(ResultadoLote.Item.creado(indice, usuario.getEmail(), usuario.getId()));
+                // Se aplica al confirmar la transacción
+                sugerencias.indexar(usuario.getId(), usuario.getNombre(), usuario.getEmail());
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        creados.forEach(item -> resultados[item.indice()] = item);
+    }
+
+    private List<String> validar(Usuario usuario) {
+        if (usuario == null) {
+            return List.of("El usuario es obligatorio");
+        }
+        return validator.validate(usuario).stream()
+                .sorted(Comparator.comparing(violacion -> violacion.getPropertyPath().toString()))
+                .map(UsuarioLoteService::mensaje)
+                .toList();
+    }
+
+    private static String mensaje(ConstraintViolation<Usuario> violacion) {
+        return violacion.getPropertyPath() + ": " + violacion.getMessage();
+    }
+
+    private static String normalizar(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
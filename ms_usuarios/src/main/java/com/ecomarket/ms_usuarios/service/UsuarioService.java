@@ -1,60 +1,315 @@
 package com.ecomarket.ms_usuarios.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.ecomarket.ms_usuarios.dto.FiltroUsuarios;
+import com.ecomarket.ms_usuarios.dto.Pagina;
+import com.ecomarket.ms_usuarios.dto.Sugerencia;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.exception.ViolacionesIntegridad;
 import com.ecomarket.ms_usuarios.model.Usuario;
 import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
-
-import jakarta.transaction.Transactional;
+import com.ecomarket.ms_usuarios.repository.UsuarioSpecs;
 
 @Service
 public class UsuarioService {
 
+    public static final int LIMITE_MAXIMO = 500;
+    // Tope de ids por purga: mantiene el DELETE ... IN muy por debajo del límite de parámetros
+    public static final int MAXIMO_BORRADO = 1_000;
+
     private final UsuarioRepository repository;
+    private final UsuarioCache cache;
+    private final ParcheUsuario parcheUsuario;
+    private final HashContrasenas hashContrasenas;
+    private final SugerenciasUsuarios sugerencias;
+    private final FiltroEmails filtroEmails;
+    private final TransactionTemplate transaccion;
+    private final EventosUsuario eventos;
 
-    public UsuarioService(UsuarioRepository repository) {
+    public UsuarioService(UsuarioRepository repository, UsuarioCache cache,
+                          ParcheUsuario parcheUsuario, HashContrasenas hashContrasenas,
+                          SugerenciasUsuarios sugerencias, FiltroEmails filtroEmails,
+                          TransactionTemplate transaccion, EventosUsuario eventos) {
         this.repository = repository;
+        this.cache = cache;
+        this.parcheUsuario = parcheUsuario;
+        this.hashContrasenas = hashContrasenas;
+        this.sugerencias = sugerencias;
+        this.filtroEmails = filtroEmails;
+        this.transaccion = transaccion;
+        this.eventos = eventos;
+    }
+
+    // Las lecturas usan proyecciones en transacciones de solo lectura: con Hibernate, Spring pone
+    // la sesión en FlushMode.MANUAL y en modo read-only, así que no hay flush ni snapshots.
+    @Transactional(readOnly = true)
+    public Pagina<UsuarioResumen> listarUsuarios(String cursor, int limite) {
+        validarLimite(limite);
+
+        // Se pide un elemento extra para saber si existe una página siguiente
+        Limit ventana = Limit.of(limite + 1);
+        List<UsuarioResumen> usuarios = (cursor == null || cursor.isBlank())
+                ? repository.findResumenes(ventana)
+                : repository.findResumenesDespuesDe(CursorPaginacion.decodificar(cursor), ventana);
+
+        return paginar(usuarios, limite);
+    }
+
+    // Búsqueda por rol, prefijo de nombre y dominio de email con la misma paginación por cursor.
+    // Sin ningún filtro se rechaza: sería listarUsuarios sin la ventaja de un índice.
+    @Transactional(readOnly = true)
+    public Pagina<UsuarioResumen> buscarUsuarios(FiltroUsuarios filtro, String cursor, int limite) {
+        validarLimite(limite);
+        if (filtro.vacio()) {
+            throw new IllegalArgumentException("Indique al menos un filtro: rol, nombre o dominio");
+        }
+
+        List<Specification<Usuario>> condiciones = new ArrayList<>();
+        if (filtro.rol() != null) {
+            condiciones.add(UsuarioSpecs.conRol(filtro.rol()));
+        }
+        if (filtro.nombre() != null) {
+            condiciones.add(UsuarioSpecs.nombreEmpiezaPor(filtro.nombre()));
+        }
+        if (filtro.dominio() != null) {
+            condiciones.add(UsuarioSpecs.emailEnDominio(filtro.dominio()));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            condiciones.add(UsuarioSpecs.idDespuesDe(CursorPaginacion.decodificar(cursor)));
+        }
+
+        return paginar(repository.buscarResumenes(Specification.allOf(condiciones), limite + 1), limite);
+    }
+
+    private static void validarLimite(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+    }
+
+    // "usuarios" trae hasta limite + 1 elementos; el sobrante solo indica que hay página siguiente
+    private static Pagina<UsuarioResumen> paginar(List<UsuarioResumen> usuarios, int limite) {
+        if (usuarios.size() <= limite) {
+            return new Pagina<>(usuarios, null);
+        }
+        List<UsuarioResumen> contenido = usuarios.subList(0, limite);
+        return new Pagina<>(contenido, CursorPaginacion.codificar(contenido.get(limite - 1).id()));
     }
 
-    public List<Usuario> listarUsuarios() {
-        return repository.findAll();
+    // Entrega los usuarios uno a uno; al ser proyecciones el contexto de persistencia no crece
+    // con el tamaño de la tabla.
+    @Transactional(readOnly = true)
+    public void exportarUsuarios(Consumer<UsuarioResumen> consumidor) {
+        try (Stream<UsuarioResumen> usuarios = repository.streamResumenes()) {
+            usuarios.forEach(consumidor);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UsuarioResumen> obtenerResumenPorId(UUID id) {
+        return cache.resumenPorId(id, repository::findResumenById);
     }
 
-    public Optional<Usuario> obtenerUsuarioPorId(UUID id) {
-        return repository.findById(id);
+    // Versión actual para las peticiones condicionales: sale del resumen en caché si lo hay y, si no,
+    // de una consulta que solo lee esa columna
+    @Transactional(readOnly = true)
+    public Optional<Long> obtenerVersion(UUID id) {
+        return cache.versionEnCache(id).or(() -> repository.findVersionById(id));
+    }
+
+    // Sale del índice en memoria, sin consultar la base de datos
+    public List<Sugerencia> sugerirUsuarios(String consulta, int maximo) {
+        return sugerencias.sugerir(consulta, maximo);
     }
 
     public Optional<Usuario> obtenerUsuarioPorEmail(String email) {
-        return repository.findByEmail(email);
+        return cache.porEmail(email, repository::findByEmail);
     }
 
-    @Transactional
+    // Alta (POST). El hash se calcula antes de pedir conexión; la transacción cubre solo el INSERT y el
+    // evento en la outbox, que se confirman o descartan juntos.
     public Usuario guardarUsuario(Usuario usuario) {
         if (usuario.getRol() == null) {
             throw new IllegalArgumentException("El rol es obligatorio");
         }
+        // Siempre es un alta: un id en el cuerpo no se respeta (el generador asigna uno nuevo) y con él
+        // se anotaría un ACTUALIZADO de un usuario que en realidad se crea
+        usuario.setId(null);
+        usuario.setContraseña(hashContrasenas.hashear(usuario.getContraseña()));
 
-        Optional<Usuario> existente = repository.findByEmail(usuario.getEmail());
-        if (existente.isPresent() && !existente.get().getId().equals(usuario.getId())) {
-            throw new IllegalArgumentException("Ya existe un usuario con ese correo");
-        }
+        // Antes del INSERT: el usuario puede hacer login en cuanto se confirma
+        filtroEmails.registrar(usuario.getEmail());
 
+        // Sin consulta previa por email: el índice único uk_usuario_email rechaza los duplicados
+        // en el mismo INSERT, también cuando dos altas llegan a la vez.
         try {
-            return repository.save(usuario);
+            Usuario guardado = transaccion.execute(estado -> {
+                Usuario fila = repository.saveAndFlush(usuario);
+                eventos.creado(fila);
+                return fila;
+            });
+            cache.invalidar(guardado.getId(), guardado.getEmail());
+            sugerencias.indexar(guardado.getId(), guardado.getNombre(), guardado.getEmail());
+            return guardado;
+        } catch (DataIntegrityViolationException ex) {
+            if (ViolacionesIntegridad.esEmailDuplicado(ex)) {
+                throw new IllegalArgumentException(ViolacionesIntegridad.MENSAJE_EMAIL_DUPLICADO, ex);
+            }
+            throw new RuntimeException("Error al guardar el usuario: " + ex.getMessage(), ex);
         } catch (DataAccessException ex) {
             throw new RuntimeException("Error al guardar el usuario: " + ex.getMessage(), ex);
         }
     }
 
-    public void eliminarUsuario(UUID id) {
-        if (!repository.existsById(id)) {
-            throw new IllegalArgumentException("Usuario con ID no encontrado: " + id);
+    public Optional<Usuario> actualizarUsuario(UUID id, Usuario datos) {
+        return actualizarUsuario(id, datos, null);
+    }
+
+    // Reemplazo completo (PUT) en un único UPDATE: sin lectura previa ni merge, que añadiría un SELECT.
+    // Se escriben todas las columnas, así que la respuesta se construye sin volver a leer la fila.
+    // Con versionEsperada (If-Match) el UPDATE solo aplica si la fila sigue en esa versión.
+    public Optional<Usuario> actualizarUsuario(UUID id, Usuario datos, Long versionEsperada) {
+        if (datos.getRol() == null) {
+            throw new IllegalArgumentException("El rol es obligatorio");
+        }
+        String hash = hashContrasenas.hashear(datos.getContraseña());
+
+        Map<String, Object> campos = new LinkedHashMap<>();
+        campos.put("nombre", datos.getNombre());
+        campos.put("email", datos.getEmail());
+        campos.put(ParcheUsuario.CONTRASENA, hash);
+        campos.put("direccion", datos.getDireccion());
+        campos.put("telefono", datos.getTelefono());
+        campos.put("rol", datos.getRol());
+
+        // Solo se conoce la versión resultante si el UPDATE estaba condicionado a una concreta
+        Long version = versionEsperada == null ? null : versionEsperada + 1;
+        Usuario actualizado = new Usuario(id, datos.getNombre(), datos.getEmail(), hash,
+                datos.getDireccion(), datos.getTelefono(), datos.getRol(), version);
+
+        filtroEmails.registrar(datos.getEmail());
+        boolean existia = transaccion.execute(estado -> {
+            if (actualizarCampos(id, campos, versionEsperada) == 0) {
+                return false;
+            }
+            eventos.actualizado(actualizado);
+            return true;
+        });
+        if (!existia) {
+            return Optional.empty();
+        }
+        cache.invalidar(id, datos.getEmail());
+        sugerencias.indexar(id, datos.getNombre(), datos.getEmail());
+        return Optional.of(actualizado);
+    }
+
+    public Optional<Usuario> actualizarParcial(UUID id, Map<String, Object> parche) {
+        return actualizarParcial(id, parche, null);
+    }
+
+    // Actualización parcial: un único UPDATE de las columnas presentes en el parche.
+    // Si cambia el email, el índice único es la comprobación de duplicados.
+    // El evento lleva la fila releída tras el UPDATE, en la misma transacción.
+    public Optional<Usuario> actualizarParcial(UUID id, Map<String, Object> parche, Long versionEsperada) {
+        Map<String, Object> cambios = parcheUsuario.aCambios(parche);
+        cambios.computeIfPresent(ParcheUsuario.CONTRASENA, (campo, valor) -> hashContrasenas.hashear((String) valor));
+        Optional<Usuario> usuario;
+        if (cambios.isEmpty()) {
+            usuario = repository.findById(id);
+        } else {
+            filtroEmails.registrar((String) cambios.get("email"));
+            usuario = transaccion.execute(estado -> {
+                if (actualizarCampos(id, cambios, versionEsperada) == 0) {
+                    return null;
+                }
+                Optional<Usuario> releido = repository.releer(id);
+                releido.ifPresent(eventos::actualizado);
+                return releido;
+            });
+            if (usuario == null) {
+                return Optional.empty();
+            }
+            cache.invalidar(id, (String) cambios.get("email"));
+        }
+        if (cambios.containsKey("nombre") || cambios.containsKey("email")) {
+            usuario.ifPresent(actual -> sugerencias.indexar(id, actual.getNombre(), actual.getEmail()));
+        }
+        // Un parche vacío no escribe nada, pero If-Match se sigue respetando
+        if (cambios.isEmpty() && versionEsperada != null
+                && usuario.isPresent() && !versionEsperada.equals(usuario.get().getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Usuario.class, id);
+        }
+        return usuario;
+    }
+
+    // 0 filas significa que no existe o, con versionEsperada, que puede haber cambiado: solo en
+    // ese caso se consulta la versión para distinguirlo y responder 412 en lugar de 404
+    private int actualizarCampos(UUID id, Map<String, Object> campos, Long versionEsperada) {
+        try {
+            int filas = repository.actualizarCampos(id, campos, versionEsperada);
+            if (filas == 0 && versionEsperada != null && repository.findVersionById(id).isPresent()) {
+                throw new ObjectOptimisticLockingFailureException(Usuario.class, id);
+            }
+            return filas;
+        } catch (DataIntegrityViolationException ex) {
+            if (ViolacionesIntegridad.esEmailDuplicado(ex)) {
+                throw new IllegalArgumentException(ViolacionesIntegridad.MENSAJE_EMAIL_DUPLICADO, ex);
+            }
+            throw ex;
+        }
+    }
+
+    // Devuelve false si el usuario no existía
+    @Transactional
+    public boolean eliminarUsuario(UUID id) {
+        boolean eliminado = repository.borrarPorId(id) > 0;
+        cache.invalidar(id, null);
+        if (eliminado) {
+            eventos.eliminado(id);
+            sugerencias.eliminar(id);
+        }
+        return eliminado;
+    }
+
+    // Purga masiva (p. ej. solicitudes RGPD) en un único DELETE ... IN
+    @Transactional
+    public int eliminarUsuarios(Collection<UUID> ids) {
+        if (ids.size() > MAXIMO_BORRADO) {
+            throw new IllegalArgumentException("No se pueden eliminar más de " + MAXIMO_BORRADO + " usuarios por petición");
+        }
+        Set<UUID> distintos = new LinkedHashSet<>(ids);
+        // El DELETE no dice qué ids existían: se leen antes con sus filas bloqueadas, así el DELETE borra
+        // exactamente esas y solo ellas generan evento
+        List<UUID> existentes = repository.bloquearExistentes(distintos);
+        int eliminados = 0;
+        if (!existentes.isEmpty()) {
+            eliminados = repository.borrarPorIds(existentes);
+            eventos.eliminados(existentes);
         }
-        repository.deleteById(id);
+        distintos.forEach(id -> {
+            cache.invalidar(id, null);
+            sugerencias.eliminar(id);
+        });
+        return eliminados;
     }
 }
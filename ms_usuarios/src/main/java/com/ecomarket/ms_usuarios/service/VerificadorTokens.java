@@ -0,0 +1,105 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.config.JwtProperties;
+import com.ecomarket.ms_usuarios.dto.TokenVerificado;
+import com.ecomarket.ms_usuarios.exception.TokenInvalidoException;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.stereotype.Component;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Verificación local y sin estado: ni MySQL ni llamadas remotas. Las claves se parsean una vez
+// al arrancar y los tokens ya verificados se guardan (solo los válidos) para no repetir el HMAC.
+@Component
+public class VerificadorTokens {
+
+    // Margen para relojes desincronizados entre servicios
+    private static final Duration TOLERANCIA = Duration.ofSeconds(30);
+
+    private final String emisor;
+    private final Map<String, JWSVerifier> verificadores = new HashMap<>();
+    private final Cache<String, TokenVerificado> verificados;
+
+    public VerificadorTokens(JwtProperties propiedades) {
+        this.emisor = propiedades.emisor();
+        propiedades.claves().keySet().forEach(kid -> {
+            try {
+                verificadores.put(kid, new MACVerifier(propiedades.secreto(kid)));
+            } catch (JOSEException ex) {
+                throw new IllegalStateException("Clave JWT " + kid + " no válida para HS256 (mínimo 256 bits)", ex);
+            }
+        });
+        this.verificados = Caffeine.newBuilder()
+                .maximumSize(propiedades.cacheMaximo())
+                .expireAfterWrite(propiedades.cacheTtl())
+                .build();
+    }
+
+    public TokenVerificado verificar(String token) {
+        TokenVerificado verificado = verificados.getIfPresent(token);
+        if (verificado == null) {
+            verificado = verificarFirmaYClaims(token);
+            verificados.put(token, verificado);
+        }
+        // Un token en caché puede haber caducado desde que se verificó
+        if (Instant.now().isAfter(verificado.expiracion().plus(TOLERANCIA))) {
+            verificados.invalidate(token);
+            throw new TokenInvalidoException("Token expirado");
+        }
+        return verificado;
+    }
+
+    private TokenVerificado verificarFirmaYClaims(String token) {
+        SignedJWT jwt;
+        try {
+            jwt = SignedJWT.parse(token);
+        } catch (ParseException ex) {
+            throw new TokenInvalidoException("Token mal formado", ex);
+        }
+
+        if (!JWSAlgorithm.HS256.equals(jwt.getHeader().getAlgorithm())) {
+            throw new TokenInvalidoException("Algoritmo de firma no admitido");
+        }
+        JWSVerifier verificador = jwt.getHeader().getKeyID() == null ? null : verificadores.get(jwt.getHeader().getKeyID());
+        if (verificador == null) {
+            throw new TokenInvalidoException("Clave de firma desconocida");
+        }
+        try {
+            if (!jwt.verify(verificador)) {
+                throw new TokenInvalidoException("Firma no válida");
+            }
+        } catch (JOSEException ex) {
+            throw new TokenInvalidoException("Firma no válida", ex);
+        }
+
+        try {
+            JWTClaimsSet claims = jwt.getJWTClaimsSet();
+            if (!emisor.equals(claims.getIssuer())) {
+                throw new TokenInvalidoException("Emisor no válido");
+            }
+            if (claims.getExpirationTime() == null) {
+                throw new TokenInvalidoException("El token no tiene expiración");
+            }
+            return new TokenVerificado(
+                    UUID.fromString(claims.getSubject()),
+                    claims.getStringClaim(EmisorTokens.CLAIM_EMAIL),
+                    Rol.valueOf(claims.getStringClaim(EmisorTokens.CLAIM_ROL)),
+                    claims.getExpirationTime().toInstant());
+        } catch (ParseException | IllegalArgumentException | NullPointerException ex) {
+            throw new TokenInvalidoException("Claims no válidos", ex);
+        }
+    }
+}
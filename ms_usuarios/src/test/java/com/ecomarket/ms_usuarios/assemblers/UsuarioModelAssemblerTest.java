@@ -0,0 +1,121 @@
+package com.ecomarket.ms_usuarios.assemblers;
+
+import com.ecomarket.ms_usuarios.dto.UsuarioModel;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Rol;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ForwardedHeaderFilter;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsuarioModelAssemblerTest {
+
+    private final UsuarioModelAssembler precalculado = new UsuarioModelAssembler(true);
+    private final UsuarioModelAssembler conProxies = new UsuarioModelAssembler(false);
+
+    private final ObjectMapper hal = mapperHal();
+
+    private final UsuarioResumen usuario = new UsuarioResumen(UUID.fromString("01890a5d-ac96-774b-bcce-b302099a8057"),
+            "Juan Perez", "juan@example.com", "Calle Falsa 123", "111222333", Rol.CLIENTE, 0L);
+
+    private static ObjectMapper mapperHal() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    // Aplica ForwardedHeaderFilter (server.forward-headers-strategy=framework) y publica la petición resultante
+    private void peticion(MockHttpServletRequest request) throws Exception {
+        AtomicReference<HttpServletRequest> filtrada = new AtomicReference<>();
+        new ForwardedHeaderFilter().doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> filtrada.set((HttpServletRequest) req));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(filtrada.get()));
+    }
+
+    // methodOn añade affordances que HAL no serializa: se compara lo que llega al cliente
+    private void assertMismosEnlaces() throws Exception {
+        UsuarioModel esperado = conProxies.toModel(usuario);
+        UsuarioModel obtenido = precalculado.toModel(usuario);
+
+        assertThat(obtenido.getLinks().stream().map(Link::toString).toList())
+                .containsExactlyElementsOf(esperado.getLinks().stream().map(Link::toString).toList());
+        assertThat(hal.writeValueAsBytes(obtenido)).isEqualTo(hal.writeValueAsBytes(esperado));
+    }
+
+    @Test
+    void mismosEnlacesEnPeticionDirecta() throws Exception {
+        peticion(new MockHttpServletRequest("GET", "/api/v2/usuarios"));
+
+        assertMismosEnlaces();
+        assertThat(precalculado.toModel(usuario).getRequiredLink("self").getHref())
+                .isEqualTo("http://localhost/api/v2/usuarios/01890a5d-ac96-774b-bcce-b302099a8057");
+    }
+
+    @Test
+    void mismosEnlacesConContextPathYPuerto() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tienda/api/v2/usuarios");
+        request.setContextPath("/tienda");
+        request.setServerPort(8080);
+        peticion(request);
+
+        assertMismosEnlaces();
+    }
+
+    @Test
+    void mismosEnlacesConCabecerasXForwarded() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v2/usuarios");
+        request.addHeader("X-Forwarded-Proto", "https");
+        request.addHeader("X-Forwarded-Host", "api.ecomarket.cl");
+        request.addHeader("X-Forwarded-Port", "8443");
+        request.addHeader("X-Forwarded-Prefix", "/usuarios-svc");
+        peticion(request);
+
+        assertMismosEnlaces();
+        assertThat(precalculado.toModel(usuario).getRequiredLink("usuarios").getHref())
+                .isEqualTo("https://api.ecomarket.cl:8443/usuarios-svc/api/v2/usuarios");
+    }
+
+    @Test
+    void mismosEnlacesConCabeceraForwarded() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v2/usuarios");
+        request.addHeader("Forwarded", "proto=https;host=gateway.ecomarket.cl");
+        peticion(request);
+
+        assertMismosEnlaces();
+    }
+
+    @Test
+    void reutilizaLaBaseEnLaMismaPeticion() throws Exception {
+        peticion(new MockHttpServletRequest("GET", "/api/v2/usuarios"));
+        UsuarioResumen otro = new UsuarioResumen(UUID.fromString("01890a5d-ac96-774b-bcce-b302099a8058"),
+                "Maria Lopez", "maria@example.com", null, null, Rol.VENDEDOR, 0L);
+
+        UsuarioModel primero = precalculado.toModel(usuario);
+        UsuarioModel segundo = precalculado.toModel(otro);
+
+        assertThat(segundo.getRequiredLink("self").getHref())
+                .isEqualTo("http://localhost/api/v2/usuarios/01890a5d-ac96-774b-bcce-b302099a8058");
+        assertThat(segundo.getRequiredLink("usuarios")).isEqualTo(primero.getRequiredLink("usuarios"));
+    }
+}
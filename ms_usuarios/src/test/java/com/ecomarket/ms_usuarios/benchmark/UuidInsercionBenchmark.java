@@ -0,0 +1,90 @@
+package com.ecomarket.ms_usuarios.benchmark;
+
+import com.ecomarket.ms_usuarios.model.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Compara la inserción con ids UUID v4 (esquema anterior) y v7 sobre MySQL real.
+// Solo corre si se indica la base de datos, por ejemplo:
+//   mvn test -Dtest=UuidInsercionBenchmark -Dbenchmark.mysql.url=jdbc:mysql://localhost:3306/bench \
+//       -Dbenchmark.mysql.usuario=root -Dbenchmark.mysql.contrasena=1234 -Dbenchmark.filas=1000000
+// Informa filas/s por tramo (para ver cómo se degrada al crecer la tabla) y el tamaño de datos e índices.
+@EnabledIfSystemProperty(named = "benchmark.mysql.url", matches = ".+")
+class UuidInsercionBenchmark {
+
+    private static final int LOTE = 1_000;
+    private static final int TRAMO = 100_000;
+
+    @Test
+    void compararInsercionV4FrenteAV7() throws SQLException {
+        int filas = Integer.getInteger("benchmark.filas", 1_000_000);
+        try (Connection conexion = DriverManager.getConnection(
+                System.getProperty("benchmark.mysql.url") + "?rewriteBatchedStatements=true",
+                System.getProperty("benchmark.mysql.usuario", "root"),
+                System.getProperty("benchmark.mysql.contrasena", ""))) {
+            medir(conexion, "bench_usuario_v4", filas, UUID::randomUUID);
+            medir(conexion, "bench_usuario_v7", filas, UuidV7Generator::generar);
+        }
+    }
+
+    private void medir(Connection conexion, String tabla, int filas, Supplier<UUID> ids) throws SQLException {
+        try (Statement ddl = conexion.createStatement()) {
+            ddl.execute("drop table if exists " + tabla);
+            // Misma forma que la tabla usuario: PK BINARY(16) e índice único por email
+            ddl.execute("create table " + tabla + " (id binary(16) not null primary key, "
+                    + "nombre varchar(100) not null, email varchar(255) not null, "
+                    + "unique key uk_" + tabla + "_email (email)) engine=InnoDB");
+        }
+
+        conexion.setAutoCommit(false);
+        long inicioTramo = System.nanoTime();
+        try (PreparedStatement insert = conexion.prepareStatement(
+                "insert into " + tabla + " (id, nombre, email) values (?, ?, ?)")) {
+            for (int i = 1; i <= filas; i++) {
+                insert.setBytes(1, bytes(ids.get()));
+                insert.setString(2, "Usuario " + i);
+                insert.setString(3, "usuario" + i + "@example.com");
+                insert.addBatch();
+                if (i % LOTE == 0) {
+                    insert.executeBatch();
+                    conexion.commit();
+                }
+                if (i % TRAMO == 0) {
+                    double segundos = (System.nanoTime() - inicioTramo) / 1e9;
+                    System.out.printf("%s filas %,d: %,.0f filas/s%n", tabla, i, TRAMO / segundos);
+                    inicioTramo = System.nanoTime();
+                }
+            }
+            insert.executeBatch();
+            conexion.commit();
+        }
+        conexion.setAutoCommit(true);
+
+        try (Statement consulta = conexion.createStatement()) {
+            consulta.execute("analyze table " + tabla);
+            try (ResultSet tamano = consulta.executeQuery("select data_length, index_length from information_schema.tables "
+                    + "where table_schema = database() and table_name = '" + tabla + "'")) {
+                tamano.next();
+                System.out.printf("%s: datos %,d MB, índices secundarios %,d MB%n", tabla,
+                        tamano.getLong(1) / (1024 * 1024), tamano.getLong(2) / (1024 * 1024));
+            }
+        }
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,32 @@
+package com.ecomarket.ms_usuarios.config;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Abre un contador alrededor de la ejecución de la prueba: los @BeforeEach (datos de partida) no cuentan
+class ExtensionMaximoSentencias implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace ESPACIO = ExtensionContext.Namespace.create(ExtensionMaximoSentencias.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(ESPACIO).put(context.getUniqueId(), ContadorSentencias.iniciar());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        int maximo = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), MaximoSentencias.class)
+                .orElseThrow()
+                .value();
+        try (ContadorSentencias.Contador contador = context.getStore(ESPACIO)
+                .remove(context.getUniqueId(), ContadorSentencias.Contador.class)) {
+            assertThat(contador.getTotal())
+                    .as("Sentencias SQL ejecutadas:%n%s", String.join(System.lineSeparator(), contador.getSentencias()))
+                    .isLessThanOrEqualTo(maximo);
+        }
+    }
+}
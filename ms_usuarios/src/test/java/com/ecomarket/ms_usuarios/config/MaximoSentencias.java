@@ -0,0 +1,18 @@
+package com.ecomarket.ms_usuarios.config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Tope de sentencias SQL que puede ejecutar el método de prueba (incluidas las peticiones MockMvc,
+// que corren en el mismo hilo). Falla si se supera y lista las sentencias ejecutadas.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(ExtensionMaximoSentencias.class)
+public @interface MaximoSentencias {
+
+    int value();
+}
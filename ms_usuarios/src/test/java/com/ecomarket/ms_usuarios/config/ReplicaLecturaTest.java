@@ -0,0 +1,188 @@
+package com.ecomarket.ms_usuarios.config;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import com.ecomarket.ms_usuarios.service.AuthService;
+import com.ecomarket.ms_usuarios.service.FiltroEmails;
+import com.ecomarket.ms_usuarios.service.HashContrasenas;
+import com.ecomarket.ms_usuarios.service.UsuarioService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Enrutado lectura/escritura con dos H2 en memoria: la "réplica" solo recibe datos cuando la prueba
+// copia el primario con replicar(), así que cada lectura delata de qué base salió
+@SpringBootTest(properties = {
+        "usuarios.datasource.replica.url=jdbc:h2:mem:replica-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "usuarios.datasource.replica.comprobacion=PT1H",
+        "usuarios.datasource.replica.retraso-maximo=5s"
+})
+@ActiveProfiles("test")
+@Import(ReplicaLecturaTest.EsquemaReplica.class)
+class ReplicaLecturaTest {
+
+    // Los ApplicationRunner de arranque ya leen de la réplica: se le copia el esquema antes que a nadie
+    @TestConfiguration
+    static class EsquemaReplica {
+
+        @Bean
+        @Order(Ordered.HIGHEST_PRECEDENCE)
+        ApplicationRunner copiarEsquema(HikariDataSource dataSourcePrimaria, HikariDataSource dataSourceReplica) {
+            return args -> replicar(dataSourcePrimaria, dataSourceReplica);
+        }
+    }
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private HikariDataSource dataSourcePrimaria;
+
+    @Autowired
+    private HikariDataSource dataSourceReplica;
+
+    @Autowired
+    private DataSourceEnrutado dataSourceEnrutado;
+
+    @Autowired
+    private HashContrasenas hashContrasenas;
+
+    @Autowired
+    private FiltroEmails filtroEmails;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        // El listener de pruebas web simula una petición en curso; cada prueba decide si la hay
+        RequestContextHolder.resetRequestAttributes();
+        replicar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        DataSourceEnrutado.reiniciarSesion();
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void lasLecturasVanALaReplicaYLasEscriturasAlPrimario() {
+        // 1. Preparación (Arrange)
+        usuarioService.guardarUsuario(new Usuario(null, "Hermenegildo Sanz", "hermenegildo@example.com", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert): la réplica aún no tiene el alta
+        assertThat(usuariosEn(dataSourceReplica)).isZero();
+        assertThat(usuarioService.listarUsuarios(null, 10).contenido()).isEmpty();
+
+        replicar();
+        assertThat(usuarioService.listarUsuarios(null, 10).contenido()).hasSize(1);
+    }
+
+    @Test
+    void trasEscribirElRestoDeLaPeticionLeeDelPrimario() {
+        // 1. Preparación (Arrange): una petición HTTP en curso
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(usuarioService.listarUsuarios(null, 10).contenido()).isEmpty();
+
+        // 2. Ejecución (Act)
+        usuarioService.guardarUsuario(new Usuario(null, "Genoveva Prats", "genoveva@example.com", "pass12345", "Calle 2", "123456780", Rol.VENDEDOR));
+
+        // 3. Verificación (Assert)
+        assertThat(usuarioService.listarUsuarios(null, 10).contenido()).hasSize(1);
+        // Terminada la petición, la siguiente vuelve a leer de la réplica
+        DataSourceEnrutado.reiniciarSesion();
+        assertThat(usuarioService.listarUsuarios(null, 10).contenido()).isEmpty();
+    }
+
+    @Test
+    void unUsuarioRecienEscritoSeCargaDelPrimarioEnElLogin() {
+        // 1. Preparación (Arrange): sin petición en curso no hay lectura de lo propio
+        usuarioService.guardarUsuario(new Usuario(null, "Bonifacio Roca", "bonifacio@example.com", "pass12345", "Calle 3", "123456781", Rol.CLIENTE));
+        assertThat(usuarioService.listarUsuarios(null, 10).contenido()).isEmpty();
+
+        // 2. Ejecución y 3. Verificación (Act & Assert): la caché lo carga del primario
+        assertThat(authService.login("bonifacio@example.com", "pass12345")).containsKey("token");
+    }
+
+    @Test
+    void unLoginCorrienteLeeDeLaReplica() {
+        // 1. Preparación (Arrange): un usuario ya replicado, escrito fuera de la ventana de lectura de lo propio
+        usuarioRepository.save(new Usuario(null, "Casimira Vidal", "casimira@example.com", hashContrasenas.hashear("pass12345"), "Calle 5", "123456783", Rol.CLIENTE));
+        filtroEmails.registrar("casimira@example.com");
+        replicar();
+        double primaria = conexiones("primaria");
+        double replica = conexiones("replica");
+
+        // 2. Ejecución (Act)
+        assertThat(authService.login("casimira@example.com", "pass12345")).containsKey("token");
+
+        // 3. Verificación (Assert)
+        assertThat(conexiones("replica")).isEqualTo(replica + 1);
+        assertThat(conexiones("primaria")).isEqualTo(primaria);
+    }
+
+    @Test
+    @DirtiesContext
+    void siLaReplicaFallaSeLeeDelPrimario() {
+        // 1. Preparación (Arrange)
+        usuarioService.guardarUsuario(new Usuario(null, "Eulalia Costa", "eulalia@example.com", "pass12345", "Calle 4", "123456782", Rol.VENDEDOR));
+
+        // 2. Ejecución (Act)
+        dataSourceReplica.close();
+
+        // 3. Verificación (Assert)
+        assertThat(usuarioService.listarUsuarios(null, 10).contenido()).hasSize(1);
+        assertThat(dataSourceEnrutado.isReplicaDisponible()).isFalse();
+        dataSourceEnrutado.comprobarReplica();
+        assertThat(dataSourceEnrutado.isReplicaDisponible()).isFalse();
+    }
+
+    // Replicación simulada: el esquema y los datos del primario se vuelcan en la réplica
+    private void replicar() {
+        replicar(dataSourcePrimaria, dataSourceReplica);
+    }
+
+    private static void replicar(HikariDataSource primaria, HikariDataSource replicaDestino) {
+        List<String> sentencias = new JdbcTemplate(primaria).queryForList("SCRIPT DROP", String.class);
+        JdbcTemplate replica = new JdbcTemplate(replicaDestino);
+        replica.execute("DROP ALL OBJECTS");
+        sentencias.forEach(replica::execute);
+    }
+
+    private double conexiones(String destino) {
+        return registry.get("usuarios.datasource.conexiones").tag("destino", destino).counter().count();
+    }
+
+    private static int usuariosEn(HikariDataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from usuario", Integer.class);
+    }
+}
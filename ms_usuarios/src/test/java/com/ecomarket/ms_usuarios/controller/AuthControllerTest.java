@@ -1,23 +1,35 @@
 package com.ecomarket.ms_usuarios.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ecomarket.ms_usuarios.dto.TokenVerificado;
+import com.ecomarket.ms_usuarios.exception.DemasiadosIntentosException;
+import com.ecomarket.ms_usuarios.exception.TokenInvalidoException;
+import com.ecomarket.ms_usuarios.model.Rol;
 import com.ecomarket.ms_usuarios.service.AuthService;
+import com.ecomarket.ms_usuarios.service.LimitadorLogin;
+import com.ecomarket.ms_usuarios.service.VerificadorTokens;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AuthController.class) // Prueba solo el AuthController
+@Import(IpCliente.class)
 class AuthControllerTest {
 
     @Autowired
@@ -26,6 +38,12 @@ class AuthControllerTest {
     @MockBean
     private AuthService authService; // Mock del AuthService
 
+    @MockBean
+    private VerificadorTokens verificadorTokens;
+
+    @MockBean
+    private LimitadorLogin limitador;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -74,6 +92,23 @@ class AuthControllerTest {
         verify(authService, times(1)).login("wrong@example.com", "wrongpass");
     }
 
+    @Test
+    void testLoginConCuotaAgotadaNoLlegaAlServicio() throws Exception {
+        // 1. Preparación (Arrange)
+        doThrow(new DemasiadosIntentosException("Demasiados intentos de login, reintente en 6 s", 6))
+                .when(limitador).comprobar(eq("test@example.com"), anyString());
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(post("/api/usuarios/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("email", "test@example.com", "contraseña", "password123"))))
+                .andExpect(status().isTooManyRequests()) // Espera 429 Too Many Requests
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "6"))
+                .andExpect(jsonPath("$.message").value("Demasiados intentos de login, reintente en 6 s"));
+
+        verify(authService, never()).login(anyString(), anyString());
+    }
+
     @Test
     void testLoginConEmailVacio() throws Exception {
         // 1. Preparación (Arrange)
@@ -107,4 +142,48 @@ class AuthControllerTest {
 
         verify(authService, never()).login(anyString(), anyString()); // Asegura que el servicio nunca fue llamado
     }
-}
\ No newline at end of file
+
+    @Test
+    void testValidarTokenValido() throws Exception {
+        // 1. Preparación (Arrange)
+        UUID id = UUID.randomUUID();
+        when(verificadorTokens.verificar("token-valido"))
+                .thenReturn(new TokenVerificado(id, "test@example.com", Rol.CLIENTE, Instant.now().plusSeconds(3600)));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(post("/api/usuarios/token/validate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("token", "token-valido"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id.toString()))
+                .andExpect(jsonPath("$.email").value("test@example.com"))
+                .andExpect(jsonPath("$.rol").value("CLIENTE"));
+
+        verify(authService, never()).login(anyString(), anyString());
+    }
+
+    @Test
+    void testValidarTokenInvalido() throws Exception {
+        // 1. Preparación (Arrange)
+        when(verificadorTokens.verificar("token-manipulado")).thenThrow(new TokenInvalidoException("Firma no válida"));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(post("/api/usuarios/token/validate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("token", "token-manipulado"))))
+                .andExpect(status().isUnauthorized()) // Espera 401 Unauthorized
+                .andExpect(jsonPath("$.message").value("Firma no válida"));
+    }
+
+    @Test
+    void testValidarTokenVacio() throws Exception {
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(post("/api/usuarios/token/validate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("token", " "))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("El token es obligatorio"));
+
+        verify(verificadorTokens, never()).verificar(anyString());
+    }
+}
@@ -0,0 +1,217 @@
+package com.ecomarket.ms_usuarios.controller;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.CambioUsuarioRepository;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import com.ecomarket.ms_usuarios.service.FeedCambios;
+import com.ecomarket.ms_usuarios.service.RelevoEventos;
+import com.ecomarket.ms_usuarios.service.UsuarioService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Feed incremental de cambios contra H2: consulta, long-poll, SSE y cursores caducados
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CambiosUsuarioControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private RelevoEventos relevo;
+
+    @Autowired
+    private FeedCambios feed;
+
+    @Autowired
+    private CambioUsuarioRepository cambioRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    // Posición actual del feed al empezar cada prueba
+    private long inicio;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Eventos pendientes de otras pruebas del mismo contexto
+        relevo.relevar();
+        inicio = objectMapper.readTree(consultar(get("/api/v2/usuarios/changes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString())
+                .get("siguiente").asLong();
+    }
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void devuelveLosCambiosPosterioresAlCursorEnOrden() throws Exception {
+        // 1. Preparación (Arrange)
+        Usuario usuario = usuarioService.guardarUsuario(new Usuario(null, "Clodoveo Rius", "clodoveo@example.com", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+        usuarioService.actualizarParcial(usuario.getId(), Map.of("telefono", "987654321"));
+        usuarioService.eliminarUsuario(usuario.getId());
+        relevo.relevar();
+
+        // 2. Ejecución (Act)
+        JsonNode respuesta = objectMapper.readTree(consultar(get("/api/v2/usuarios/changes").param("since", String.valueOf(inicio)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        // 3. Verificación (Assert)
+        JsonNode cambios = respuesta.get("cambios");
+        assertThat(cambios).hasSize(3);
+        assertThat(cambios.get(0).get("secuencia").asLong()).isEqualTo(inicio + 1);
+        assertThat(cambios.get(0).get("tipo").asText()).isEqualTo("CREADO");
+        assertThat(cambios.get(1).get("datos").get("telefono").asText()).isEqualTo("987654321");
+        assertThat(cambios.get(2).get("tipo").asText()).isEqualTo("ELIMINADO");
+        assertThat(cambios.get(2).get("usuarioId").asText()).isEqualTo(usuario.getId().toString());
+        assertThat(respuesta.get("siguiente").asLong()).isEqualTo(inicio + 3);
+
+        // Desde el último cursor no queda nada
+        consultar(get("/api/v2/usuarios/changes").param("since", String.valueOf(inicio + 3)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cambios").isEmpty())
+                .andExpect(jsonPath("$.siguiente").value(inicio + 3));
+    }
+
+    @Test
+    void elLongPollRespondeCuandoLlegaUnCambio() throws Exception {
+        // 1. Preparación (Arrange): sin cambios pendientes la petición queda a la espera
+        MvcResult espera = mockMvc.perform(get("/api/v2/usuarios/changes")
+                        .param("since", String.valueOf(inicio))
+                        .param("wait", "30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        feed.despachar();
+        // Sin resultado todavía: getAsyncResult falla si no se ha fijado
+        assertThrows(IllegalStateException.class, () -> espera.getAsyncResult(0));
+
+        // 2. Ejecución (Act)
+        usuarioService.guardarUsuario(new Usuario(null, "Eduviges Soler", "eduviges@example.com", "pass12345", "Calle 2", "123456780", Rol.VENDEDOR));
+        relevo.relevar();
+        feed.despachar();
+
+        // 3. Verificación (Assert)
+        mockMvc.perform(asyncDispatch(espera))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cambios.length()").value(1))
+                .andExpect(jsonPath("$.cambios[0].datos.email").value("eduviges@example.com"))
+                .andExpect(jsonPath("$.siguiente").value(inicio + 1));
+    }
+
+    @Test
+    void laSuscripcionSseEnviaCadaCambioConSuSecuenciaComoId() throws Exception {
+        // 1. Preparación (Arrange)
+        MvcResult suscripcion = mockMvc.perform(get("/api/v2/usuarios/changes")
+                        .param("since", String.valueOf(inicio))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // 2. Ejecución (Act)
+        usuarioService.guardarUsuario(new Usuario(null, "Pancracio Mir", "pancracio@example.com", "pass12345", "Calle 3", "123456781", Rol.CLIENTE));
+        relevo.relevar();
+        feed.despachar();
+
+        // 3. Verificación (Assert)
+        String flujo = suscripcion.getResponse().getContentAsString();
+        assertThat(flujo).contains("id:" + (inicio + 1), "event:cambio", "pancracio@example.com");
+    }
+
+    @Test
+    void unCursorAnteriorALaRetencionResponde410() throws Exception {
+        // 1. Preparación (Arrange): dos cambios y purga de todo salvo el último
+        Usuario usuario = usuarioService.guardarUsuario(new Usuario(null, "Rosendo Vila", "rosendo@example.com", "pass12345", "Calle 4", "123456782", Rol.CLIENTE));
+        usuarioService.eliminarUsuario(usuario.getId());
+        relevo.relevar();
+        transaccion.executeWithoutResult(estado -> cambioRepository.purgarAnteriores(Instant.now().plusSeconds(60), inicio + 2));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(get("/api/v2/usuarios/changes").param("since", String.valueOf(inicio)))
+                .andExpect(status().isGone());
+        mockMvc.perform(get("/api/v2/usuarios/changes").param("since", String.valueOf(inicio))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isGone());
+        // Desde el último cambio purgado el feed sigue completo
+        consultar(get("/api/v2/usuarios/changes").param("since", String.valueOf(inicio + 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cambios[0].tipo").value("ELIMINADO"));
+    }
+
+    @Test
+    void unLongPollCaducadoRecibe410SinBloquearALosDemas() throws Exception {
+        // 1. Preparación (Arrange): un long-poll tras el primer cambio y otro tras el segundo
+        usuarioService.guardarUsuario(new Usuario(null, "Wenceslao Puig", "wenceslao@example.com", "pass12345", "Calle 5", "123456783", Rol.CLIENTE));
+        relevo.relevar();
+        MvcResult retrasada = mockMvc.perform(get("/api/v2/usuarios/changes")
+                        .param("since", String.valueOf(inicio + 1))
+                        .param("wait", "30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        usuarioService.guardarUsuario(new Usuario(null, "Genoveva Roca", "genoveva@example.com", "pass12345", "Calle 6", "123456784", Rol.VENDEDOR));
+        relevo.relevar();
+        MvcResult alDia = mockMvc.perform(get("/api/v2/usuarios/changes")
+                        .param("since", String.valueOf(inicio + 2))
+                        .param("wait", "30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // 2. Ejecución (Act): un tercer cambio y la retención purga los dos primeros antes del despacho
+        usuarioService.guardarUsuario(new Usuario(null, "Anacleto Grau", "anacleto@example.com", "pass12345", "Calle 7", "123456785", Rol.CLIENTE));
+        relevo.relevar();
+        transaccion.executeWithoutResult(estado -> cambioRepository.purgarAnteriores(Instant.now().plusSeconds(60), inicio + 3));
+        feed.despachar();
+
+        // 3. Verificación (Assert): el retrasado recibe el 410 y el otro el cambio en la misma pasada
+        mockMvc.perform(asyncDispatch(retrasada))
+                .andExpect(status().isGone());
+        mockMvc.perform(asyncDispatch(alDia))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cambios.length()").value(1))
+                .andExpect(jsonPath("$.cambios[0].datos.email").value("anacleto@example.com"))
+                .andExpect(jsonPath("$.siguiente").value(inicio + 3));
+    }
+
+    // El endpoint responde con DeferredResult también sin espera: la respuesta sale del despacho asíncrono
+    private ResultActions consultar(MockHttpServletRequestBuilder peticion) throws Exception {
+        ResultActions accion = mockMvc.perform(peticion);
+        MvcResult resultado = accion.andReturn();
+        return resultado.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(resultado)) : accion;
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecomarket.ms_usuarios.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Cuota de login por IP con el contexto completo (ForwardedHeaderFilter incluido): inventar
+// X-Forwarded-For en cada petición no da una cuota nueva
+@SpringBootTest(properties = {
+        "usuarios.login.limite.ip.intentos=3",
+        "usuarios.login.limite.email.intentos=100"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LimiteLoginIpTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void unXForwardedForInventadoNoReiniciaLaCuotaDeLaIp() throws Exception {
+        // 1. Preparación (Arrange): cliente directo, sin proxy de confianza delante
+        for (int i = 0; i < 3; i++) {
+            login("198.51.100.7", "203.0.113." + i, i).andExpect(status().isBadRequest());
+        }
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        login("198.51.100.7", "203.0.113.99", 99).andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void trasUnProxyDeConfianzaCuentaLaIpQueAnotaElProxy() throws Exception {
+        // 1. Preparación (Arrange): el cliente antepone una IP inventada y el proxy añade la real
+        for (int i = 0; i < 3; i++) {
+            login("10.0.0.5", "192.0.2." + i + ", 203.0.113.50", i).andExpect(status().isBadRequest());
+        }
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        login("10.0.0.5", "192.0.2.99, 203.0.113.50", 99).andExpect(status().isTooManyRequests());
+        // Otro cliente tras el mismo proxy conserva su cuota
+        login("10.0.0.5", "203.0.113.51", 100).andExpect(status().isBadRequest());
+    }
+
+    private ResultActions login(String ipSocket, String xForwardedFor, int intento) throws Exception {
+        return mockMvc.perform(post("/api/usuarios/login")
+                .with(peticion -> {
+                    peticion.setRemoteAddr(ipSocket);
+                    return peticion;
+                })
+                .header("X-Forwarded-For", xForwardedFor)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        Map.of("email", "intento" + intento + "@example.com", "contraseña", "pass12345"))));
+    }
+}
@@ -0,0 +1,328 @@
+package com.ecomarket.ms_usuarios.controller;
+
+import com.ecomarket.ms_usuarios.config.FiltroSentenciasSql;
+import com.ecomarket.ms_usuarios.config.MaximoSentencias;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import com.ecomarket.ms_usuarios.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Tope de sentencias SQL por endpoint contra H2: una consulta redundante nueva hace fallar la prueba.
+// Caché desactivada para que cada lectura llegue a la base de datos.
+@SpringBootTest(properties = "usuarios.cache.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UsuarioControllerSqlTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Usuario juan;
+    private Usuario maria;
+
+    @BeforeEach
+    void setUp() {
+        juan = usuarioService.guardarUsuario(new Usuario(null, "Juan Perez", "juan@example.com", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+        maria = usuarioService.guardarUsuario(new Usuario(null, "Maria Lopez", "maria@example.com", "pass67890", "Calle 2", "987654321", Rol.VENDEDOR));
+    }
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testListarUsuarios() throws Exception {
+        mockMvc.perform(get("/api/usuarios").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "1"));
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testObtenerPorId() throws Exception {
+        mockMvc.perform(get("/api/usuarios/{id}", juan.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "1"));
+    }
+
+    @Test
+    @MaximoSentencias(2)
+    void testCrearUsuarioSinConsultaPrevia() throws Exception {
+        Usuario nuevo = new Usuario(null, "Ana Ruiz", "ana@example.com", "pass12345", "Calle 3", "555666777", Rol.CLIENTE);
+
+        mockMvc.perform(post("/api/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(nuevo)))
+                .andExpect(status().isOk())
+                // El INSERT del usuario y el del evento en la outbox
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "2"));
+    }
+
+    @Test
+    @MaximoSentencias(3)
+    void testCrearLote() throws Exception {
+        List<Usuario> lote = List.of(
+                new Usuario(null, "Ana Ruiz", "ana@example.com", "pass12345", "Calle 3", "555666777", Rol.CLIENTE),
+                new Usuario(null, "Luis Gil", "luis@example.com", "pass12345", "Calle 4", "555666888", Rol.CLIENTE));
+
+        // Una consulta de emails existentes, un INSERT en lote de usuarios y otro de eventos
+        mockMvc.perform(post("/api/usuarios/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(lote.toArray(Usuario[]::new))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaximoSentencias(2)
+    void testActualizarUsuarioEnUnaSentencia() throws Exception {
+        Usuario datos = new Usuario(null, "Juan Editado", "juan.editado@example.com", "nuevaClave123", "Calle 9", "111222333", Rol.VENDEDOR);
+
+        mockMvc.perform(put("/api/usuarios/{id}", juan.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(datos)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value("Juan Editado"))
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "2"));
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testActualizarUsuarioNoExistente() throws Exception {
+        Usuario datos = new Usuario(null, "Nadie", "nadie@example.com", "nuevaClave123", "Calle 9", "111222333", Rol.CLIENTE);
+
+        mockMvc.perform(put("/api/usuarios/{id}", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(datos)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @MaximoSentencias(3)
+    void testActualizarParcial() throws Exception {
+        // UPDATE de las columnas enviadas, lectura de la fila resultante y evento en la outbox
+        mockMvc.perform(patch("/api/usuarios/{id}", juan.getId())
+                        .contentType(UsuarioController.MERGE_PATCH_JSON)
+                        .content("{\"direccion\":\"Nueva Dir 456\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "3"));
+    }
+
+    @Test
+    @MaximoSentencias(2)
+    void testEliminarUsuario() throws Exception {
+        mockMvc.perform(delete("/api/usuarios/{id}", juan.getId()))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "2"));
+    }
+
+    @Test
+    @MaximoSentencias(3)
+    void testEliminarVariosUsuarios() throws Exception {
+        mockMvc.perform(delete("/api/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(juan.getId(), maria.getId()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.eliminados").value(2));
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testLogin() throws Exception {
+        mockMvc.perform(post("/api/usuarios/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"juan@example.com\",\"contraseña\":\"pass12345\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaximoSentencias(0)
+    void testLoginConEmailNoRegistradoNoConsultaLaBaseDeDatos() throws Exception {
+        mockMvc.perform(post("/api/usuarios/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"nunca-registrado@example.com\",\"contraseña\":\"pass12345\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Usuario no encontrado"));
+    }
+
+    @Test
+    void testLoginConCuotaAgotadaNoConsultaLaBaseDeDatos() throws Exception {
+        // Email que no existe desde una IP propia: no gasta la cuota de los demás tests
+        String credenciales = "{\"email\":\"atacante@example.com\",\"contraseña\":\"pass12345\"}";
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(post("/api/usuarios/login").with(desdeIp("203.0.113.7"))
+                    .contentType(MediaType.APPLICATION_JSON).content(credenciales));
+        }
+
+        mockMvc.perform(post("/api/usuarios/login").with(desdeIp("203.0.113.7"))
+                        .contentType(MediaType.APPLICATION_JSON).content(credenciales))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "0"));
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testObtenerPorIdV2() throws Exception {
+        mockMvc.perform(get("/api/v2/usuarios/{id}", maria.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "1"));
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testBuscarUsuariosV2() throws Exception {
+        mockMvc.perform(get("/api/v2/usuarios/search").param("rol", "VENDEDOR").param("dominio", "example.com").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.usuarioModelList[0].nombre").value("Maria Lopez"))
+                .andExpect(jsonPath("$._links.next.href").doesNotExist())
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "1"));
+    }
+
+    @Test
+    void testBuscarUsuariosV2EnlaceSiguienteConservaLosFiltros() throws Exception {
+        mockMvc.perform(get("/api/v2/usuarios/search").param("dominio", "example.com").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.next.href").value(containsString("/api/v2/usuarios/search?dominio=example.com&limit=1&cursor=")));
+    }
+
+    @Test
+    void testBuscarUsuariosV2SinFiltros() throws Exception {
+        mockMvc.perform(get("/api/v2/usuarios/search"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v2/usuarios/search").param("rol", "SUPERVISOR"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Parámetro inválido"));
+    }
+
+    @Test
+    void testSugerenciasSinConsultarLaBaseDeDatos() throws Exception {
+        Usuario nuevo = usuarioService.guardarUsuario(new Usuario(null, "Zoila Quintanilla", "zquintanilla@example.com", "pass12345", "Calle 5", "555666777", Rol.CLIENTE));
+
+        mockMvc.perform(get("/api/v2/usuarios/sugerencias").param("q", "quinta"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(nuevo.getId().toString()))
+                .andExpect(jsonPath("$[0].nombre").value("Zoila Quintanilla"))
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "0"));
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testObtenerPorIdV2ConEtagVigenteResponde304() throws Exception {
+        // Solo se lee la columna de versión; no hay cuerpo que serializar
+        mockMvc.perform(get("/api/v2/usuarios/{id}", maria.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testObtenerPorIdV2ConEtagObsoletaDevuelveElCuerpo() throws Exception {
+        usuarioService.actualizarParcial(maria.getId(), Map.of("telefono", "111222333"));
+
+        mockMvc.perform(get("/api/v2/usuarios/{id}", maria.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "2"))
+                .andExpect(jsonPath("$.telefono").value("111222333"))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    @MaximoSentencias(2)
+    void testActualizarUsuarioV2ConIfMatchVigente() throws Exception {
+        Usuario datos = new Usuario(null, "Juan Editado", "juan@example.com", "nuevaClave123", "Calle 9", "111222333", Rol.CLIENTE);
+
+        mockMvc.perform(put("/api/v2/usuarios/{id}", juan.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(datos)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    void testActualizarParcialV2ConIfMatchObsoletoDevuelve412() throws Exception {
+        usuarioService.actualizarParcial(juan.getId(), Map.of("direccion", "Otra Calle"));
+
+        // UPDATE sin filas afectadas y consulta de la versión para distinguir 412 de 404
+        mockMvc.perform(patch("/api/v2/usuarios/{id}", juan.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(UsuarioController.MERGE_PATCH_JSON)
+                        .content("{\"direccion\":\"Cambio Perdido\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(FiltroSentenciasSql.CABECERA, "2"));
+
+        assertThat(usuarioRepository.findById(juan.getId()))
+                .hasValueSatisfying(usuario -> assertThat(usuario.getDireccion()).isEqualTo("Otra Calle"));
+    }
+
+    @Test
+    void testActualizarParcialV2ConEtagDebilDevuelve412() throws Exception {
+        mockMvc.perform(patch("/api/v2/usuarios/{id}", juan.getId())
+                        .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                        .contentType(UsuarioController.MERGE_PATCH_JSON)
+                        .content("{\"direccion\":\"Nueva Dir\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    // La contraseña es WRITE_ONLY y Jackson no la serializa: se añade a mano al cuerpo de la petición
+    private String cuerpo(Usuario usuario) {
+        ObjectNode nodo = objectMapper.valueToTree(usuario);
+        nodo.put("contrasena", usuario.getContraseña());
+        return nodo.toString();
+    }
+
+    private String cuerpo(Usuario... usuarios) {
+        ArrayNode lista = objectMapper.createArrayNode();
+        for (Usuario usuario : usuarios) {
+            ObjectNode nodo = objectMapper.valueToTree(usuario);
+            nodo.put("contrasena", usuario.getContraseña());
+            lista.add(nodo);
+        }
+        return lista.toString();
+    }
+
+    private static RequestPostProcessor desdeIp(String ip) {
+        return peticion -> {
+            peticion.setRemoteAddr(ip);
+            return peticion;
+        };
+    }
+}
@@ -1,20 +1,36 @@
 package com.ecomarket.ms_usuarios.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ecomarket.ms_usuarios.dto.Pagina;
+import com.ecomarket.ms_usuarios.exception.ServicioSaturadoException;
 import com.ecomarket.ms_usuarios.model.Rol;
 import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.dto.ResultadoLote;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.service.UsuarioLoteService;
 import com.ecomarket.ms_usuarios.service.UsuarioService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -30,6 +46,9 @@ class UsuarioControllerTest {
     @MockBean
     private UsuarioService usuarioService; // Mock del servicio para aislar el controlador
 
+    @MockBean
+    private UsuarioLoteService usuarioLoteService;
+
     @Autowired
     private ObjectMapper objectMapper; // Para convertir objetos Java a JSON y viceversa
 
@@ -49,7 +68,7 @@ class UsuarioControllerTest {
     @Test
     void testObtenerTodos() throws Exception {
         // 1. Preparación (Arrange)
-        when(usuarioService.listarUsuarios()).thenReturn(Arrays.asList(testUsuario1, testUsuario2));
+        when(usuarioService.listarUsuarios(null, 50)).thenReturn(new Pagina<>(Arrays.asList(UsuarioResumen.de(testUsuario1), UsuarioResumen.de(testUsuario2)), null));
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(get("/api/usuarios")
@@ -57,37 +76,88 @@ class UsuarioControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$[0].nombre").value(testUsuario1.getNombre()))
-                .andExpect(jsonPath("$[1].email").value(testUsuario2.getEmail()));
+                .andExpect(jsonPath("$[1].email").value(testUsuario2.getEmail()))
+                .andExpect(header().doesNotExist(UsuarioController.CABECERA_CURSOR));
+
+        verify(usuarioService, times(1)).listarUsuarios(null, 50); // Verifica que el servicio fue llamado
+    }
+
+    @Test
+    void testObtenerTodosConPaginaSiguiente() throws Exception {
+        // 1. Preparación (Arrange)
+        when(usuarioService.listarUsuarios("abc", 1)).thenReturn(new Pagina<>(List.of(UsuarioResumen.de(testUsuario1)), "def"));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(get("/api/usuarios").param("cursor", "abc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string(UsuarioController.CABECERA_CURSOR, "def"))
+                .andExpect(header().string("Link", "<http://localhost/api/usuarios?cursor=def&limit=1>;rel=\"next\""));
+    }
+
+    @Test
+    void testObtenerTodosConLimiteInvalido() throws Exception {
+        mockMvc.perform(get("/api/usuarios").param("limit", "0"))
+                .andExpect(status().isBadRequest());
 
-        verify(usuarioService, times(1)).listarUsuarios(); // Verifica que el servicio fue llamado
+        verify(usuarioService, never()).listarUsuarios(any(), anyInt());
+    }
+
+    @Test
+    void testExportarNdjson() throws Exception {
+        // 1. Preparación (Arrange)
+        doAnswer(invocation -> {
+            Consumer<UsuarioResumen> consumidor = invocation.getArgument(0);
+            consumidor.accept(UsuarioResumen.de(testUsuario1));
+            consumidor.accept(UsuarioResumen.de(testUsuario2));
+            return null;
+        }).when(usuarioService).exportarUsuarios(any());
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        MvcResult resultado = mockMvc.perform(get("/api/usuarios/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lineas = cuerpo.split("\n");
+        assertThat(lineas).hasSize(2);
+        assertThat(objectMapper.readTree(lineas[0]).get("email").asText()).isEqualTo(testUsuario1.getEmail());
+        assertThat(objectMapper.readTree(lineas[1]).get("email").asText()).isEqualTo(testUsuario2.getEmail());
+        assertThat(cuerpo).doesNotContain("contrasena");
+        verify(usuarioService, never()).listarUsuarios(any(), anyInt());
     }
 
     @Test
     void testObtenerPorIdExistente() throws Exception {
         // 1. Preparación (Arrange)
-        when(usuarioService.obtenerUsuarioPorId(USER_ID_1)).thenReturn(Optional.of(testUsuario1));
+        when(usuarioService.obtenerResumenPorId(USER_ID_1)).thenReturn(Optional.of(UsuarioResumen.de(testUsuario1)));
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(get("/api/usuarios/{id}", USER_ID_1)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(USER_ID_1.toString()))
-                .andExpect(jsonPath("$.nombre").value(testUsuario1.getNombre()));
+                .andExpect(jsonPath("$.nombre").value(testUsuario1.getNombre()))
+                .andExpect(jsonPath("$.contrasena").doesNotExist());
 
-        verify(usuarioService, times(1)).obtenerUsuarioPorId(USER_ID_1);
+        verify(usuarioService, times(1)).obtenerResumenPorId(USER_ID_1);
     }
 
     @Test
     void testObtenerPorIdNoExistente() throws Exception {
         // 1. Preparación (Arrange)
-        when(usuarioService.obtenerUsuarioPorId(NON_EXISTENT_ID)).thenReturn(Optional.empty());
+        when(usuarioService.obtenerResumenPorId(NON_EXISTENT_ID)).thenReturn(Optional.empty());
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(get("/api/usuarios/{id}", NON_EXISTENT_ID)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound()); // Espera un 404 Not Found
 
-        verify(usuarioService, times(1)).obtenerUsuarioPorId(NON_EXISTENT_ID);
+        verify(usuarioService, times(1)).obtenerResumenPorId(NON_EXISTENT_ID);
     }
 
     @Test
@@ -101,14 +171,32 @@ class UsuarioControllerTest {
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(post("/api/usuarios")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(nuevoUsuario))) // Convierte el objeto a JSON para el cuerpo de la petición
+                        .content(cuerpo(nuevoUsuario))) // Convierte el objeto a JSON para el cuerpo de la petición
                 .andExpect(status().isOk()) // Espera un 200 OK
                 .andExpect(jsonPath("$.id").value(USER_ID_1.toString()))
-                .andExpect(jsonPath("$.nombre").value(nuevoUsuario.getNombre()));
+                .andExpect(jsonPath("$.nombre").value(nuevoUsuario.getNombre()))
+                // La contraseña recibida nunca vuelve en la respuesta
+                .andExpect(jsonPath("$.contrasena").doesNotExist());
 
         verify(usuarioService, times(1)).guardarUsuario(any(Usuario.class));
     }
 
+    @Test
+    void testCrearUsuarioConEmailDuplicadoDesdeBaseDeDatos() throws Exception {
+        // 1. Preparación (Arrange)
+        Usuario nuevoUsuario = new Usuario(null, "Carlos Ruiz", "juan@example.com", "pass7890", "Av. Siempre Viva 123", "555111222", Rol.ADMINISTRADOR);
+        when(usuarioService.guardarUsuario(any(Usuario.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'juan@example.com' for key 'usuario.uk_usuario_email'")));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(post("/api/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(nuevoUsuario)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Ya existe un usuario con ese correo"));
+    }
+
     @Test
     void testCrearUsuarioConValidacionFalla() throws Exception {
         // 1. Preparación (Arrange)
@@ -122,78 +210,200 @@ class UsuarioControllerTest {
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(post("/api/usuarios")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(usuarioInvalido)))
+                        .content(cuerpo(usuarioInvalido)))
                 .andExpect(status().isBadRequest()) // Espera un 400 Bad Request
                 .andExpect(jsonPath("$").isArray()); // Espera una lista de errores de validación del GlobalExceptionHandler
 
         verify(usuarioService, never()).guardarUsuario(any(Usuario.class)); // Asegura que el servicio nunca fue llamado
     }
 
+    @Test
+    void testCrearLote() throws Exception {
+        // 1. Preparación (Arrange)
+        Usuario valido = new Usuario(null, "Carlos Ruiz", "carlos@example.com", "pass7890", "Av. Siempre Viva 123", "555111222", Rol.CLIENTE);
+        Usuario invalido = new Usuario(null, "C", "email-invalido", "short", null, "123", null);
+        when(usuarioLoteService.crearUsuarios(anyList())).thenReturn(new ResultadoLote(1, 1, List.of(
+                ResultadoLote.Item.creado(0, "carlos@example.com", USER_ID_1),
+                ResultadoLote.Item.error(1, "email-invalido", List.of("email: El email no es válido")))));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        // Un usuario inválido no rechaza el lote completo
+        mockMvc.perform(post("/api/usuarios/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(valido, invalido)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creados").value(1))
+                .andExpect(jsonPath("$.resultados[0].id").value(USER_ID_1.toString()))
+                .andExpect(jsonPath("$.resultados[1].estado").value("ERROR"));
+
+        verify(usuarioLoteService, times(1)).crearUsuarios(anyList());
+    }
+
+    @Test
+    void testCrearLoteVacio() throws Exception {
+        mockMvc.perform(post("/api/usuarios/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(usuarioLoteService, never()).crearUsuarios(anyList());
+    }
+
     @Test
     void testActualizarUsuarioExitoso() throws Exception {
         // 1. Preparación (Arrange)
         Usuario usuarioActualizadoDatos = new Usuario(USER_ID_1, "Juan Perez Editado", "juan.editado@example.com", "newpass123", "Nueva Dir 456", "999888777", Rol.VENDEDOR);
 
-        // Mockear que el usuario existe antes de intentar actualizar
-        when(usuarioService.obtenerUsuarioPorId(USER_ID_1)).thenReturn(Optional.of(testUsuario1));
-        // Mockear que el servicio guarda el usuario actualizado
-        when(usuarioService.guardarUsuario(any(Usuario.class))).thenReturn(usuarioActualizadoDatos);
+        // Mockear que el servicio reemplaza el usuario en una sola sentencia
+        when(usuarioService.actualizarUsuario(eq(USER_ID_1), any(Usuario.class))).thenReturn(Optional.of(usuarioActualizadoDatos));
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(put("/api/usuarios/{id}", USER_ID_1)
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(usuarioActualizadoDatos)))
+                        .content(cuerpo(usuarioActualizadoDatos)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(USER_ID_1.toString()))
                 .andExpect(jsonPath("$.nombre").value("Juan Perez Editado"))
                 .andExpect(jsonPath("$.email").value("juan.editado@example.com"));
 
-        verify(usuarioService, times(1)).obtenerUsuarioPorId(USER_ID_1);
-        verify(usuarioService, times(1)).guardarUsuario(any(Usuario.class));
+        verify(usuarioService, times(1)).actualizarUsuario(eq(USER_ID_1), any(Usuario.class));
+        verify(usuarioService, never()).obtenerResumenPorId(any(UUID.class));
+        verify(usuarioService, never()).guardarUsuario(any(Usuario.class));
     }
 
     @Test
     void testActualizarUsuarioNoExistente() throws Exception {
         // 1. Preparación (Arrange)
         Usuario usuarioActualizadoDatos = new Usuario(NON_EXISTENT_ID, "Usuario No Existente", "noexistente@example.com", "validpass123", "dir", "987654321", Rol.CLIENTE);
-        when(usuarioService.obtenerUsuarioPorId(NON_EXISTENT_ID)).thenReturn(Optional.empty());
+        when(usuarioService.actualizarUsuario(eq(NON_EXISTENT_ID), any(Usuario.class))).thenReturn(Optional.empty());
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(put("/api/usuarios/{id}", NON_EXISTENT_ID)
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(usuarioActualizadoDatos)))
+                        .content(cuerpo(usuarioActualizadoDatos)))
                 .andExpect(status().isNotFound()); // Espera un 404 Not Found
 
-        verify(usuarioService, times(1)).obtenerUsuarioPorId(NON_EXISTENT_ID);
+        verify(usuarioService, times(1)).actualizarUsuario(eq(NON_EXISTENT_ID), any(Usuario.class));
         verify(usuarioService, never()).guardarUsuario(any(Usuario.class)); // Asegura que el servicio de guardar nunca fue llamado
     }
 
+    @Test
+    void testActualizarParcialUsuario() throws Exception {
+        // 1. Preparación (Arrange)
+        Usuario actualizado = new Usuario(USER_ID_1, "Juan Perez", "juan@example.com", "pass123", "Nueva Dir 456", "111222333", Rol.CLIENTE);
+        when(usuarioService.actualizarParcial(USER_ID_1, Map.of("direccion", "Nueva Dir 456"))).thenReturn(Optional.of(actualizado));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(patch("/api/usuarios/{id}", USER_ID_1)
+                        .contentType(UsuarioController.MERGE_PATCH_JSON)
+                        .content("{\"direccion\":\"Nueva Dir 456\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.direccion").value("Nueva Dir 456"));
+
+        // Sin lectura previa ni guardado de la entidad completa
+        verify(usuarioService, never()).obtenerResumenPorId(any(UUID.class));
+        verify(usuarioService, never()).guardarUsuario(any(Usuario.class));
+    }
+
+    @Test
+    void testActualizarParcialUsuarioNoExistente() throws Exception {
+        // 1. Preparación (Arrange)
+        when(usuarioService.actualizarParcial(eq(NON_EXISTENT_ID), anyMap())).thenReturn(Optional.empty());
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(patch("/api/usuarios/{id}", NON_EXISTENT_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Otro\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testActualizarParcialConCampoNoModificable() throws Exception {
+        // 1. Preparación (Arrange)
+        when(usuarioService.actualizarParcial(eq(USER_ID_1), anyMap()))
+                .thenThrow(new IllegalArgumentException("El campo no se puede modificar: id"));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(patch("/api/usuarios/{id}", USER_ID_1)
+                        .contentType(UsuarioController.MERGE_PATCH_JSON)
+                        .content("{\"id\":\"" + NON_EXISTENT_ID + "\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testEliminarUsuarioExitoso() throws Exception {
         // 1. Preparación (Arrange)
-        when(usuarioService.obtenerUsuarioPorId(USER_ID_1)).thenReturn(Optional.of(testUsuario1)); // Simula que el usuario existe
-        doNothing().when(usuarioService).eliminarUsuario(USER_ID_1); // Mockea el método void del servicio
+        when(usuarioService.eliminarUsuario(USER_ID_1)).thenReturn(true); // Simula que el usuario existía
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(delete("/api/usuarios/{id}", USER_ID_1)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent()); // Espera un 204 No Content
 
-        verify(usuarioService, times(1)).obtenerUsuarioPorId(USER_ID_1);
+        // Sin consulta previa: el número de filas borradas decide la respuesta
+        verify(usuarioService, never()).obtenerResumenPorId(any(UUID.class));
         verify(usuarioService, times(1)).eliminarUsuario(USER_ID_1);
     }
 
     @Test
     void testEliminarUsuarioNoExistente() throws Exception {
         // 1. Preparación (Arrange)
-        when(usuarioService.obtenerUsuarioPorId(NON_EXISTENT_ID)).thenReturn(Optional.empty()); // Simula que el usuario NO existe
+        when(usuarioService.eliminarUsuario(NON_EXISTENT_ID)).thenReturn(false); // Simula que el usuario NO existe
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         mockMvc.perform(delete("/api/usuarios/{id}", NON_EXISTENT_ID)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound()); // Espera un 404 Not Found
 
-        verify(usuarioService, times(1)).obtenerUsuarioPorId(NON_EXISTENT_ID);
-        verify(usuarioService, never()).eliminarUsuario(any(UUID.class)); // Asegura que el servicio de eliminar nunca fue llamado
+        verify(usuarioService, never()).obtenerResumenPorId(any(UUID.class));
+        verify(usuarioService, times(1)).eliminarUsuario(NON_EXISTENT_ID);
+    }
+
+    @Test
+    void testEliminarVariosUsuarios() throws Exception {
+        // 1. Preparación (Arrange)
+        List<UUID> ids = List.of(USER_ID_1, NON_EXISTENT_ID);
+        when(usuarioService.eliminarUsuarios(ids)).thenReturn(1);
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(delete("/api/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.eliminados").value(1));
+
+        verify(usuarioService, times(1)).eliminarUsuarios(ids);
+    }
+
+    @Test
+    void testCrearUsuarioConPoolDeHashSaturado() throws Exception {
+        // 1. Preparación (Arrange)
+        Usuario nuevo = new Usuario(null, "Pedro Gomez", "pedro@example.com", "password123", "Dir", "777888999", Rol.CLIENTE);
+        when(usuarioService.guardarUsuario(any(Usuario.class))).thenThrow(new ServicioSaturadoException(
+                "Demasiadas operaciones de contraseña en curso, reintente más tarde", new RejectedExecutionException()));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        mockMvc.perform(post("/api/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo(nuevo)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    // La contraseña es WRITE_ONLY y Jackson no la serializa: se añade a mano al cuerpo de la petición
+    private String cuerpo(Usuario usuario) {
+        ObjectNode nodo = objectMapper.valueToTree(usuario);
+        nodo.put("contrasena", usuario.getContraseña());
+        return nodo.toString();
+    }
+
+    private String cuerpo(Usuario... usuarios) {
+        ArrayNode lista = objectMapper.createArrayNode();
+        for (Usuario usuario : usuarios) {
+            ObjectNode nodo = objectMapper.valueToTree(usuario);
+            nodo.put("contrasena", usuario.getContraseña());
+            lista.add(nodo);
+        }
+        return lista.toString();
     }
-}
\ No newline at end of file
+}
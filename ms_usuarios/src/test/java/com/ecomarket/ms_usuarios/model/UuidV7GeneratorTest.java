@@ -0,0 +1,52 @@
+package com.ecomarket.ms_usuarios.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void generaVersion7ConVarianteRfc() {
+        UUID id = UuidV7Generator.generar();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void losPrimeros48BitsSonElTimestamp() {
+        long ahora = System.currentTimeMillis();
+
+        UUID id = UuidV7Generator.generar(ahora);
+
+        assertThat(id.getMostSignificantBits() >>> 16).isGreaterThanOrEqualTo(ahora);
+    }
+
+    @Test
+    void idsConsecutivosCrecenEnOrdenDeBytes() {
+        // BINARY(16) se compara byte a byte, igual que una comparación sin signo de los 64 bits altos
+        List<UUID> ids = new ArrayList<>();
+        long milisegundo = System.currentTimeMillis();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7Generator.generar(milisegundo));
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(), ids.get(i).getMostSignificantBits()))
+                    .isNegative();
+        }
+    }
+
+    @Test
+    void relojQueRetrocedeNoRompeElOrden() {
+        UUID primero = UuidV7Generator.generar(System.currentTimeMillis() + 1_000);
+        UUID segundo = UuidV7Generator.generar(System.currentTimeMillis());
+
+        assertThat(Long.compareUnsigned(primero.getMostSignificantBits(), segundo.getMostSignificantBits())).isNegative();
+    }
+}
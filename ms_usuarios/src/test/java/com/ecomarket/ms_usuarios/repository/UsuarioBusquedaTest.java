@@ -0,0 +1,140 @@
+package com.ecomarket.ms_usuarios.repository;
+
+import com.ecomarket.ms_usuarios.config.ContadorSentencias;
+import com.ecomarket.ms_usuarios.dto.FiltroUsuarios;
+import com.ecomarket.ms_usuarios.dto.Pagina;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.service.CursorPaginacion;
+import com.ecomarket.ms_usuarios.service.UsuarioService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Búsqueda filtrada contra H2. El plan se comprueba con EXPLAIN sobre la misma sentencia que
+// Hibernate genera (capturada con ContadorSentencias), no sobre una consulta escrita a mano.
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioBusquedaTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario juan;
+
+    @BeforeEach
+    void setUp() {
+        juan = usuarioService.guardarUsuario(new Usuario(null, "Juan Perez", "juan@ecomarket.cl", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+        usuarioService.guardarUsuario(new Usuario(null, "Julia Soto", "julia@Proveedor.cl", "pass12345", "Calle 2", "123456780", Rol.VENDEDOR));
+        usuarioService.guardarUsuario(new Usuario(null, "Maria Lopez", "maria@proveedor.cl", "pass12345", "Calle 3", "123456781", Rol.VENDEDOR));
+        usuarioService.guardarUsuario(new Usuario(null, "Ju_an Raro", "raro@ecomarket.cl", "pass12345", "Calle 4", "123456782", Rol.CLIENTE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    // Todas las combinaciones admitidas (al menos un filtro)
+    static Stream<FiltroUsuarios> combinaciones() {
+        List<FiltroUsuarios> filtros = new ArrayList<>();
+        for (Rol rol : new Rol[]{null, Rol.VENDEDOR}) {
+            for (String nombre : new String[]{null, "Ju"}) {
+                for (String dominio : new String[]{null, "proveedor.cl"}) {
+                    FiltroUsuarios filtro = new FiltroUsuarios(rol, nombre, dominio);
+                    if (!filtro.vacio()) {
+                        filtros.add(filtro);
+                    }
+                }
+            }
+        }
+        return filtros.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("combinaciones")
+    void cadaCombinacionUsaUnIndiceDeLaBusqueda(FiltroUsuarios filtro) {
+        // Primera página y páginas siguientes (con "id > cursor", que podría llevar al índice de la PK)
+        assertThat(plan(filtro, null)).contains("idx_usuario_").doesNotContain("tableScan");
+        assertThat(plan(filtro, CursorPaginacion.codificar(juan.getId()))).contains("idx_usuario_").doesNotContain("tableScan");
+    }
+
+    @Test
+    void filtraPorRolNombreYDominio() {
+        assertThat(nombres(new FiltroUsuarios(Rol.VENDEDOR, null, null))).containsExactlyInAnyOrder("Julia Soto", "Maria Lopez");
+        assertThat(nombres(new FiltroUsuarios(null, "Ju", null))).containsExactlyInAnyOrder("Juan Perez", "Julia Soto", "Ju_an Raro");
+        // El dominio no distingue mayúsculas y admite la arroba inicial
+        assertThat(nombres(new FiltroUsuarios(null, null, "@PROVEEDOR.cl"))).containsExactlyInAnyOrder("Julia Soto", "Maria Lopez");
+        assertThat(nombres(new FiltroUsuarios(Rol.VENDEDOR, "Ju", "proveedor.cl"))).containsExactly("Julia Soto");
+    }
+
+    @Test
+    void losComodinesDelPrefijoSonLiterales() {
+        assertThat(nombres(new FiltroUsuarios(null, "Ju_", null))).containsExactly("Ju_an Raro");
+        assertThat(nombres(new FiltroUsuarios(null, "%", null))).isEmpty();
+    }
+
+    @Test
+    void paginaPorCursorSinRepetirResultados() {
+        FiltroUsuarios filtro = new FiltroUsuarios(null, "Ju", null);
+
+        Pagina<UsuarioResumen> primera = usuarioService.buscarUsuarios(filtro, null, 2);
+        Pagina<UsuarioResumen> segunda = usuarioService.buscarUsuarios(filtro, primera.siguiente(), 2);
+
+        assertThat(primera.contenido()).hasSize(2);
+        assertThat(segunda.contenido()).hasSize(1);
+        assertThat(segunda.tieneSiguiente()).isFalse();
+        assertThat(primera.contenido()).doesNotContainAnyElementsOf(segunda.contenido());
+    }
+
+    @Test
+    void cambioDeEmailActualizaElDominio() {
+        usuarioService.actualizarParcial(juan.getId(), Map.of("email", "juan@proveedor.cl"));
+
+        assertThat(nombres(new FiltroUsuarios(null, null, "proveedor.cl"))).contains("Juan Perez");
+        assertThat(nombres(new FiltroUsuarios(null, null, "ecomarket.cl"))).doesNotContain("Juan Perez");
+    }
+
+    @Test
+    void rellenaElDominioDeFilasAnteriores() {
+        jdbcTemplate.update("update usuario set email_dominio = null");
+
+        assertThat(usuarioRepository.rellenarDominiosEmail()).isEqualTo(4);
+        assertThat(nombres(new FiltroUsuarios(null, null, "proveedor.cl"))).containsExactlyInAnyOrder("Julia Soto", "Maria Lopez");
+    }
+
+    private List<String> nombres(FiltroUsuarios filtro) {
+        return usuarioService.buscarUsuarios(filtro, null, 50).contenido().stream().map(UsuarioResumen::nombre).toList();
+    }
+
+    // EXPLAIN de la consulta que ejecuta el servicio; H2 planifica sin valores para los parámetros
+    private String plan(FiltroUsuarios filtro, String cursor) {
+        String sql;
+        try (ContadorSentencias.Contador contador = ContadorSentencias.iniciar()) {
+            usuarioService.buscarUsuarios(filtro, cursor, 1);
+            assertThat(contador.getSentencias()).hasSize(1);
+            sql = contador.getSentencias().get(0);
+        }
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+}
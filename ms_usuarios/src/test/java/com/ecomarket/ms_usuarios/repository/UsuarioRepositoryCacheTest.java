@@ -0,0 +1,116 @@
+package com.ecomarket.ms_usuarios.repository;
+
+import com.ecomarket.ms_usuarios.config.ContadorSentencias;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Caché de segundo nivel contra H2: cada llamada al repositorio es su propia transacción, así que
+// los aciertos vienen de la región compartida y no del contexto de persistencia.
+// La caché de usuarios del servicio no interviene: se usa el repositorio directamente.
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioRepositoryCacheTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+    private Usuario juan;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        juan = usuarioRepository.save(new Usuario(null, "Juan Perez", "juan@example.com", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    // Ejecuta la lectura contando las sentencias SQL que llegan a la base de datos
+    private <T> T sinSql(int esperadas, Supplier<T> lectura) {
+        try (ContadorSentencias.Contador contador = ContadorSentencias.iniciar()) {
+            T resultado = lectura.get();
+            assertThat(contador.getSentencias()).hasSize(esperadas);
+            return resultado;
+        }
+    }
+
+    @Test
+    void findByIdTrasGuardarNoConsultaLaBaseDeDatos() {
+        Optional<Usuario> leido = sinSql(0, () -> usuarioRepository.findById(juan.getId()));
+
+        assertThat(leido).hasValueSatisfying(usuario -> assertThat(usuario.getNombre()).isEqualTo("Juan Perez"));
+        assertThat(estadisticas.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saveActualizaLaEntradaEnCache() {
+        juan.setNombre("Juan Editado");
+        usuarioRepository.save(juan);
+
+        Optional<Usuario> leido = sinSql(0, () -> usuarioRepository.findById(juan.getId()));
+
+        assertThat(leido).hasValueSatisfying(usuario -> assertThat(usuario.getNombre()).isEqualTo("Juan Editado"));
+    }
+
+    @Test
+    void deleteByIdEliminaLaEntrada() {
+        usuarioRepository.findById(juan.getId());
+
+        usuarioRepository.deleteById(juan.getId());
+
+        assertThat(sinSql(1, () -> usuarioRepository.findById(juan.getId()))).isEmpty();
+    }
+
+    @Test
+    void actualizacionMasivaInvalidaLaRegion() {
+        usuarioRepository.findById(juan.getId());
+
+        usuarioRepository.actualizarCampos(juan.getId(), Map.of("nombre", "Juan Parcheado"), null);
+
+        Optional<Usuario> leido = sinSql(1, () -> usuarioRepository.findById(juan.getId()));
+        assertThat(leido).hasValueSatisfying(usuario -> assertThat(usuario.getNombre()).isEqualTo("Juan Parcheado"));
+    }
+
+    @Test
+    void findByEmailUsaLaCacheDeConsultas() {
+        usuarioRepository.findByEmail("juan@example.com");
+
+        Optional<Usuario> segunda = sinSql(0, () -> usuarioRepository.findByEmail("juan@example.com"));
+
+        assertThat(segunda).isPresent();
+        assertThat(estadisticas.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cambioDeEmailInvalidaLaConsultaCacheada() {
+        usuarioRepository.findByEmail("juan@example.com");
+
+        juan.setEmail("juan.nuevo@example.com");
+        usuarioRepository.save(juan);
+
+        assertThat(sinSql(1, () -> usuarioRepository.findByEmail("juan@example.com"))).isEmpty();
+        assertThat(usuarioRepository.findByEmail("juan.nuevo@example.com")).isPresent();
+    }
+}
@@ -1,28 +1,39 @@
 package com.ecomarket.ms_usuarios.service;
 
+import com.ecomarket.ms_usuarios.config.JwtProperties;
+import com.ecomarket.ms_usuarios.dto.TokenVerificado;
 import com.ecomarket.ms_usuarios.model.Rol;
 import com.ecomarket.ms_usuarios.model.Usuario;
 import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.support.NoOpCacheManager;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 class AuthServiceTest {
 
     private UsuarioRepository repository;
+    private HashContrasenas hashContrasenas;
+    private VerificadorTokens verificadorTokens;
+    private FiltroEmails filtroEmails;
+    private SimpleMeterRegistry registry;
     private AuthService authService;
 
     private final Usuario usuarioEjemplo = new Usuario(
             UUID.randomUUID(),
             "Juan Pérez",
             "juan@example.com",
-            "password123", // contraseña simulada
+            "password123", // contraseña heredada en texto plano
             "Calle Falsa 123",
             "123456789",
             Rol.CLIENTE
@@ -31,7 +42,18 @@ class AuthServiceTest {
     @BeforeEach
     void setUp() {
         repository = mock(UsuarioRepository.class);
-        authService = new AuthService(repository);
+        hashContrasenas = new HashContrasenas(5, Duration.ofMillis(250), 1, 8, Duration.ofSeconds(5));
+        JwtProperties jwt = VerificadorTokensTest.propiedades(Duration.ofHours(2));
+        verificadorTokens = new VerificadorTokens(jwt);
+        registry = new SimpleMeterRegistry();
+        filtroEmails = mock(FiltroEmails.class);
+        when(filtroEmails.podriaExistir(anyString())).thenReturn(true);
+        authService = new AuthService(repository, new UsuarioCache(new NoOpCacheManager(), Duration.ZERO), hashContrasenas,
+                new EmisorTokens(jwt), filtroEmails, registry);
+    }
+
+    private double contadorLogin(String motivo) {
+        return registry.get(AuthService.METRICA_LOGIN).tag("motivo", motivo).counter().count();
     }
 
     @Test
@@ -46,6 +68,13 @@ class AuthServiceTest {
         assertNotNull(result.get("token"));
         assertNotNull(result.get("expiracion"));
         assertEquals("juan@example.com", result.get("usuario"));
+
+        // El token lleva id, email y rol, y se verifica sin consultar el repositorio
+        TokenVerificado claims = verificadorTokens.verificar((String) result.get("token"));
+        assertEquals(usuarioEjemplo.getId(), claims.id());
+        assertEquals("juan@example.com", claims.email());
+        assertEquals(Rol.CLIENTE, claims.rol());
+        assertEquals(1.0, contadorLogin("ok"));
     }
 
     @Test
@@ -57,6 +86,22 @@ class AuthServiceTest {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
                 authService.login("noexiste@example.com", "password123"));
         assertEquals("Usuario no encontrado", ex.getMessage());
+        assertEquals(1.0, contadorLogin("usuario_no_encontrado"));
+        assertEquals(0.0, contadorLogin("ok"));
+    }
+
+    @Test
+    void loginConEmailDescartadoPorElFiltro_noConsultaElRepositorio() {
+        // Arrange
+        when(filtroEmails.podriaExistir("nunca@example.com")).thenReturn(false);
+
+        // Act & Assert: mismo error que un email no encontrado en la base de datos
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                authService.login("nunca@example.com", "password123"));
+        assertEquals("Usuario no encontrado", ex.getMessage());
+        verify(repository, never()).findByEmail(anyString());
+        assertEquals(1.0, contadorLogin("email_desconocido"));
+        assertEquals(0.0, contadorLogin("usuario_no_encontrado"));
     }
 
     @Test
@@ -68,5 +113,49 @@ class AuthServiceTest {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
                 authService.login("juan@example.com", "otraContraseña"));
         assertEquals("Credenciales incorrectas", ex.getMessage());
+        assertEquals(1.0, contadorLogin("credenciales_incorrectas"));
+    }
+
+    @Test
+    void loginConTextoPlanoHeredado_guardaHashActual() {
+        // Arrange
+        when(repository.findByEmail("juan@example.com")).thenReturn(Optional.of(usuarioEjemplo));
+        when(repository.actualizarContrasena(any(), anyString(), anyString())).thenReturn(1);
+
+        // Act
+        authService.login("juan@example.com", "password123");
+
+        // Assert: update dirigido, condicionado al valor anterior
+        verify(repository).actualizarContrasena(eq(usuarioEjemplo.getId()), eq("password123"),
+                argThat(hash -> hash.startsWith("$2a$05$") && hashContrasenas.verificar("password123", hash)));
+    }
+
+    @Test
+    void loginConHashDeCosteAntiguo_loActualiza() {
+        // Arrange
+        String hashAntiguo = new HashContrasenas(4, Duration.ofMillis(250), 1, 8, Duration.ofSeconds(5)).hashear("password123");
+        usuarioEjemplo.setContraseña(hashAntiguo);
+        when(repository.findByEmail("juan@example.com")).thenReturn(Optional.of(usuarioEjemplo));
+
+        // Act
+        authService.login("juan@example.com", "password123");
+
+        // Assert
+        verify(repository).actualizarContrasena(eq(usuarioEjemplo.getId()), eq(hashAntiguo),
+                argThat(hash -> hash.startsWith("$2a$05$")));
+    }
+
+    @Test
+    void loginConHashActual_noReescribeLaContrasena() {
+        // Arrange
+        usuarioEjemplo.setContraseña(hashContrasenas.hashear("password123"));
+        when(repository.findByEmail("juan@example.com")).thenReturn(Optional.of(usuarioEjemplo));
+
+        // Act
+        Map<String, Object> result = authService.login("juan@example.com", "password123");
+
+        // Assert
+        assertNotNull(result.get("token"));
+        verify(repository, never()).actualizarContrasena(any(), any(), any());
     }
 }
@@ -0,0 +1,61 @@
+package com.ecomarket.ms_usuarios.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// El calentamiento se ejecuta al arrancar el contexto, contra el servidor real en un puerto aleatorio
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "usuarios.calentamiento.enabled=true",
+        "usuarios.calentamiento.peticiones=3",
+        "usuarios.calentamiento.logins=2"
+})
+@ActiveProfiles("test")
+class CalentamientoArranqueTest {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @SpyBean
+    private FiltroEmails filtroEmails;
+
+    @SpyBean
+    private HashContrasenas hashContrasenas;
+
+    @SpyBean
+    private EmisorTokens emisorTokens;
+
+    @Test
+    void recorreElListadoYElLoginAntesDeEstarLista() {
+        // 1. Preparación (Arrange): el contexto ya arrancó y con él el calentamiento
+
+        // 2. Ejecución (Act)
+        Timer listado = registry.find("http.server.requests").tag("uri", "/api/v2/usuarios").timer();
+        Timer login = registry.find("http.server.requests").tag("uri", "/api/usuarios/login").timer();
+
+        // 3. Verificación (Assert)
+        assertThat(listado).isNotNull();
+        assertThat(listado.count()).isEqualTo(3);
+        // Sin cuenta de calentamiento el login no va por HTTP: BCrypt y JWT se llaman directamente
+        assertThat(login).isNull();
+        verify(hashContrasenas, times(2)).verificar(any(), any());
+        verify(emisorTokens, times(2)).emitir(any());
+        // Con el filtro de emails ya construido
+        InOrder orden = inOrder(filtroEmails, hashContrasenas);
+        orden.verify(filtroEmails).run(any());
+        orden.verify(hashContrasenas).hashear(any());
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecomarket.ms_usuarios.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CubetasTokensTest {
+
+    // Reloj manual en nanosegundos
+    private final AtomicLong ahora = new AtomicLong(1_000);
+
+    private CubetasTokens cubetas(int capacidad, int maximoClaves, int franjas) {
+        return new CubetasTokens(capacidad, Duration.ofMinutes(1), maximoClaves, franjas, ahora::get);
+    }
+
+    @Test
+    void agotaLaCapacidadYRecargaConElTiempo() {
+        // 1. Preparación (Arrange): 3 intentos por minuto, uno cada 20 s
+        CubetasTokens cubetas = cubetas(3, 100, 4);
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        assertThat(cubetas.consumir("a@example.com")).isZero();
+        assertThat(cubetas.consumir("a@example.com")).isZero();
+        assertThat(cubetas.consumir("a@example.com")).isZero();
+        assertThat(cubetas.consumir("a@example.com")).isEqualTo(TimeUnit.SECONDS.toNanos(20));
+
+        ahora.addAndGet(TimeUnit.SECONDS.toNanos(15));
+        assertThat(cubetas.consumir("a@example.com")).isEqualTo(TimeUnit.SECONDS.toNanos(5));
+
+        ahora.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(cubetas.consumir("a@example.com")).isZero();
+    }
+
+    @Test
+    void lasClavesNoComparten() {
+        CubetasTokens cubetas = cubetas(1, 100, 4);
+
+        assertThat(cubetas.consumir("a@example.com")).isZero();
+        assertThat(cubetas.consumir("a@example.com")).isPositive();
+        assertThat(cubetas.consumir("b@example.com")).isZero();
+    }
+
+    @Test
+    void acotaElNumeroDeClavesDescartandoLaMenosReciente() {
+        // 1. Preparación (Arrange): una sola franja de 2 claves
+        CubetasTokens cubetas = cubetas(1, 2, 1);
+        cubetas.consumir("a");
+        cubetas.consumir("b");
+
+        // 2. Ejecución (Act)
+        cubetas.consumir("c");
+
+        // 3. Verificación (Assert): "a" salió y vuelve con la cubeta llena; "c" sigue agotada
+        assertThat(cubetas.tamano()).isEqualTo(2);
+        assertThat(cubetas.consumir("a")).isZero();
+        assertThat(cubetas.consumir("c")).isPositive();
+    }
+
+    @Test
+    void descartaLasClavesInactivasAlCrearOtras() {
+        CubetasTokens cubetas = cubetas(5, 1000, 1);
+        for (int i = 0; i < 100; i++) {
+            cubetas.consumir("ip-" + i);
+        }
+
+        ahora.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        cubetas.consumir("nueva");
+
+        assertThat(cubetas.tamano()).isEqualTo(1);
+    }
+
+    @Test
+    void repartePorFranjasSinSuperarElMaximo() {
+        // 1. Preparación (Arrange): 48 franjas de 3 claves (100 / 48 redondeado hacia arriba)
+        CubetasTokens cubetas = cubetas(1, 100, 48);
+
+        // 2. Ejecución (Act)
+        for (int i = 0; i < 10_000; i++) {
+            cubetas.consumir("usuario" + i + "@example.com");
+        }
+
+        // 3. Verificación (Assert)
+        assertThat(cubetas.maximoClaves()).isEqualTo(144);
+        assertThat(cubetas.tamano()).isEqualTo(144);
+    }
+}
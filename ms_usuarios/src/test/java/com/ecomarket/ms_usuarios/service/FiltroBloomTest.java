@@ -0,0 +1,59 @@
+package com.ecomarket.ms_usuarios.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FiltroBloomTest {
+
+    @Test
+    void noTieneFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filtro.podriaContener("usuario" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void respetaLaProbabilidadDeFalsosPositivosConfigurada() {
+        // 1. Preparación (Arrange): lleno hasta su capacidad
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@example.com");
+        }
+
+        // 2. Ejecución (Act)
+        int falsos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.podriaContener("otro" + i + "@example.com")) {
+                falsos++;
+            }
+        }
+
+        // 3. Verificación (Assert): ~1 % con margen para la varianza
+        assertThat(falsos / 100_000.0).isLessThan(0.015);
+        assertThat(filtro.probabilidadEstimada()).isBetween(0.005, 0.015);
+        assertThat(filtro.funciones()).isEqualTo(7);
+        // ~9,6 bits por elemento para un 1 %
+        assertThat(filtro.bytes()).isBetween(11_000L, 13_000L);
+    }
+
+    @Test
+    void vacioNoContieneNada() {
+        FiltroBloom filtro = new FiltroBloom(100, 0.01);
+
+        assertThat(filtro.podriaContener("juan@example.com")).isFalse();
+        assertThat(filtro.probabilidadEstimada()).isZero();
+    }
+
+    @Test
+    void rechazaParametrosInvalidos() {
+        assertThatThrownBy(() -> new FiltroBloom(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FiltroBloom(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
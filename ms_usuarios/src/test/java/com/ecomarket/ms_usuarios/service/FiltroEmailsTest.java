@@ -0,0 +1,104 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Construcción y mantenimiento del filtro de emails contra H2
+@SpringBootTest
+@ActiveProfiles("test")
+class FiltroEmailsTest {
+
+    @Autowired
+    private FiltroEmails filtroEmails;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    @Autowired
+    private EventosUsuario eventos;
+
+    @Autowired
+    private RelevoEventos relevo;
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+        filtroEmails.reconstruir();
+    }
+
+    @Test
+    void lasAltasDelServicioSeVenAlMomentoSinDistinguirMayusculas() {
+        usuarioService.guardarUsuario(new Usuario(null, "Anacleto Ferrer", "anacleto@example.com", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+
+        assertThat(filtroEmails.podriaExistir("anacleto@example.com")).isTrue();
+        assertThat(filtroEmails.podriaExistir("Anacleto@Example.com")).isTrue();
+        assertThat(filtroEmails.podriaExistir("nadie@example.com")).isFalse();
+    }
+
+    @Test
+    void elRefrescoRecogeLasAltasDeOtrasInstancias() {
+        // 1. Preparación (Arrange): otra instancia escribe la fila y su evento; aquí no pasa por registrar()
+        transaccion.executeWithoutResult(estado -> eventos.creado(usuarioRepository.save(
+                new Usuario(null, "Gumersinda Olmos", "gumersinda@example.com", "pass12345", "Calle 2", "123456780", Rol.VENDEDOR))));
+        relevo.relevar();
+        assertThat(filtroEmails.podriaExistir("gumersinda@example.com")).isFalse();
+
+        // 2. Ejecución (Act)
+        filtroEmails.refrescar();
+
+        // 3. Verificación (Assert)
+        assertThat(filtroEmails.podriaExistir("gumersinda@example.com")).isTrue();
+    }
+
+    @Test
+    void elRefrescoRecogeLosCambiosDeEmailDeOtrasInstancias() {
+        // 1. Preparación (Arrange): otra instancia cambia el email y anota su evento; el id no cambia
+        Usuario usuario = usuarioService.guardarUsuario(new Usuario(null, "Eustaquia Rivas", "eustaquia@example.com", "pass12345", "Calle 4", "123456782", Rol.CLIENTE));
+        transaccion.executeWithoutResult(estado -> {
+            Usuario remoto = usuarioRepository.findById(usuario.getId()).orElseThrow();
+            remoto.setEmail("erivas@example.com");
+            eventos.actualizado(usuarioRepository.saveAndFlush(remoto));
+        });
+        relevo.relevar();
+        assertThat(filtroEmails.podriaExistir("erivas@example.com")).isFalse();
+
+        // 2. Ejecución (Act)
+        filtroEmails.refrescar();
+
+        // 3. Verificación (Assert): el nuevo email ya puede iniciar sesión
+        assertThat(filtroEmails.podriaExistir("erivas@example.com")).isTrue();
+        assertThat(authService.login("erivas@example.com", "pass12345")).containsKey("token");
+    }
+
+    @Test
+    void cambiarElEmailLoRegistraYReconstruirOlvidaElAnterior() {
+        Usuario usuario = usuarioService.guardarUsuario(new Usuario(null, "Leocadio Marin", "leocadio@example.com", "pass12345", "Calle 3", "123456781", Rol.CLIENTE));
+
+        usuarioService.actualizarParcial(usuario.getId(), Map.of("email", "lmarin@example.com"));
+        assertThat(filtroEmails.podriaExistir("lmarin@example.com")).isTrue();
+
+        filtroEmails.reconstruir();
+        assertThat(filtroEmails.podriaExistir("lmarin@example.com")).isTrue();
+        assertThat(filtroEmails.podriaExistir("leocadio@example.com")).isFalse();
+    }
+}
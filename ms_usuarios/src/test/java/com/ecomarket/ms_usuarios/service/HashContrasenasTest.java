@@ -0,0 +1,75 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.exception.ServicioSaturadoException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HashContrasenasTest {
+
+    private HashContrasenas hash(int hilos, int cola) {
+        return new HashContrasenas(4, Duration.ofMillis(250), hilos, cola, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void hasheaYVerifica() {
+        HashContrasenas hashContrasenas = hash(2, 8);
+
+        String hash = hashContrasenas.hashear("password123");
+
+        assertThat(hash).startsWith("$2a$04$").isNotEqualTo("password123");
+        assertThat(hashContrasenas.verificar("password123", hash)).isTrue();
+        assertThat(hashContrasenas.verificar("otraClave", hash)).isFalse();
+        assertThat(hashContrasenas.requiereActualizacion(hash)).isFalse();
+    }
+
+    @Test
+    void textoPlanoHeredadoSeVerificaYRequiereActualizacion() {
+        HashContrasenas hashContrasenas = hash(1, 8);
+
+        assertThat(hashContrasenas.verificar("password123", "password123")).isTrue();
+        assertThat(hashContrasenas.verificar("password12", "password123")).isFalse();
+        assertThat(hashContrasenas.requiereActualizacion("password123")).isTrue();
+    }
+
+    @Test
+    void hasheaTodosConservandoElOrden() {
+        HashContrasenas hashContrasenas = hash(2, 2);
+
+        // Más contraseñas que hilos + cola: las ventanas evitan el rechazo
+        List<String> hashes = hashContrasenas.hashearTodos(List.of("clave-1", "clave-2", "clave-3", "clave-4", "clave-5"));
+
+        assertThat(hashes).hasSize(5);
+        assertThat(hashContrasenas.verificar("clave-3", hashes.get(2))).isTrue();
+        assertThat(hashContrasenas.verificar("clave-5", hashes.get(4))).isTrue();
+    }
+
+    @Test
+    void conElPoolYLaColaLlenosRechazaAlMomento() throws Exception {
+        // 1. Preparación (Arrange): un hilo ocupado y la única plaza de la cola tomada
+        HashContrasenas hashContrasenas = hash(1, 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        hashContrasenas.ejecutar(() -> liberar.await(5, TimeUnit.SECONDS));
+        hashContrasenas.ejecutar(() -> null);
+
+        try {
+            // 2. Ejecución y 3. Verificación (Act & Assert)
+            assertThrows(ServicioSaturadoException.class, () -> hashContrasenas.hashear("password123"));
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    void calibraDentroDelRango() {
+        int coste = HashContrasenas.calibrar(Duration.ofMillis(1));
+
+        assertThat(coste).isEqualTo(HashContrasenas.COSTE_MINIMO);
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.dto.Sugerencia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceTrigramasTest {
+
+    private final UUID JUAN = UUID.fromString("01890a5d-ac96-774b-bcce-b302099a8057");
+    private final UUID JULIA = UUID.fromString("01890a5d-ac96-774b-bcce-b302099a8058");
+    private final UUID MARIA = UUID.fromString("01890a5d-ac96-774b-bcce-b302099a8059");
+
+    private IndiceTrigramas indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceTrigramas();
+        indice.agregar(JUAN, "Juan Pérez", "juan.perez@ecomarket.cl");
+        indice.agregar(JULIA, "Julia Soto", "jsoto@proveedor.cl");
+        indice.agregar(MARIA, "María Juárez", "maria@ecomarket.cl");
+    }
+
+    private List<String> nombres(String consulta) {
+        return indice.buscar(consulta, 10).stream().map(Sugerencia::nombre).toList();
+    }
+
+    @Test
+    void normalizaMayusculasTildesYSeparadores() {
+        assertThat(IndiceTrigramas.normalizar("María.JUÁREZ@eco-market")).isEqualTo("maria  juarez  eco  market");
+        assertThat(nombres("PEREZ")).containsExactly("Juan Pérez");
+        assertThat(nombres("juarez")).containsExactly("María Juárez");
+    }
+
+    @Test
+    void consultasCortasBuscanInicioDePalabra() {
+        // "ju" no coincide con "maria juarez" a medias de "jsoto"; sí con el inicio de "juarez"
+        assertThat(nombres("j")).containsExactly("Juan Pérez", "Julia Soto", "María Juárez");
+        assertThat(nombres("ju")).containsExactly("Juan Pérez", "Julia Soto", "María Juárez");
+        assertThat(nombres("so")).containsExactly("Julia Soto");
+        assertThat(nombres("ot")).isEmpty();
+    }
+
+    @Test
+    void ordenaPorPrefijoDelNombreInicioDePalabraYSubcadena() {
+        indice.agregar(UUID.randomUUID(), "Ana Rojas", "arojas@ecomarket.cl");   // "rez" en medio de nada: no coincide
+        indice.agregar(UUID.randomUUID(), "Perezoso Díaz", "pdiaz@ecomarket.cl"); // prefijo del nombre
+        indice.agregar(UUID.randomUUID(), "Luis Lopérez", "luis@ecomarket.cl");   // dentro de una palabra
+
+        assertThat(nombres("perez")).containsExactly("Perezoso Díaz", "Juan Pérez", "Luis Lopérez");
+    }
+
+    @Test
+    void verificaQueLosTrigramasSeanContiguos() {
+        // "juan" y "soto" comparten trigramas sueltos con otros usuarios, pero nadie contiene "an so"
+        assertThat(nombres("an so")).isEmpty();
+        assertThat(nombres("juan pe")).containsExactly("Juan Pérez");
+    }
+
+    @Test
+    void limitaElNumeroDeResultados() {
+        assertThat(indice.buscar("j", 2)).extracting(Sugerencia::nombre).containsExactly("Juan Pérez", "Julia Soto");
+        assertThat(indice.buscar("  ", 5)).isEmpty();
+        assertThat(indice.buscar(null, 5)).isEmpty();
+    }
+
+    @Test
+    void unNombreMasCortoEntraAunqueElTopEsteLlenoDePrefijos() {
+        // 1. Preparación (Arrange): el top-2 ya se llena con "Juan Pérez" y "Julia Soto"
+        indice.agregar(UUID.randomUUID(), "Jo Paz", "jpaz@ecomarket.cl");
+        indice.agregar(UUID.randomUUID(), "Julieta Contreras", "jcontreras@ecomarket.cl");
+
+        // 2. Ejecución (Act)
+        List<Sugerencia> sugerencias = indice.buscar("j", 2);
+
+        // 3. Verificación (Assert)
+        assertThat(sugerencias).extracting(Sugerencia::nombre).containsExactly("Jo Paz", "Juan Pérez");
+    }
+
+    @Test
+    void recortarConservaLasListasYAdmiteNuevosUsuarios() {
+        long antes = indice.bytesEstimados();
+        indice.recortar();
+        assertThat(indice.bytesEstimados()).isLessThan(antes);
+
+        indice.agregar(UUID.randomUUID(), "Juana Rojas", "jrojas@ecomarket.cl");
+        assertThat(nombres("ju")).containsExactly("Juan Pérez", "Julia Soto", "Juana Rojas", "María Juárez");
+    }
+
+    @Test
+    void agregarReemplazaYEliminarQuita() {
+        indice.agregar(JUAN, "Juan Editado", "jeditado@ecomarket.cl");
+        assertThat(nombres("perez")).isEmpty();
+        assertThat(indice.buscar("editado", 5)).containsExactly(new Sugerencia(JUAN, "Juan Editado", "jeditado@ecomarket.cl"));
+
+        assertThat(indice.eliminar(JULIA)).isTrue();
+        assertThat(indice.eliminar(JULIA)).isFalse();
+        assertThat(nombres("soto")).isEmpty();
+        assertThat(indice.tamano()).isEqualTo(2);
+    }
+
+    @Test
+    void compactaTrasMuchosBorradosSinPerderUsuarios() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            indice.agregar(id, "Cliente " + i, "cliente" + i + "@ecomarket.cl");
+        }
+        long antes = indice.bytesEstimados();
+        for (int i = 0; i < 4000; i++) {
+            indice.eliminar(ids.get(i));
+        }
+
+        assertThat(indice.tamano()).isEqualTo(1003);
+        assertThat(indice.bytesEstimados()).isLessThan(antes);
+        assertThat(nombres("cliente4999")).containsExactly("Cliente 4999");
+        assertThat(nombres("cliente3999")).isEmpty();
+        assertThat(nombres("juan")).containsExactly("Juan Pérez");
+    }
+}
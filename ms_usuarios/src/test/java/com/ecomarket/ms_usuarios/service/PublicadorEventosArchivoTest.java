@@ -0,0 +1,46 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.dto.EventoUsuario;
+import com.ecomarket.ms_usuarios.model.TipoEvento;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicadorEventosArchivoTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    void escribeUnEventoPorLineaAlFinalDelArchivo(@TempDir Path directorio) throws Exception {
+        // 1. Preparación (Arrange)
+        Path archivo = directorio.resolve("eventos.ndjson");
+        PublicadorEventosArchivo publicador = new PublicadorEventosArchivo(archivo, objectMapper);
+        UUID usuarioId = UUID.randomUUID();
+
+        // 2. Ejecución (Act)
+        publicador.publicar(List.of(new EventoUsuario(UUID.randomUUID(), usuarioId, TipoEvento.CREADO,
+                Instant.parse("2026-01-01T10:00:00Z"), "{\"nombre\":\"Juan\"}")));
+        publicador.publicar(List.of(new EventoUsuario(UUID.randomUUID(), usuarioId, TipoEvento.ELIMINADO,
+                Instant.parse("2026-01-01T10:05:00Z"), null)));
+
+        // 3. Verificación (Assert)
+        List<String> lineas = Files.readAllLines(archivo);
+        assertThat(lineas).hasSize(2);
+        JsonNode alta = objectMapper.readTree(lineas.get(0));
+        assertThat(alta.get("tipo").asText()).isEqualTo("CREADO");
+        assertThat(alta.get("usuarioId").asText()).isEqualTo(usuarioId.toString());
+        // Los datos van como objeto JSON, no como cadena escapada
+        assertThat(alta.get("datos").get("nombre").asText()).isEqualTo("Juan");
+        assertThat(objectMapper.readTree(lineas.get(1)).get("tipo").asText()).isEqualTo("ELIMINADO");
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.model.CambioUsuario;
+import com.ecomarket.ms_usuarios.model.EventoOutbox;
+import com.ecomarket.ms_usuarios.model.TipoEvento;
+import com.ecomarket.ms_usuarios.repository.CambioUsuarioRepository;
+import com.ecomarket.ms_usuarios.repository.ContadorCambiosRepository;
+import com.ecomarket.ms_usuarios.repository.EventoOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Numeración del registro de cambios con relevos concurrentes contra H2
+@SpringBootTest
+@ActiveProfiles("test")
+class RegistroCambiosTest {
+
+    @Autowired
+    private RegistroCambios registroCambios;
+
+    @Autowired
+    private CambioUsuarioRepository cambioRepository;
+
+    @Autowired
+    private ContadorCambiosRepository contadorRepository;
+
+    @Autowired
+    private EventoOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    @Test
+    void dosRelevosConElRegistroVacioNoRepitenSecuencia() throws Exception {
+        // 1. Preparación (Arrange): registro vacío, como en un despliegue nuevo; sin fila que bloquear
+        // ambos relevos numerarían desde 1
+        cambioRepository.deleteAllInBatch();
+        CountDownLatch anotado = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+
+        // 2. Ejecución (Act): el primero anota y espera antes de confirmar; el segundo anota entretanto
+        try {
+            Future<?> primero = hilos.submit(() -> transaccion.executeWithoutResult(estado -> {
+                anotar(1);
+                anotado.countDown();
+                try {
+                    confirmar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(anotado.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<?> segundo = hilos.submit(() -> transaccion.executeWithoutResult(estado -> anotar(2)));
+            // El segundo queda a la espera del contador que bloquea el primero
+            Thread.sleep(200);
+            confirmar.countDown();
+            primero.get(10, TimeUnit.SECONDS);
+            segundo.get(10, TimeUnit.SECONDS);
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        // 3. Verificación (Assert): tres entradas con secuencias consecutivas
+        List<Long> secuencias = cambioRepository.findAll().stream().map(CambioUsuario::getSecuencia).sorted().toList();
+        assertThat(secuencias).hasSize(3).doesNotHaveDuplicates();
+        assertThat(secuencias.get(2) - secuencias.get(0)).isEqualTo(2);
+    }
+
+    @Test
+    void sinContadorContinuaDesdeLaUltimaEntrada() {
+        // 1. Preparación (Arrange): entradas numeradas antes de existir el contador
+        transaccion.executeWithoutResult(estado -> anotar(2));
+        long ultima = registroCambios.ultimaSecuencia();
+        contadorRepository.deleteAllInBatch();
+
+        // 2. Ejecución (Act)
+        transaccion.executeWithoutResult(estado -> anotar(1));
+
+        // 3. Verificación (Assert)
+        assertThat(registroCambios.ultimaSecuencia()).isEqualTo(ultima + 1);
+    }
+
+    // Como un lote del relevo: eventos en la outbox, anotados y retirados en la misma transacción
+    private void anotar(int eventos) {
+        List<EventoOutbox> lote = outboxRepository.saveAll(Stream.generate(
+                        () -> new EventoOutbox(UUID.randomUUID(), TipoEvento.ELIMINADO, null, Instant.now()))
+                .limit(eventos).toList());
+        registroCambios.anotar(lote);
+        outboxRepository.deleteAllInBatch(lote);
+    }
+}
@@ -0,0 +1,166 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.dto.EventoUsuario;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.TipoEvento;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.EventoOutboxRepository;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Outbox y relevo de eventos contra H2, con un publicador en memoria
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(RelevoEventosTest.ConfiguracionPublicador.class)
+class RelevoEventosTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private RelevoEventos relevo;
+
+    @Autowired
+    private PublicadorMemoria publicador;
+
+    @Autowired
+    private EventoOutboxRepository outboxRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+        outboxRepository.deleteAllInBatch();
+        publicador.recibidos.clear();
+        publicador.fallar = false;
+    }
+
+    @Test
+    void losCambiosSePublicanEnOrdenYSePurgan() {
+        // 1. Preparación (Arrange)
+        Usuario usuario = usuarioService.guardarUsuario(new Usuario(null, "Eustaquio Vidal", "eustaquio@example.com", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+        usuarioService.actualizarParcial(usuario.getId(), Map.of("direccion", "Calle 2"));
+        usuarioService.eliminarUsuario(usuario.getId());
+        assertThat(outboxRepository.count()).isEqualTo(3);
+
+        // 2. Ejecución (Act)
+        relevo.relevar();
+
+        // 3. Verificación (Assert)
+        assertThat(publicador.recibidos).extracting(EventoUsuario::tipo)
+                .containsExactly(TipoEvento.CREADO, TipoEvento.ACTUALIZADO, TipoEvento.ELIMINADO);
+        assertThat(publicador.recibidos).extracting(EventoUsuario::usuarioId).containsOnly(usuario.getId());
+        assertThat(publicador.recibidos.get(1).datos()).contains("\"direccion\":\"Calle 2\"");
+        // El resumen no lleva la contraseña
+        assertThat(publicador.recibidos.get(0).datos()).doesNotContain("contrase");
+        assertThat(publicador.recibidos.get(2).datos()).isNull();
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void siLaPublicacionFallaElLoteSeConservaYSeReintenta() {
+        // 1. Preparación (Arrange)
+        usuarioService.guardarUsuario(new Usuario(null, "Filomena Garrido", "filomena@example.com", "pass12345", "Calle 3", "123456780", Rol.VENDEDOR));
+        publicador.fallar = true;
+
+        // 2. Ejecución (Act)
+        relevo.relevar();
+
+        // 3. Verificación (Assert)
+        assertThat(publicador.recibidos).isEmpty();
+        assertThat(outboxRepository.count()).isEqualTo(1);
+
+        publicador.fallar = false;
+        relevo.relevar();
+        assertThat(publicador.recibidos).extracting(EventoUsuario::tipo).containsExactly(TipoEvento.CREADO);
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void unCambioRechazadoNoDejaEvento() {
+        usuarioService.guardarUsuario(new Usuario(null, "Saturnino Pena", "saturnino@example.com", "pass12345", "Calle 4", "123456781", Rol.CLIENTE));
+        relevo.relevar();
+
+        // El índice único rechaza el segundo alta y el evento se descarta con ella
+        assertThrows(IllegalArgumentException.class, () -> usuarioService.guardarUsuario(
+                new Usuario(null, "Otro Saturnino", "saturnino@example.com", "pass12345", "Calle 5", "123456782", Rol.CLIENTE)));
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void unAltaConIdEnElCuerpoSePublicaComoCreado() throws Exception {
+        // 1. Preparación (Arrange): el cuerpo del POST trae el id de un usuario que ya existe
+        Usuario existente = usuarioService.guardarUsuario(new Usuario(null, "Teodora Blanco", "teodora@example.com", "pass12345", "Calle 6", "123456783", Rol.CLIENTE));
+        relevo.relevar();
+        publicador.recibidos.clear();
+
+        // 2. Ejecución (Act)
+        mockMvc.perform(post("/api/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "id", existente.getId(), "nombre", "Teodora Nieto", "email", "tnieto@example.com",
+                                "contrasena", "pass12345", "rol", "CLIENTE"))))
+                .andExpect(status().isOk());
+        relevo.relevar();
+
+        // 3. Verificación (Assert): es un alta con id nuevo y el usuario existente no cambia
+        assertThat(publicador.recibidos).extracting(EventoUsuario::tipo).containsExactly(TipoEvento.CREADO);
+        assertThat(publicador.recibidos.get(0).usuarioId()).isNotEqualTo(existente.getId());
+        assertThat(usuarioRepository.findById(existente.getId())).get()
+                .extracting(Usuario::getEmail).isEqualTo("teodora@example.com");
+    }
+
+    @TestConfiguration
+    static class ConfiguracionPublicador {
+
+        @Bean
+        @Primary
+        PublicadorMemoria publicadorMemoria() {
+            return new PublicadorMemoria();
+        }
+    }
+
+    static class PublicadorMemoria implements PublicadorEventos {
+
+        final List<EventoUsuario> recibidos = new ArrayList<>();
+        volatile boolean fallar;
+
+        @Override
+        public synchronized void publicar(List<EventoUsuario> eventos) {
+            if (fallar) {
+                throw new IllegalStateException("Publicador no disponible");
+            }
+            recibidos.addAll(eventos);
+        }
+    }
+}
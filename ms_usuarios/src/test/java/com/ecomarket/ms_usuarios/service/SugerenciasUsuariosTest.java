@@ -0,0 +1,112 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.dto.Sugerencia;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Construcción y mantenimiento del índice de sugerencias contra H2
+@SpringBootTest
+@ActiveProfiles("test")
+class SugerenciasUsuariosTest {
+
+    @Autowired
+    private SugerenciasUsuarios sugerencias;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    @Autowired
+    private EventosUsuario eventos;
+
+    @Autowired
+    private RelevoEventos relevo;
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+        sugerencias.reconstruir();
+    }
+
+    @Test
+    void reconstruirIndexaLaTablaCompleta() {
+        // Escrito con el repositorio: el índice no se entera hasta reconstruirlo
+        Usuario directo = usuarioRepository.save(new Usuario(null, "Eulalia Brannigan", "eulalia@example.com", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+        assertThat(sugerencias.sugerir("brannigan", 5)).isEmpty();
+
+        sugerencias.reconstruir();
+
+        assertThat(sugerencias.sugerir("brannigan", 5))
+                .containsExactly(new Sugerencia(directo.getId(), "Eulalia Brannigan", "eulalia@example.com"));
+    }
+
+    @Test
+    void eliminarSeAplicaAlConfirmarLaTransaccion() {
+        Usuario usuario = usuarioService.guardarUsuario(new Usuario(null, "Casimiro Ledesma", "casimiro@example.com", "pass12345", "Calle 2", "123456780", Rol.VENDEDOR));
+        UUID id = usuario.getId();
+
+        // Con rollback el usuario sigue en la tabla y en el índice
+        transaccion.executeWithoutResult(estado -> {
+            usuarioService.eliminarUsuario(id);
+            estado.setRollbackOnly();
+        });
+        assertThat(sugerencias.sugerir("ledesma", 5)).extracting(Sugerencia::id).containsExactly(id);
+
+        usuarioService.eliminarUsuario(id);
+        assertThat(sugerencias.sugerir("ledesma", 5)).isEmpty();
+    }
+
+    @Test
+    void actualizarElNombreReindexa() {
+        Usuario usuario = usuarioService.guardarUsuario(new Usuario(null, "Wenceslao Prado", "wenceslao@example.com", "pass12345", "Calle 3", "123456781", Rol.CLIENTE));
+
+        usuarioService.actualizarParcial(usuario.getId(), Map.of("nombre", "Wenceslao Iturbe"));
+
+        assertThat(sugerencias.sugerir("prado", 5)).isEmpty();
+        assertThat(sugerencias.sugerir("iturbe", 5)).extracting(Sugerencia::nombre).containsExactly("Wenceslao Iturbe");
+    }
+
+    @Test
+    void losCambiosDeOtraInstanciaLleganPorElRegistroDeCambios() {
+        // 1. Preparación (Arrange): otra instancia escribe la fila y su evento; aquí no pasa por el índice
+        Usuario remoto = transaccion.execute(estado -> {
+            Usuario guardado = usuarioRepository.save(new Usuario(null, "Filomena Arriaga", "filomena@example.com", "pass12345", "Calle 4", "123456782", Rol.CLIENTE));
+            eventos.creado(guardado);
+            return guardado;
+        });
+        relevo.relevar();
+        assertThat(sugerencias.sugerir("arriaga", 5)).isEmpty();
+
+        // 2. Ejecución (Act)
+        sugerencias.sincronizar();
+
+        // 3. Verificación (Assert)
+        assertThat(sugerencias.sugerir("arriaga", 5)).extracting(Sugerencia::id).containsExactly(remoto.getId());
+
+        // El borrado remoto también se refleja
+        transaccion.executeWithoutResult(estado -> {
+            usuarioRepository.deleteById(remoto.getId());
+            eventos.eliminado(remoto.getId());
+        });
+        relevo.relevar();
+        sugerencias.sincronizar();
+        assertThat(sugerencias.sugerir("arriaga", 5)).isEmpty();
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.config.CacheConfig;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsuarioCacheTest {
+
+    private final UUID USER_ID_1 = UUID.fromString("123e4567-e89b-12d3-a456-556642440000");
+
+    private CacheManager cacheManager;
+    private UsuarioCache cache;
+
+    private Usuario usuarioEnBd;
+    private final AtomicInteger consultas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CacheConfig().cacheManager(100, Duration.ofMinutes(5));
+        cache = new UsuarioCache(cacheManager, Duration.ZERO);
+        usuarioEnBd = new Usuario(USER_ID_1, "Juan Perez", "juan@example.com", "pass1234", "Calle Falsa 123", "111222333", Rol.CLIENTE);
+        consultas.set(0);
+    }
+
+    private Optional<Usuario> desdeBd(Object clave) {
+        consultas.incrementAndGet();
+        if (clave.equals(usuarioEnBd.getId()) || clave.equals(usuarioEnBd.getEmail())) {
+            return Optional.of(new Usuario(usuarioEnBd.getId(), usuarioEnBd.getNombre(), usuarioEnBd.getEmail(),
+                    usuarioEnBd.getContraseña(), usuarioEnBd.getDireccion(), usuarioEnBd.getTelefono(), usuarioEnBd.getRol()));
+        }
+        return Optional.empty();
+    }
+
+    @Test
+    void segundaLecturaPorEmailNoConsultaLaBaseDeDatos() {
+        Function<String, Optional<Usuario>> cargador = this::desdeBd;
+
+        assertThat(cache.porEmail("juan@example.com", cargador)).isPresent();
+        assertThat(cache.porEmail("juan@example.com", cargador)).isPresent();
+        // La lectura por id reutiliza la entrada cargada por email
+        assertThat(cache.porId(USER_ID_1, this::desdeBd)).isPresent();
+
+        assertThat(consultas.get()).isEqualTo(1);
+        CacheStats stats = ((CaffeineCache) cacheManager.getCache(CacheConfig.USUARIOS_POR_ID)).getNativeCache().stats();
+        assertThat(stats.hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void devuelveCopiasQueNoAlteranLaCache() {
+        Usuario primero = cache.porId(USER_ID_1, this::desdeBd).orElseThrow();
+        primero.setContraseña("modificada");
+
+        Usuario segundo = cache.porId(USER_ID_1, this::desdeBd).orElseThrow();
+        assertThat(segundo.getContraseña()).isEqualTo("pass1234");
+    }
+
+    @Test
+    void invalidarObligaARecargar() {
+        cache.porEmail("juan@example.com", this::desdeBd);
+        usuarioEnBd.setContraseña("nuevaPass123");
+
+        cache.invalidar(USER_ID_1, "juan@example.com");
+
+        assertThat(cache.porEmail("juan@example.com", this::desdeBd).orElseThrow().getContraseña()).isEqualTo("nuevaPass123");
+        assertThat(consultas.get()).isEqualTo(2);
+    }
+
+    @Test
+    void cambioDeEmailNoSirveElCorreoAnterior() {
+        cache.porEmail("juan@example.com", this::desdeBd);
+
+        // Se actualiza el correo: el servicio invalida el id y el correo nuevo
+        usuarioEnBd.setEmail("juan.nuevo@example.com");
+        cache.invalidar(USER_ID_1, "juan.nuevo@example.com");
+
+        assertThat(cache.porEmail("juan@example.com", this::desdeBd)).isEmpty();
+        assertThat(cache.porEmail("juan.nuevo@example.com", this::desdeBd)).isPresent();
+    }
+
+    @Test
+    void cargaCruzadaConUnaEscrituraNoQuedaEnCache() {
+        cache.porId(USER_ID_1, id -> {
+            Optional<Usuario> leido = desdeBd(id);
+            // Otro hilo guarda el usuario mientras esta lectura está en curso
+            cache.invalidar(USER_ID_1, "juan@example.com");
+            return leido;
+        });
+
+        cache.porId(USER_ID_1, this::desdeBd);
+        assertThat(consultas.get()).isEqualTo(2);
+    }
+
+    @Test
+    void resumenSeInvalidaConElUsuario() {
+        Function<UUID, Optional<UsuarioResumen>> cargador = id -> desdeBd(id).map(UsuarioResumen::de);
+        cache.resumenPorId(USER_ID_1, cargador);
+        assertThat(cache.resumenPorId(USER_ID_1, cargador).orElseThrow().nombre()).isEqualTo("Juan Perez");
+        assertThat(consultas.get()).isEqualTo(1);
+
+        usuarioEnBd.setNombre("Juan Editado");
+        cache.invalidar(USER_ID_1, null);
+
+        assertThat(cache.resumenPorId(USER_ID_1, cargador).orElseThrow().nombre()).isEqualTo("Juan Editado");
+        assertThat(consultas.get()).isEqualTo(2);
+    }
+
+    @Test
+    void cacheDesactivadaSiempreConsulta() {
+        UsuarioCache desactivada = new UsuarioCache(new NoOpCacheManager(), Duration.ZERO);
+
+        desactivada.porId(USER_ID_1, this::desdeBd);
+        desactivada.porId(USER_ID_1, this::desdeBd);
+
+        assertThat(consultas.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,158 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.dto.ResultadoLote;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import jakarta.validation.ValidatorFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class UsuarioLoteServiceTest {
+
+    private UsuarioRepository repository;
+    private EntityManager entityManager;
+    private ValidatorFactory validatorFactory;
+    private HashContrasenas hashContrasenas;
+    private SugerenciasUsuarios sugerencias;
+    private UsuarioLoteService loteService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UsuarioRepository.class);
+        entityManager = mock(EntityManager.class);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        Validator validator = validatorFactory.getValidator();
+        // Bloques de 2 para comprobar el flush/clear entre bloques
+        hashContrasenas = new HashContrasenas(4, Duration.ofMillis(250), 2, 8, Duration.ofSeconds(5));
+        sugerencias = mock(SugerenciasUsuarios.class);
+        loteService = new UsuarioLoteService(repository, entityManager, validator, hashContrasenas,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), sugerencias,
+                mock(FiltroEmails.class), mock(EventosUsuario.class), 2);
+
+        // Simula el generador de ids al persistir
+        doAnswer(invocation -> {
+            invocation.<Usuario>getArgument(0).setId(UUID.randomUUID());
+            return null;
+        }).when(entityManager).persist(any(Usuario.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    private Usuario usuario(String email) {
+        return new Usuario(null, "Usuario Lote", email, "password123", "Dir", "123456789", Rol.CLIENTE);
+    }
+
+    @Test
+    void creaLosValidosYReportaCadaError() {
+        // 1. Preparación (Arrange)
+        when(repository.findEmailsExistentes(anyCollection())).thenReturn(List.of("existe@example.com"));
+        List<Usuario> usuarios = List.of(
+                usuario("a@example.com"),
+                usuario("EXISTE@example.com"),      // ya registrado (distinto uso de mayúsculas)
+                usuario("email-invalido"),
+                usuario("b@example.com"),
+                usuario("A@example.com"),           // repetido dentro del lote
+                usuario("c@example.com"));
+
+        // 2. Ejecución (Act)
+        ResultadoLote resultado = loteService.crearUsuarios(usuarios);
+
+        // 3. Verificación (Assert)
+        assertThat(resultado.creados()).isEqualTo(3);
+        assertThat(resultado.rechazados()).isEqualTo(3);
+        assertThat(resultado.resultados()).extracting(ResultadoLote.Item::estado).containsExactly(
+                ResultadoLote.Estado.CREADO, ResultadoLote.Estado.ERROR, ResultadoLote.Estado.ERROR,
+                ResultadoLote.Estado.CREADO, ResultadoLote.Estado.ERROR, ResultadoLote.Estado.CREADO);
+        assertThat(resultado.resultados().get(1).errores()).containsExactly("Ya existe un usuario con ese correo");
+        assertThat(resultado.resultados().get(2).errores()).containsExactly("email: El email no es válido");
+        assertThat(resultado.resultados().get(4).errores()).containsExactly("El correo está repetido en el lote");
+        assertThat(resultado.resultados().get(0).id()).isNotNull();
+
+        // Una sola consulta para todos los correos y ninguna por usuario
+        verify(repository, times(1)).findEmailsExistentes(Set.of("a@example.com", "EXISTE@example.com",
+                "email-invalido", "b@example.com", "A@example.com", "c@example.com"));
+        verify(repository, never()).findByEmail(any());
+        verify(entityManager, times(3)).persist(any(Usuario.class));
+        // Un flush/clear tras el bloque de 2 y otro al final
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+        // Solo se hashean las altas aceptadas
+        assertThat(usuarios.get(0).getContraseña()).startsWith("$2a$04$");
+        assertThat(usuarios.get(1).getContraseña()).isEqualTo("password123");
+    }
+
+    @Test
+    void unCorreoDadoDeAltaTrasLaComprobacionSoloFallaEseUsuario() {
+        // 1. Preparación (Arrange): la consulta previa no ve b@example.com, que otra petición confirma
+        // antes del INSERT; el índice único rechaza el flush del bloque que lo contiene
+        when(repository.findEmailsExistentes(anyCollection())).thenReturn(List.of());
+        List<Usuario> pendientes = new ArrayList<>();
+        doAnswer(invocation -> {
+            Usuario usuario = invocation.getArgument(0);
+            usuario.setId(UUID.randomUUID());
+            pendientes.add(usuario);
+            return null;
+        }).when(entityManager).persist(any(Usuario.class));
+        doAnswer(invocation -> {
+            boolean duplicado = pendientes.stream().anyMatch(usuario -> usuario.getEmail().equals("b@example.com"));
+            pendientes.clear();
+            if (duplicado) {
+                throw new ConstraintViolationException("Unique index or primary key violation",
+                        new SQLException("Unique index or primary key violation", "23505"), "UK_USUARIO_EMAIL");
+            }
+            return null;
+        }).when(entityManager).flush();
+        List<Usuario> usuarios = List.of(
+                usuario("a@example.com"), usuario("b@example.com"),   // primer bloque
+                usuario("c@example.com"));                            // segundo bloque
+
+        // 2. Ejecución (Act)
+        ResultadoLote resultado = loteService.crearUsuarios(usuarios);
+
+        // 3. Verificación (Assert): el bloque se reintenta usuario a usuario y el resto se crea
+        assertThat(resultado.creados()).isEqualTo(2);
+        assertThat(resultado.rechazados()).isEqualTo(1);
+        assertThat(resultado.resultados()).extracting(ResultadoLote.Item::estado).containsExactly(
+                ResultadoLote.Estado.CREADO, ResultadoLote.Estado.ERROR, ResultadoLote.Estado.CREADO);
+        assertThat(resultado.resultados().get(1).errores()).containsExactly("Ya existe un usuario con ese correo");
+        assertThat(resultado.resultados().get(1).id()).isNull();
+    }
+
+    @Test
+    void ignoraElIdRecibido() {
+        // 1. Preparación (Arrange)
+        Usuario conId = usuario("a@example.com");
+        UUID idCliente = UUID.randomUUID();
+        conId.setId(idCliente);
+        when(repository.findEmailsExistentes(anyCollection())).thenReturn(List.of());
+
+        // 2. Ejecución (Act)
+        ResultadoLote resultado = loteService.crearUsuarios(List.of(conId));
+
+        // 3. Verificación (Assert)
+        assertThat(resultado.resultados().get(0).id()).isNotEqualTo(idCliente);
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.config.MaximoSentencias;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Tope de sentencias SQL de cada operación del servicio contra H2, con la caché de usuarios activa
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioServiceSqlTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Usuario juan;
+
+    @BeforeEach
+    void setUp() {
+        juan = usuarioService.guardarUsuario(new Usuario(null, "Juan Perez", "juan@example.com", "pass12345", "Calle 1", "123456789", Rol.CLIENTE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        usuarioRepository.deleteAllInBatch();
+    }
+
+    @Test
+    // El INSERT del usuario y el del evento en la outbox
+    @MaximoSentencias(2)
+    void testGuardarUsuarioSinConsultaPrevia() {
+        usuarioService.guardarUsuario(new Usuario(null, "Maria Lopez", "maria@example.com", "pass67890", "Calle 2", "987654321", Rol.VENDEDOR));
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testGuardarUsuarioConEmailDuplicado() {
+        // El índice único rechaza el duplicado en el propio INSERT
+        assertThrows(IllegalArgumentException.class, () -> usuarioService.guardarUsuario(
+                new Usuario(null, "Otro Juan", "juan@example.com", "pass67890", "Calle 2", "987654321", Rol.CLIENTE)));
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testObtenerResumenPorIdDosVecesUsaLaCache() {
+        usuarioService.obtenerResumenPorId(juan.getId());
+        Optional<UsuarioResumen> segunda = usuarioService.obtenerResumenPorId(juan.getId());
+
+        assertThat(segunda).isPresent();
+    }
+
+    @Test
+    @MaximoSentencias(1)
+    void testListarUsuariosConProyeccion() {
+        assertThat(usuarioService.listarUsuarios(null, 10).contenido()).containsExactly(UsuarioResumen.de(juan));
+    }
+
+    @Test
+    @MaximoSentencias(2)
+    void testActualizarUsuario() {
+        Optional<Usuario> actualizado = usuarioService.actualizarUsuario(juan.getId(),
+                new Usuario(null, "Juan Editado", "juan.editado@example.com", "nuevaClave123", "Calle 9", "111222333", Rol.VENDEDOR));
+
+        assertThat(actualizado).isPresent();
+    }
+
+    @Test
+    @MaximoSentencias(3)
+    void testActualizarParcial() {
+        Optional<Usuario> actualizado = usuarioService.actualizarParcial(juan.getId(), Map.of("telefono", "111222333"));
+
+        assertThat(actualizado).hasValueSatisfying(usuario -> assertThat(usuario.getTelefono()).isEqualTo("111222333"));
+    }
+
+    @Test
+    @MaximoSentencias(2)
+    void testEliminarUsuario() {
+        assertThat(usuarioService.eliminarUsuario(juan.getId())).isTrue();
+    }
+
+    @Test
+    @MaximoSentencias(3)
+    void testEliminarUsuarios() {
+        assertThat(usuarioService.eliminarUsuarios(List.of(juan.getId(), juan.getId()))).isEqualTo(1);
+    }
+}
@@ -1,20 +1,39 @@
 package com.ecomarket.ms_usuarios.service;
 
+import com.ecomarket.ms_usuarios.dto.FiltroUsuarios;
+import com.ecomarket.ms_usuarios.dto.Pagina;
+import com.ecomarket.ms_usuarios.dto.UsuarioResumen;
 import com.ecomarket.ms_usuarios.model.Rol;
 import com.ecomarket.ms_usuarios.model.Usuario;
 import com.ecomarket.ms_usuarios.repository.UsuarioRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.validation.Validation;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -26,6 +45,29 @@ class UsuarioServiceTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    // Caché desactivada: las pruebas del servicio verifican siempre el acceso al repositorio
+    @Spy
+    private UsuarioCache usuarioCache = new UsuarioCache(new NoOpCacheManager(), Duration.ZERO);
+
+    @Spy
+    private HashContrasenas hashContrasenas = new HashContrasenas(4, Duration.ofMillis(250), 1, 8, Duration.ofSeconds(5));
+
+    @Spy
+    private ParcheUsuario parcheUsuario = new ParcheUsuario(Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Mock
+    private SugerenciasUsuarios sugerencias;
+
+    @Mock
+    private FiltroEmails filtroEmails;
+
+    // Ejecuta el callback sin transacción real
+    @Spy
+    private TransactionTemplate transaccion = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private EventosUsuario eventos;
+
     @InjectMocks
     private UsuarioService usuarioService;
 
@@ -43,49 +85,95 @@ class UsuarioServiceTest {
     @Test
     void testListarUsuarios() {
         // 1. Preparación (Arrange)
-        Usuario usuario1 = new Usuario(USER_ID_1, "Juan Perez", "juan@example.com", "pass123", "Calle Falsa 123", "111222333", Rol.CLIENTE);
-        Usuario usuario2 = new Usuario(USER_ID_2, "Maria Lopez", "maria@example.com", "pass456", "Avenida Siempre Viva", "444555666", Rol.VENDEDOR);
-        List<Usuario> usuariosEsperados = Arrays.asList(usuario1, usuario2);
+        UsuarioResumen usuario1 = new UsuarioResumen(USER_ID_1, "Juan Perez", "juan@example.com", "Calle Falsa 123", "111222333", Rol.CLIENTE, 0L);
+        UsuarioResumen usuario2 = new UsuarioResumen(USER_ID_2, "Maria Lopez", "maria@example.com", "Avenida Siempre Viva", "444555666", Rol.VENDEDOR, 0L);
+        List<UsuarioResumen> usuariosEsperados = Arrays.asList(usuario1, usuario2);
 
-        when(usuarioRepository.findAll()).thenReturn(usuariosEsperados);
+        when(usuarioRepository.findResumenes(Limit.of(11))).thenReturn(usuariosEsperados);
 
         // 2. Ejecución (Act)
-        List<Usuario> resultado = usuarioService.listarUsuarios();
+        Pagina<UsuarioResumen> resultado = usuarioService.listarUsuarios(null, 10);
 
         // 3. Verificación (Assert)
-        assertThat(resultado).isNotNull();
-        assertThat(resultado).hasSize(2);
-        assertThat(resultado).containsExactlyInAnyOrder(usuario1, usuario2);
-        // Verifica que el método findAll del repositorio fue llamado exactamente una vez
-        verify(usuarioRepository, times(1)).findAll();
+        assertThat(resultado.contenido()).containsExactly(usuario1, usuario2);
+        assertThat(resultado.tieneSiguiente()).isFalse();
+        // Nunca se debe cargar la tabla completa ni las entidades
+        verify(usuarioRepository, times(1)).findResumenes(Limit.of(11));
+        verify(usuarioRepository, never()).findAll();
     }
 
     @Test
-    void testObtenerUsuarioPorIdExistente() {
+    void testListarUsuariosConPaginaSiguiente() {
         // 1. Preparación (Arrange)
-        Usuario usuarioExistente = new Usuario(USER_ID_1, "Juan Perez", "juan@example.com", "pass123", "Calle Falsa 123", "111222333", Rol.CLIENTE);
-        when(usuarioRepository.findById(USER_ID_1)).thenReturn(Optional.of(usuarioExistente));
+        UsuarioResumen usuario1 = new UsuarioResumen(USER_ID_1, "Juan Perez", "juan@example.com", "Calle Falsa 123", "111222333", Rol.CLIENTE, 0L);
+        UsuarioResumen usuario2 = new UsuarioResumen(USER_ID_2, "Maria Lopez", "maria@example.com", "Avenida Siempre Viva", "444555666", Rol.VENDEDOR, 0L);
+        String cursor = CursorPaginacion.codificar(NON_EXISTENT_ID);
+
+        when(usuarioRepository.findResumenesDespuesDe(NON_EXISTENT_ID, Limit.of(2)))
+                .thenReturn(Arrays.asList(usuario1, usuario2));
 
         // 2. Ejecución (Act)
-        Optional<Usuario> resultado = usuarioService.obtenerUsuarioPorId(USER_ID_1);
+        Pagina<UsuarioResumen> resultado = usuarioService.listarUsuarios(cursor, 1);
 
         // 3. Verificación (Assert)
-        assertThat(resultado).isPresent();
-        assertThat(resultado.get()).isEqualTo(usuarioExistente);
-        verify(usuarioRepository, times(1)).findById(USER_ID_1);
+        assertThat(resultado.contenido()).containsExactly(usuario1);
+        assertThat(resultado.siguiente()).isEqualTo(CursorPaginacion.codificar(USER_ID_1));
+        assertThat(CursorPaginacion.decodificar(resultado.siguiente())).isEqualTo(USER_ID_1);
+    }
+
+    @Test
+    void testListarUsuariosConCursorInvalidoLanzaExcepcion() {
+        IllegalArgumentException thrown = assertThrows(
+                IllegalArgumentException.class,
+                () -> usuarioService.listarUsuarios("no-es-un-cursor", 10)
+        );
+        assertThat(thrown.getMessage()).startsWith("Cursor inválido");
+        verifyNoInteractions(usuarioRepository);
+    }
+
+    @Test
+    void testExportarUsuariosSinCargarEntidades() {
+        // 1. Preparación (Arrange)
+        UsuarioResumen usuario1 = new UsuarioResumen(USER_ID_1, "Juan Perez", "juan@example.com", "Calle Falsa 123", "111222333", Rol.CLIENTE, 0L);
+        UsuarioResumen usuario2 = new UsuarioResumen(USER_ID_2, "Maria Lopez", "maria@example.com", "Avenida Siempre Viva", "444555666", Rol.VENDEDOR, 0L);
+        when(usuarioRepository.streamResumenes()).thenReturn(Stream.of(usuario1, usuario2));
+        List<UsuarioResumen> recibidos = new ArrayList<>();
+
+        // 2. Ejecución (Act)
+        usuarioService.exportarUsuarios(recibidos::add);
+
+        // 3. Verificación (Assert)
+        assertThat(recibidos).containsExactly(usuario1, usuario2);
+        verify(usuarioRepository, never()).findAll();
     }
 
     @Test
-    void testObtenerUsuarioPorIdNoExistente() {
+    void testObtenerResumenPorIdExistente() {
         // 1. Preparación (Arrange)
-        when(usuarioRepository.findById(NON_EXISTENT_ID)).thenReturn(Optional.empty());
+        UsuarioResumen existente = new UsuarioResumen(USER_ID_1, "Juan Perez", "juan@example.com", "Calle Falsa 123", "111222333", Rol.CLIENTE, 0L);
+        when(usuarioRepository.findResumenById(USER_ID_1)).thenReturn(Optional.of(existente));
 
         // 2. Ejecución (Act)
-        Optional<Usuario> resultado = usuarioService.obtenerUsuarioPorId(NON_EXISTENT_ID);
+        Optional<UsuarioResumen> resultado = usuarioService.obtenerResumenPorId(USER_ID_1);
+
+        // 3. Verificación (Assert)
+        assertThat(resultado).contains(existente);
+        verify(usuarioRepository, times(1)).findResumenById(USER_ID_1);
+        // La lectura pública no carga la entidad (ni la contraseña)
+        verify(usuarioRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void testObtenerResumenPorIdNoExistente() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.findResumenById(NON_EXISTENT_ID)).thenReturn(Optional.empty());
+
+        // 2. Ejecución (Act)
+        Optional<UsuarioResumen> resultado = usuarioService.obtenerResumenPorId(NON_EXISTENT_ID);
 
         // 3. Verificación (Assert)
         assertThat(resultado).isNotPresent();
-        verify(usuarioRepository, times(1)).findById(NON_EXISTENT_ID);
+        verify(usuarioRepository, times(1)).findResumenById(NON_EXISTENT_ID);
     }
 
     @Test
@@ -122,8 +210,7 @@ class UsuarioServiceTest {
         Usuario nuevoUsuario = new Usuario(null, "Pedro Gomez", "pedro@example.com", "newpass", "Nueva Direccion", "777888999", Rol.CLIENTE);
         Usuario usuarioGuardado = new Usuario(USER_ID_1, "Pedro Gomez", "pedro@example.com", "newpass", "Nueva Direccion", "777888999", Rol.CLIENTE);
 
-        when(usuarioRepository.findByEmail(nuevoUsuario.getEmail())).thenReturn(Optional.empty()); // No existe email
-        when(usuarioRepository.save(any(Usuario.class))).thenReturn(usuarioGuardado);
+        when(usuarioRepository.saveAndFlush(any(Usuario.class))).thenReturn(usuarioGuardado);
 
         // 2. Ejecución (Act)
         Usuario resultado = usuarioService.guardarUsuario(nuevoUsuario);
@@ -133,37 +220,49 @@ class UsuarioServiceTest {
         assertThat(resultado.getId()).isEqualTo(USER_ID_1);
         assertThat(resultado.getEmail()).isEqualTo("pedro@example.com");
         assertThat(resultado.getRol()).isEqualTo(Rol.CLIENTE);
-        verify(usuarioRepository, times(1)).findByEmail(nuevoUsuario.getEmail());
-        verify(usuarioRepository, times(1)).save(nuevoUsuario);
+        // El alta es una única sentencia: sin consulta previa por email
+        verify(usuarioRepository, never()).findByEmail(anyString());
+        verify(usuarioRepository, times(1)).saveAndFlush(nuevoUsuario);
+        verify(usuarioCache).invalidar(USER_ID_1, "pedro@example.com");
+        verify(sugerencias).indexar(USER_ID_1, "Pedro Gomez", "pedro@example.com");
+        verify(filtroEmails).registrar("pedro@example.com");
+        // El evento se escribe en la misma transacción que el INSERT
+        verify(transaccion).execute(any());
+        verify(eventos).creado(usuarioGuardado);
+        // Se persiste el hash, nunca la contraseña en claro
+        assertThat(nuevoUsuario.getContraseña()).startsWith("$2a$04$");
+        assertThat(hashContrasenas.verificar("newpass", nuevoUsuario.getContraseña())).isTrue();
     }
 
     @Test
-    void testGuardarUsuarioExistenteActualizar() {
-        // 1. Preparación (Arrange)
-        Usuario usuarioExistente = new Usuario(USER_ID_1, "Juan Perez", "juan@example.com", "oldpass", "Calle Falsa 123", "111222333", Rol.CLIENTE);
-        Usuario usuarioActualizado = new Usuario(USER_ID_1, "Juan Perez Actualizado", "juan@example.com", "newpass", "Nueva Direccion", "111222333", Rol.CLIENTE);
+    void testGuardarUsuarioConIdEsSiempreUnAlta() {
+        // 1. Preparación (Arrange): el cuerpo del POST trae el id de un usuario existente
+        Usuario conId = new Usuario(USER_ID_1, "Juan Perez Actualizado", "juan2@example.com", "newpass", "Nueva Direccion", "111222333", Rol.CLIENTE);
+        Usuario usuarioGuardado = new Usuario(USER_ID_2, "Juan Perez Actualizado", "juan2@example.com", "newpass", "Nueva Direccion", "111222333", Rol.CLIENTE);
 
-        when(usuarioRepository.findByEmail(usuarioActualizado.getEmail())).thenReturn(Optional.of(usuarioExistente)); // Mismo email
-        when(usuarioRepository.save(any(Usuario.class))).thenReturn(usuarioActualizado);
+        when(usuarioRepository.saveAndFlush(any(Usuario.class))).thenReturn(usuarioGuardado);
 
         // 2. Ejecución (Act)
-        Usuario resultado = usuarioService.guardarUsuario(usuarioActualizado);
-
-        // 3. Verificación (Assert)
-        assertThat(resultado).isNotNull();
-        assertThat(resultado.getId()).isEqualTo(USER_ID_1);
-        assertThat(resultado.getNombre()).isEqualTo("Juan Perez Actualizado");
-        verify(usuarioRepository, times(1)).findByEmail(usuarioActualizado.getEmail());
-        verify(usuarioRepository, times(1)).save(usuarioActualizado);
+        Usuario resultado = usuarioService.guardarUsuario(conId);
+
+        // 3. Verificación (Assert): se guarda sin id y se anota como alta
+        assertThat(resultado.getId()).isEqualTo(USER_ID_2);
+        assertThat(conId.getId()).isNull();
+        verify(usuarioRepository, times(1)).saveAndFlush(conId);
+        verify(eventos).creado(usuarioGuardado);
+        verify(eventos, never()).actualizado(any());
     }
 
     @Test
     void testGuardarUsuarioConEmailExistenteParaOtroUsuarioLanzaExcepcion() {
         // 1. Preparación (Arrange)
-        Usuario usuario1 = new Usuario(USER_ID_1, "Juan Perez", "juan@example.com", "pass1", "Dir1", "111", Rol.CLIENTE);
         Usuario usuarioNuevoConEmailExistente = new Usuario(USER_ID_2, "Otro Nombre", "juan@example.com", "pass2", "Dir2", "222", Rol.VENDEDOR);
 
-        when(usuarioRepository.findByEmail("juan@example.com")).thenReturn(Optional.of(usuario1)); // El email ya existe para usuario1
+        // El índice único rechaza el INSERT/UPDATE
+        when(usuarioRepository.saveAndFlush(any(Usuario.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("Duplicate entry 'juan@example.com'",
+                        new SQLIntegrityConstraintViolationException("Duplicate entry"), "usuario.uk_usuario_email")));
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         IllegalArgumentException thrown = assertThrows(
@@ -172,8 +271,9 @@ class UsuarioServiceTest {
                 "Se esperaba IllegalArgumentException al intentar guardar un usuario con email ya existente para otro ID"
         );
         assertThat(thrown.getMessage()).isEqualTo("Ya existe un usuario con ese correo");
-        verify(usuarioRepository, times(1)).findByEmail("juan@example.com");
-        verify(usuarioRepository, never()).save(any(Usuario.class)); // Asegura que save nunca fue llamado
+        verify(usuarioRepository, never()).findByEmail(anyString());
+        verify(usuarioCache, never()).invalidar(any(), any());
+        verifyNoInteractions(eventos);
     }
 
     @Test
@@ -188,8 +288,7 @@ class UsuarioServiceTest {
                 "Se esperaba IllegalArgumentException si el rol es nulo"
         );
         assertThat(thrown.getMessage()).isEqualTo("El rol es obligatorio");
-        verify(usuarioRepository, never()).findByEmail(anyString()); // No debería llegar a verificar email
-        verify(usuarioRepository, never()).save(any(Usuario.class)); // Asegura que save nunca fue llamado
+        verify(usuarioRepository, never()).saveAndFlush(any(Usuario.class)); // Asegura que nunca se guardó
     }
 
     @Test
@@ -197,8 +296,7 @@ class UsuarioServiceTest {
         // 1. Preparación (Arrange)
         Usuario nuevoUsuario = new Usuario(null, "Pedro Gomez", "pedro@example.com", "newpass", "Nueva Direccion", "777888999", Rol.CLIENTE);
 
-        when(usuarioRepository.findByEmail(nuevoUsuario.getEmail())).thenReturn(Optional.empty());
-        when(usuarioRepository.save(any(Usuario.class))).thenThrow(new DataIntegrityViolationException("Error de BD simulado"));
+        when(usuarioRepository.saveAndFlush(any(Usuario.class))).thenThrow(new DataIntegrityViolationException("Error de BD simulado"));
 
         // 2. Ejecución y 3. Verificación (Act & Assert)
         RuntimeException thrown = assertThrows(
@@ -208,40 +306,280 @@ class UsuarioServiceTest {
         );
         assertThat(thrown.getMessage()).contains("Error al guardar el usuario");
         assertThat(thrown.getCause()).isInstanceOf(DataAccessException.class);
-        verify(usuarioRepository, times(1)).findByEmail(nuevoUsuario.getEmail());
-        verify(usuarioRepository, times(1)).save(nuevoUsuario);
+        verify(usuarioRepository, times(1)).saveAndFlush(nuevoUsuario);
     }
 
     @Test
-    void testEliminarUsuarioExitoso() {
+    void testActualizarUsuarioEnUnaSentencia() {
         // 1. Preparación (Arrange)
-        when(usuarioRepository.existsById(USER_ID_1)).thenReturn(true);
-        // Mockear el comportamiento de deleteById, no devuelve nada
-        doNothing().when(usuarioRepository).deleteById(USER_ID_1);
+        Usuario datos = new Usuario(null, "Juan Editado", "juan.editado@example.com", "nuevaClave123", "Dir 2", "999888777", Rol.VENDEDOR);
+        when(usuarioRepository.actualizarCampos(eq(USER_ID_1), anyMap(), isNull())).thenReturn(1);
 
         // 2. Ejecución (Act)
-        usuarioService.eliminarUsuario(USER_ID_1);
+        Optional<Usuario> resultado = usuarioService.actualizarUsuario(USER_ID_1, datos);
 
         // 3. Verificación (Assert)
-        // Verifica que existsById fue llamado y luego deleteById
-        verify(usuarioRepository, times(1)).existsById(USER_ID_1);
-        verify(usuarioRepository, times(1)).deleteById(USER_ID_1);
+        assertThat(resultado).hasValueSatisfying(usuario -> {
+            assertThat(usuario.getId()).isEqualTo(USER_ID_1);
+            assertThat(usuario.getNombre()).isEqualTo("Juan Editado");
+            assertThat(hashContrasenas.verificar("nuevaClave123", usuario.getContraseña())).isTrue();
+        });
+        verify(usuarioRepository).actualizarCampos(eq(USER_ID_1), argThat(campos ->
+                campos.keySet().equals(Set.of("nombre", "email", "contraseña", "direccion", "telefono", "rol"))), isNull());
+        // Sin lectura previa ni merge de la entidad
+        verify(usuarioRepository, never()).findById(any(UUID.class));
+        verify(usuarioRepository, never()).saveAndFlush(any(Usuario.class));
+        verify(usuarioCache).invalidar(USER_ID_1, "juan.editado@example.com");
+        verify(sugerencias).indexar(USER_ID_1, "Juan Editado", "juan.editado@example.com");
+        verify(filtroEmails).registrar("juan.editado@example.com");
+        verify(eventos).actualizado(argThat(usuario -> usuario.getId().equals(USER_ID_1)
+                && usuario.getEmail().equals("juan.editado@example.com")));
     }
 
     @Test
-    void testEliminarUsuarioNoEncontradoLanzaExcepcion() {
+    void testActualizarUsuarioNoExistente() {
         // 1. Preparación (Arrange)
-        when(usuarioRepository.existsById(NON_EXISTENT_ID)).thenReturn(false);
+        Usuario datos = new Usuario(null, "Nadie", "nadie@example.com", "clave123", "Dir", "123456789", Rol.CLIENTE);
+        when(usuarioRepository.actualizarCampos(eq(NON_EXISTENT_ID), anyMap(), isNull())).thenReturn(0);
+
+        // 2. Ejecución (Act)
+        Optional<Usuario> resultado = usuarioService.actualizarUsuario(NON_EXISTENT_ID, datos);
+
+        // 3. Verificación (Assert)
+        assertThat(resultado).isEmpty();
+        verify(usuarioCache, never()).invalidar(any(), any());
+        verifyNoInteractions(eventos);
+    }
 
+    @Test
+    void testBuscarUsuariosSinFiltros() {
         // 2. Ejecución y 3. Verificación (Act & Assert)
-        IllegalArgumentException thrown = assertThrows(
-                IllegalArgumentException.class,
-                () -> usuarioService.eliminarUsuario(NON_EXISTENT_ID),
-                "Se esperaba IllegalArgumentException si el usuario no existe"
-        );
-        assertThat(thrown.getMessage()).isEqualTo("Usuario con ID no encontrado: " + NON_EXISTENT_ID);
-        verify(usuarioRepository, times(1)).existsById(NON_EXISTENT_ID);
-        // Asegura que deleteById nunca fue llamado
-        verify(usuarioRepository, never()).deleteById(any(UUID.class));
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> usuarioService.buscarUsuarios(new FiltroUsuarios(null, " ", ""), null, 10));
+        assertThat(thrown.getMessage()).isEqualTo("Indique al menos un filtro: rol, nombre o dominio");
+        verify(usuarioRepository, never()).buscarResumenes(any(), anyInt());
+    }
+
+    @Test
+    void testActualizarUsuarioConVersionEsperada() {
+        // 1. Preparación (Arrange)
+        Usuario datos = new Usuario(null, "Juan Editado", "juan@example.com", "nuevaClave123", "Dir 2", "999888777", Rol.CLIENTE);
+        when(usuarioRepository.actualizarCampos(eq(USER_ID_1), anyMap(), eq(3L))).thenReturn(1);
+
+        // 2. Ejecución (Act)
+        Optional<Usuario> resultado = usuarioService.actualizarUsuario(USER_ID_1, datos, 3L);
+
+        // 3. Verificación (Assert)
+        assertThat(resultado).hasValueSatisfying(usuario -> assertThat(usuario.getVersion()).isEqualTo(4L));
+        verify(usuarioRepository, never()).findVersionById(any(UUID.class));
+    }
+
+    @Test
+    void testActualizarUsuarioConVersionObsoleta() {
+        // 1. Preparación (Arrange)
+        Usuario datos = new Usuario(null, "Juan Editado", "juan@example.com", "nuevaClave123", "Dir 2", "999888777", Rol.CLIENTE);
+        when(usuarioRepository.actualizarCampos(eq(USER_ID_1), anyMap(), eq(3L))).thenReturn(0);
+        when(usuarioRepository.findVersionById(USER_ID_1)).thenReturn(Optional.of(5L));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> usuarioService.actualizarUsuario(USER_ID_1, datos, 3L));
+        verify(usuarioCache, never()).invalidar(any(), any());
+    }
+
+    @Test
+    void testActualizarUsuarioConVersionNoExistente() {
+        // 1. Preparación (Arrange)
+        Usuario datos = new Usuario(null, "Nadie", "nadie@example.com", "clave1234", "Dir", "123456789", Rol.CLIENTE);
+        when(usuarioRepository.actualizarCampos(eq(NON_EXISTENT_ID), anyMap(), eq(3L))).thenReturn(0);
+        when(usuarioRepository.findVersionById(NON_EXISTENT_ID)).thenReturn(Optional.empty());
+
+        // 2. Ejecución (Act)
+        Optional<Usuario> resultado = usuarioService.actualizarUsuario(NON_EXISTENT_ID, datos, 3L);
+
+        // 3. Verificación (Assert)
+        assertThat(resultado).isEmpty();
+    }
+
+    @Test
+    void testObtenerVersion() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.findVersionById(USER_ID_1)).thenReturn(Optional.of(2L));
+
+        // 2. Ejecución (Act)
+        Optional<Long> version = usuarioService.obtenerVersion(USER_ID_1);
+
+        // 3. Verificación (Assert)
+        assertThat(version).contains(2L);
+        verify(usuarioRepository, never()).findResumenById(any(UUID.class));
+    }
+
+    @Test
+    void testActualizarParcialSoloCamposEnviados() {
+        // 1. Preparación (Arrange)
+        Usuario actualizado = new Usuario(USER_ID_1, "Juan Perez", "juan@example.com", "pass123", "Nueva Dir 456", null, Rol.CLIENTE);
+        Map<String, Object> parche = new HashMap<>();
+        parche.put("direccion", "Nueva Dir 456");
+        parche.put("telefono", null); // null en merge patch borra el valor
+
+        Map<String, Object> esperado = new HashMap<>();
+        esperado.put("direccion", "Nueva Dir 456");
+        esperado.put("telefono", null);
+        when(usuarioRepository.actualizarCampos(USER_ID_1, esperado, null)).thenReturn(1);
+        when(usuarioRepository.releer(USER_ID_1)).thenReturn(Optional.of(actualizado));
+
+        // 2. Ejecución (Act)
+        Optional<Usuario> resultado = usuarioService.actualizarParcial(USER_ID_1, parche);
+
+        // 3. Verificación (Assert)
+        assertThat(resultado).contains(actualizado);
+        // Ni merge de la entidad completa ni consulta por email
+        verify(usuarioRepository, never()).saveAndFlush(any(Usuario.class));
+        verify(usuarioRepository, never()).findByEmail(anyString());
+        verify(usuarioCache).invalidar(USER_ID_1, null);
+        // Ni el nombre ni el email cambian: el índice de sugerencias no se toca
+        verify(sugerencias, never()).indexar(any(), any(), any());
+        // El evento lleva la fila completa tras el cambio
+        verify(eventos).actualizado(actualizado);
+    }
+
+    @Test
+    void testActualizarParcialHasheaLaContrasena() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.actualizarCampos(eq(USER_ID_1), anyMap(), isNull())).thenReturn(1);
+        when(usuarioRepository.releer(USER_ID_1)).thenReturn(Optional.empty());
+
+        // 2. Ejecución (Act)
+        usuarioService.actualizarParcial(USER_ID_1, Map.of("contrasena", "nuevaClave123"));
+
+        // 3. Verificación (Assert)
+        verify(usuarioRepository).actualizarCampos(eq(USER_ID_1), argThat(cambios ->
+                hashContrasenas.verificar("nuevaClave123", (String) cambios.get("contraseña"))), isNull());
+    }
+
+    @Test
+    void testActualizarParcialUsuarioNoExistente() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.actualizarCampos(eq(NON_EXISTENT_ID), anyMap(), isNull())).thenReturn(0);
+
+        // 2. Ejecución (Act)
+        Optional<Usuario> resultado = usuarioService.actualizarParcial(NON_EXISTENT_ID, Map.of("nombre", "Nuevo Nombre"));
+
+        // 3. Verificación (Assert)
+        assertThat(resultado).isEmpty();
+        verify(usuarioRepository, never()).releer(any(UUID.class));
+    }
+
+    @Test
+    void testActualizarParcialValidaSoloLosCamposPresentes() {
+        // Email inválido y nombre obligatorio borrado; el resto de campos no se valida
+        Map<String, Object> parche = new HashMap<>();
+        parche.put("email", "no-es-email");
+        parche.put("nombre", null);
+
+        jakarta.validation.ConstraintViolationException thrown = assertThrows(
+                jakarta.validation.ConstraintViolationException.class,
+                () -> usuarioService.actualizarParcial(USER_ID_1, parche));
+
+        assertThat(thrown.getConstraintViolations()).extracting(v -> v.getPropertyPath().toString())
+                .containsExactlyInAnyOrder("email", "nombre");
+        verify(usuarioRepository, never()).actualizarCampos(any(), anyMap(), isNull());
+    }
+
+    @Test
+    void testActualizarParcialConCampoNoModificable() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> usuarioService.actualizarParcial(USER_ID_1, Map.of("id", USER_ID_2.toString())));
+
+        assertThat(thrown.getMessage()).isEqualTo("El campo no se puede modificar: id");
+    }
+
+    @Test
+    void testActualizarParcialConEmailDuplicado() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.actualizarCampos(eq(USER_ID_1), anyMap(), isNull())).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("Duplicate entry 'maria@example.com'",
+                        new SQLIntegrityConstraintViolationException("Duplicate entry"), "usuario.uk_usuario_email")));
+
+        // 2. Ejecución y 3. Verificación (Act & Assert)
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> usuarioService.actualizarParcial(USER_ID_1, Map.of("email", "maria@example.com", "rol", "VENDEDOR")));
+        assertThat(thrown.getMessage()).isEqualTo("Ya existe un usuario con ese correo");
+    }
+
+    @Test
+    void testEliminarUsuarioExitoso() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.borrarPorId(USER_ID_1)).thenReturn(1);
+
+        // 2. Ejecución (Act)
+        boolean eliminado = usuarioService.eliminarUsuario(USER_ID_1);
+
+        // 3. Verificación (Assert)
+        // Un único DELETE: sin existsById ni carga previa de la entidad
+        assertThat(eliminado).isTrue();
+        verify(usuarioRepository, times(1)).borrarPorId(USER_ID_1);
+        verify(usuarioRepository, never()).existsById(any(UUID.class));
+        verify(usuarioRepository, never()).findById(any(UUID.class));
+        verify(usuarioCache).invalidar(USER_ID_1, null);
+        verify(sugerencias).eliminar(USER_ID_1);
+        verify(eventos).eliminado(USER_ID_1);
+    }
+
+    @Test
+    void testEliminarUsuarioNoEncontrado() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.borrarPorId(NON_EXISTENT_ID)).thenReturn(0);
+
+        // 2. Ejecución (Act)
+        boolean eliminado = usuarioService.eliminarUsuario(NON_EXISTENT_ID);
+
+        // 3. Verificación (Assert)
+        assertThat(eliminado).isFalse();
+        verify(usuarioRepository, times(1)).borrarPorId(NON_EXISTENT_ID);
+        verify(sugerencias, never()).eliminar(any());
+        verifyNoInteractions(eventos);
+    }
+
+    @Test
+    void testEliminarVariosUsuariosEnUnaSentencia() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.bloquearExistentes(anyCollection())).thenReturn(List.of(USER_ID_1, USER_ID_2));
+        when(usuarioRepository.borrarPorIds(anyCollection())).thenReturn(2);
+
+        // 2. Ejecución (Act)
+        int eliminados = usuarioService.eliminarUsuarios(List.of(USER_ID_1, USER_ID_2, USER_ID_1, NON_EXISTENT_ID));
+
+        // 3. Verificación (Assert)
+        assertThat(eliminados).isEqualTo(2);
+        // Los ids repetidos se consultan una sola vez
+        verify(usuarioRepository, times(1)).bloquearExistentes(Set.of(USER_ID_1, USER_ID_2, NON_EXISTENT_ID));
+        verify(usuarioRepository, times(1)).borrarPorIds(List.of(USER_ID_1, USER_ID_2));
+        verify(usuarioCache).invalidar(USER_ID_2, null);
+        // Sin evento para el id que no existía
+        verify(eventos).eliminados(List.of(USER_ID_1, USER_ID_2));
+    }
+
+    @Test
+    void testEliminarVariosUsuariosInexistentesNoEmiteEventos() {
+        // 1. Preparación (Arrange)
+        when(usuarioRepository.bloquearExistentes(anyCollection())).thenReturn(List.of());
+
+        // 2. Ejecución (Act)
+        int eliminados = usuarioService.eliminarUsuarios(List.of(NON_EXISTENT_ID));
+
+        // 3. Verificación (Assert)
+        assertThat(eliminados).isZero();
+        verify(usuarioRepository, never()).borrarPorIds(anyCollection());
+        verifyNoInteractions(eventos);
+    }
+
+    @Test
+    void testEliminarVariosUsuariosSuperaElMaximo() {
+        List<UUID> ids = Stream.generate(UUID::randomUUID).limit(UsuarioService.MAXIMO_BORRADO + 1).toList();
+
+        assertThrows(IllegalArgumentException.class, () -> usuarioService.eliminarUsuarios(ids));
+        verify(usuarioRepository, never()).borrarPorIds(anyCollection());
     }
-}
\ No newline at end of file
+}
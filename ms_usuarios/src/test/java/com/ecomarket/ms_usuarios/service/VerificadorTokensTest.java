@@ -0,0 +1,114 @@
+package com.ecomarket.ms_usuarios.service;
+
+import com.ecomarket.ms_usuarios.config.JwtProperties;
+import com.ecomarket.ms_usuarios.dto.TokenVerificado;
+import com.ecomarket.ms_usuarios.exception.TokenInvalidoException;
+import com.ecomarket.ms_usuarios.model.Rol;
+import com.ecomarket.ms_usuarios.model.Usuario;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerificadorTokensTest {
+
+    private static final String CLAVE_1 = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+    private static final String CLAVE_2 = "ZmVkY2JhOTg3NjU0MzIxMGZlZGNiYTk4NzY1NDMyMTA=";
+
+    private final Usuario usuario = new Usuario(UUID.randomUUID(), "Juan Pérez", "juan@example.com",
+            "password123", null, null, Rol.VENDEDOR);
+
+    static JwtProperties propiedades(Duration duracion) {
+        return propiedades("ms_usuarios", "k1", Map.of("k1", CLAVE_1, "k2", CLAVE_2), duracion);
+    }
+
+    private static JwtProperties propiedades(String emisor, String activa, Map<String, String> claves, Duration duracion) {
+        return new JwtProperties(emisor, duracion, activa, claves, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void verificaTokenEmitidoYDevuelveClaims() {
+        // 1. Preparación (Arrange)
+        VerificadorTokens verificador = new VerificadorTokens(propiedades(Duration.ofHours(2)));
+        String token = new EmisorTokens(propiedades(Duration.ofHours(2))).emitir(usuario).token();
+
+        // 2. Ejecución (Act)
+        TokenVerificado claims = verificador.verificar(token);
+
+        // 3. Verificación (Assert)
+        assertThat(claims.id()).isEqualTo(usuario.getId());
+        assertThat(claims.email()).isEqualTo("juan@example.com");
+        assertThat(claims.rol()).isEqualTo(Rol.VENDEDOR);
+        // La segunda verificación sale de la caché
+        assertThat(verificador.verificar(token)).isSameAs(claims);
+    }
+
+    @Test
+    void aceptaTokensDeOtraClaveDelJuego() {
+        // Tras rotar la clave activa a k2 los tokens firmados con k1 siguen siendo válidos, y al revés
+        String conK2 = new EmisorTokens(propiedades("ms_usuarios", "k2", Map.of("k1", CLAVE_1, "k2", CLAVE_2),
+                Duration.ofHours(2))).emitir(usuario).token();
+
+        assertThat(new VerificadorTokens(propiedades(Duration.ofHours(2))).verificar(conK2).id()).isEqualTo(usuario.getId());
+    }
+
+    @Test
+    void rechazaFirmaManipulada() {
+        VerificadorTokens verificador = new VerificadorTokens(propiedades(Duration.ofHours(2)));
+        String token = new EmisorTokens(propiedades(Duration.ofHours(2))).emitir(usuario).token();
+        String manipulado = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        TokenInvalidoException ex = assertThrows(TokenInvalidoException.class, () -> verificador.verificar(manipulado));
+        assertThat(ex.getMessage()).isEqualTo("Firma no válida");
+    }
+
+    @Test
+    void rechazaClaveDesconocida() {
+        String token = new EmisorTokens(propiedades("ms_usuarios", "k3", Map.of("k3", CLAVE_1), Duration.ofHours(2)))
+                .emitir(usuario).token();
+
+        TokenInvalidoException ex = assertThrows(TokenInvalidoException.class,
+                () -> new VerificadorTokens(propiedades(Duration.ofHours(2))).verificar(token));
+        assertThat(ex.getMessage()).isEqualTo("Clave de firma desconocida");
+    }
+
+    @Test
+    void rechazaTokenExpirado() {
+        String token = new EmisorTokens(propiedades(Duration.ofMinutes(-5))).emitir(usuario).token();
+
+        TokenInvalidoException ex = assertThrows(TokenInvalidoException.class,
+                () -> new VerificadorTokens(propiedades(Duration.ofHours(2))).verificar(token));
+        assertThat(ex.getMessage()).isEqualTo("Token expirado");
+    }
+
+    @Test
+    void rechazaOtroEmisor() {
+        String token = new EmisorTokens(propiedades("otro-servicio", "k1", Map.of("k1", CLAVE_1), Duration.ofHours(2)))
+                .emitir(usuario).token();
+
+        TokenInvalidoException ex = assertThrows(TokenInvalidoException.class,
+                () -> new VerificadorTokens(propiedades(Duration.ofHours(2))).verificar(token));
+        assertThat(ex.getMessage()).isEqualTo("Emisor no válido");
+    }
+
+    @Test
+    void rechazaTokenMalFormado() {
+        assertThrows(TokenInvalidoException.class,
+                () -> new VerificadorTokens(propiedades(Duration.ofHours(2))).verificar("fake-jwt-123"));
+    }
+
+    @Test
+    void sinLaClaveActivaNoSeConfigura() {
+        // Sin clave por defecto: la configuración incompleta falla al arrancar en vez de firmar con un secreto conocido
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> propiedades("ms_usuarios", "k1", Map.of("k2", CLAVE_2), Duration.ofHours(2)));
+        assertThat(ex.getMessage()).contains("usuarios.jwt.claves.k1");
+
+        assertThrows(IllegalStateException.class,
+                () -> propiedades("ms_usuarios", "k1", Map.of("k1", "c2VjcmV0bw=="), Duration.ofHours(2)));
+    }
+}